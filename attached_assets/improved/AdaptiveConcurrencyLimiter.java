@@ -0,0 +1,202 @@
+package com.example.itil.concurrent;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ⚡ RESILIENCE: Concurrency limit that follows the latency of the protected call (AIMD).
+ *
+ * The baseline is a long-window average of latency: the plain mean of the first
+ * {@value #WARMUP_SAMPLES} samples, then an average that decays over {@code baselineWindowMs}
+ * of wall time, so it follows a lasting shift within about a window but not a short burst
+ * of queueing. An average rather than a minimum keeps a call whose latency merely varies,
+ * without depending on load, from reading its own spread as congestion. While a smoothed
+ * latency stays within {@code tolerance} times the baseline the limit grows additively, by
+ * about one per limit's worth of calls, and
+ * only while at least half of it is in use so an idle system does not talk itself into
+ * a large limit. Once latency climbs past that the limit is cut by 10%, at most once per
+ * limit's worth of calls so one slow period is not punished repeatedly.
+ *
+ * Admission is a CAS on the in-flight count; callers that cannot get a permit are
+ * either turned away ({@link #tryAcquire()}) or wait for one ({@link #acquire(long)}).
+ */
+public final class AdaptiveConcurrencyLimiter {
+
+    private static final double SMOOTHING = 0.2;
+    private static final double BACKOFF = 0.9;
+    private static final int WARMUP_SAMPLES = 100;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final long baselineWindowNanos;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger waiters = new AtomicInteger();
+    private volatile int limit;
+
+    // Controller state, guarded by this
+    private double estimatedLimit;
+    private double latency;
+    private double baseline;
+    private long baselineSamples;
+    private long lastSample;
+    private double samplesSinceBackoff;
+
+    // 📊 METRICS
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder waited = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+
+    public AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit,
+                                      double tolerance, long baselineWindowMs) {
+        this.name = name;
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.tolerance = Math.max(1.0, tolerance);
+        this.baselineWindowNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, baselineWindowMs));
+        this.estimatedLimit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+        this.limit = (int) estimatedLimit;
+    }
+
+    /**
+     * Take a permit if one is free. A permitted call must be followed by {@link #release(long)}.
+     */
+    public boolean tryAcquire() {
+        if (tryIncrement()) {
+            acquired.increment();
+            return true;
+        }
+        rejected.increment();
+        return false;
+    }
+
+    /**
+     * Wait up to {@code timeoutMs} for a permit. A permitted call must be followed by
+     * {@link #release(long)}.
+     */
+    public boolean acquire(long timeoutMs) throws InterruptedException {
+        if (tryIncrement()) {
+            acquired.increment();
+            return true;
+        }
+        waited.increment();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        waiters.incrementAndGet();
+        try {
+            synchronized (inFlight) {
+                while (!tryIncrement()) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        timedOut.increment();
+                        return false;
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(inFlight, remaining);
+                }
+            }
+        } finally {
+            waiters.decrementAndGet();
+        }
+        acquired.increment();
+        return true;
+    }
+
+    /**
+     * Return the permit of a successful call and feed its latency to the controller.
+     */
+    public void release(long latencyNanos) {
+        int active = inFlight.getAndDecrement();
+        update(latencyNanos, active);
+        signalWaiters();
+    }
+
+    /**
+     * Return the permit of a failed call without feeding its latency to the controller;
+     * a fast failure says nothing about how much concurrency the call can take.
+     */
+    public void releaseWithoutSample() {
+        inFlight.decrementAndGet();
+        signalWaiters();
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * 📊 METRICS: Current limit, latency estimates and admission counts
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("name", name);
+        metrics.put("limit", limit);
+        metrics.put("inFlight", inFlight.get());
+        metrics.put("waiting", waiters.get());
+        synchronized (this) {
+            metrics.put("latencyMs", latency / 1_000_000.0);
+            metrics.put("baselineLatencyMs", baseline / 1_000_000.0);
+        }
+        metrics.put("acquired", acquired.sum());
+        metrics.put("rejected", rejected.sum());
+        metrics.put("waited", waited.sum());
+        metrics.put("timedOut", timedOut.sum());
+        return metrics;
+    }
+
+    private boolean tryIncrement() {
+        for (;;) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void signalWaiters() {
+        if (waiters.get() > 0) {
+            synchronized (inFlight) {
+                inFlight.notifyAll();
+            }
+        }
+    }
+
+    private synchronized void update(long latencyNanos, int active) {
+        double sample = Math.max(1, latencyNanos);
+        long now = System.nanoTime();
+        baselineSamples++;
+        if (baselineSamples == 1) {
+            baseline = sample;
+            latency = sample;
+        } else {
+            double weight = baselineSamples <= WARMUP_SAMPLES
+                ? 1.0 / baselineSamples
+                : Math.min(1.0, (double) (now - lastSample) / baselineWindowNanos);
+            baseline += (sample - baseline) * weight;
+            latency += (sample - latency) * SMOOTHING;
+        }
+        lastSample = now;
+        samplesSinceBackoff++;
+
+        if (latency > tolerance * baseline) {
+            if (samplesSinceBackoff >= estimatedLimit) {
+                estimatedLimit = Math.max(minLimit, estimatedLimit * BACKOFF);
+                samplesSinceBackoff = 0;
+            }
+        } else if (active >= estimatedLimit / 2) {
+            estimatedLimit = Math.min(maxLimit, estimatedLimit + 1 / estimatedLimit);
+        }
+        limit = (int) estimatedLimit;
+    }
+}
@@ -0,0 +1,338 @@
+package com.example.itil.service;
+
+import com.atlassian.jira.util.thread.JiraThreadLocalUtil;
+import com.example.itil.concurrent.NamedThreadFactory;
+import com.example.itil.config.PluginConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 🔁 DEDUP: Folds repeated alerts into the incident created by the first one.
+ *
+ * Alerts are keyed by a 64-bit fingerprint of CI, service, alert type and a normalized
+ * summary. The first alert for a fingerprint opens a correlation window; repeats inside
+ * the window are counted against the existing incident instead of creating new issues.
+ * The store is a bounded {@link ConcurrentHashMap}, so a lookup is one hash probe.
+ *
+ * Repeats are written to the incident at most once per comment interval. A background
+ * sweep drops expired windows and writes whatever their last interval left unreported,
+ * so the occurrence count on the incident is complete once its window has closed.
+ */
+@Named
+public class AlertDeduplicator {
+    private static final Logger log = LoggerFactory.getLogger(AlertDeduplicator.class);
+
+    // Configuration defaults
+    private static final long DEFAULT_WINDOW_SECONDS = 300;
+    private static final int DEFAULT_MAX_ENTRIES = 50000;
+    private static final long DEFAULT_COMMENT_INTERVAL_SECONDS = 60;
+    private static final long PURGE_INTERVAL_MS = 1000;
+    private static final long DEFAULT_SWEEP_SECONDS = 10;
+
+    // FNV-1a 64-bit
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final long windowMs;
+    private final int maxEntries;
+    private final long commentIntervalMs;
+    private final long sweepSeconds;
+    private final IssueCreatorService issueCreator;
+    private final JiraThreadLocalUtil threadLocalUtil;
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    // Closed windows whose last repeats have not been written yet
+    private final Queue<Entry> closed = new ConcurrentLinkedQueue<>();
+    private final AtomicLong lastPurge = new AtomicLong();
+    private final ScheduledExecutorService sweeper =
+        Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("itil-alert-dedup"));
+
+    // 📊 METRICS
+    private final LongAdder created = new LongAdder();
+    private final LongAdder folded = new LongAdder();
+    private final LongAdder bypassed = new LongAdder();
+    private final LongAdder repeatsFlushed = new LongAdder();
+
+    @Inject
+    public AlertDeduplicator(IssueCreatorService issueCreator, JiraThreadLocalUtil threadLocalUtil) {
+        this.issueCreator = issueCreator;
+        this.threadLocalUtil = threadLocalUtil;
+        this.windowMs = TimeUnit.SECONDS.toMillis(
+            PluginConfiguration.getLong("alert.dedup.window.seconds", DEFAULT_WINDOW_SECONDS));
+        this.maxEntries = Math.max(1, PluginConfiguration.getInt("alert.dedup.max.entries", DEFAULT_MAX_ENTRIES));
+        this.commentIntervalMs = TimeUnit.SECONDS.toMillis(
+            PluginConfiguration.getLong("alert.dedup.comment.interval.seconds", DEFAULT_COMMENT_INTERVAL_SECONDS));
+        this.sweepSeconds = Math.max(1, PluginConfiguration.getLong("alert.dedup.sweep.seconds", DEFAULT_SWEEP_SECONDS));
+    }
+
+    @PostConstruct
+    public void init() {
+        if (isEnabled()) {
+            sweeper.scheduleWithFixedDelay(this::sweep, sweepSeconds, sweepSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        sweeper.shutdownNow();
+    }
+
+    public boolean isEnabled() {
+        return windowMs > 0;
+    }
+
+    /**
+     * 🔑 FINGERPRINT: Hash identifying fields without building an intermediate string.
+     * The summary is lower-cased, whitespace runs collapse to one space and digit runs
+     * collapse to '#', so "CPU at 91%" and "CPU at 97%" share a fingerprint.
+     */
+    public static long fingerprint(String ciId, String service, String alertType, String summary) {
+        long hash = FNV_OFFSET_BASIS;
+        hash = hashField(hash, ciId);
+        hash = hashField(hash, service);
+        hash = hashField(hash, alertType);
+
+        if (summary != null) {
+            boolean inSpace = false;
+            boolean inDigits = false;
+            for (int i = 0; i < summary.length(); i++) {
+                char c = summary.charAt(i);
+                if (Character.isWhitespace(c)) {
+                    inDigits = false;
+                    if (!inSpace) {
+                        hash = (hash ^ ' ') * FNV_PRIME;
+                        inSpace = true;
+                    }
+                } else if (c >= '0' && c <= '9') {
+                    inSpace = false;
+                    if (!inDigits) {
+                        hash = (hash ^ '#') * FNV_PRIME;
+                        inDigits = true;
+                    }
+                } else {
+                    inSpace = false;
+                    inDigits = false;
+                    hash = (hash ^ Character.toLowerCase(c)) * FNV_PRIME;
+                }
+            }
+        }
+        return hash;
+    }
+
+    private static long hashField(long hash, String value) {
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+            }
+        }
+        // Field separator keeps ("ab", "c") and ("a", "bc") apart
+        return (hash ^ 0x1F) * FNV_PRIME;
+    }
+
+    /**
+     * 📥 REGISTER: Claim a fingerprint. The returned registration is either the owner of a
+     * new window (caller must create the incident and {@link #complete} or {@link #abandon})
+     * or a duplicate of an existing one. Returns {@code null} when dedup is disabled or the
+     * store is full, in which case the caller simply creates an incident.
+     */
+    public Registration register(long fingerprint) {
+        if (!isEnabled()) {
+            return null;
+        }
+
+        long now = System.currentTimeMillis();
+        if (entries.size() >= maxEntries && !purgeExpired(now)) {
+            bypassed.increment();
+            log.debug("Dedup store full ({} entries), not tracking fingerprint {}", entries.size(), fingerprint);
+            return null;
+        }
+
+        Entry[] claimed = new Entry[1];
+        Entry[] replaced = new Entry[1];
+        Entry entry = entries.compute(fingerprint, (key, existing) -> {
+            if (existing != null && existing.expiresAt > now) {
+                existing.occurrences.incrementAndGet();
+                return existing;
+            }
+            replaced[0] = existing;
+            claimed[0] = new Entry(now + windowMs);
+            return claimed[0];
+        });
+
+        if (claimed[0] != null) {
+            closeWindow(replaced[0]);
+            return new Registration(fingerprint, entry, false);
+        }
+        folded.increment();
+        return new Registration(fingerprint, entry, true);
+    }
+
+    /**
+     * ✅ COMPLETE: The owner created the incident; waiting duplicates are released.
+     */
+    public void complete(Registration registration, Long incidentId) {
+        created.increment();
+        registration.entry.incident.complete(incidentId);
+    }
+
+    /**
+     * ❌ ABANDON: Incident creation failed; drop the window so the next alert retries creation.
+     */
+    public void abandon(Registration registration, Throwable cause) {
+        entries.remove(registration.fingerprint, registration.entry);
+        registration.entry.incident.completeExceptionally(cause);
+    }
+
+    /**
+     * 💬 COMMENT: Text recording repeats of an alert on its incident.
+     */
+    public static String repeatComment(int repeats, int occurrences) {
+        return "Alert repeated " + repeats + (repeats == 1 ? " more time" : " more times")
+            + " (" + occurrences + " occurrences in total).";
+    }
+
+    /**
+     * 💬 THROTTLE: Returns the number of repeats to report if a comment is due for this
+     * window, or 0 when the last comment was recent enough.
+     */
+    public int takeRepeatsToReport(Registration registration) {
+        Entry entry = registration.entry;
+        entry.unreported.incrementAndGet();
+
+        long now = System.currentTimeMillis();
+        long last = entry.lastCommentAt.get();
+        if (now - last < commentIntervalMs || !entry.lastCommentAt.compareAndSet(last, now)) {
+            return 0;
+        }
+        return entry.unreported.getAndSet(0);
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", isEnabled());
+        metrics.put("windowSeconds", TimeUnit.MILLISECONDS.toSeconds(windowMs));
+        metrics.put("trackedFingerprints", entries.size());
+        metrics.put("maxFingerprints", maxEntries);
+        metrics.put("incidentsCreated", created.sum());
+        metrics.put("alertsFolded", folded.sum());
+        metrics.put("bypassedStoreFull", bypassed.sum());
+        metrics.put("repeatsFlushed", repeatsFlushed.sum());
+        return metrics;
+    }
+
+    /**
+     * 🧹 CLEANUP: Remove expired windows, at most once per purge interval.
+     * Returns true if there is room for a new entry afterwards.
+     */
+    private boolean purgeExpired(long now) {
+        long last = lastPurge.get();
+        if (now - last >= PURGE_INTERVAL_MS && lastPurge.compareAndSet(last, now)) {
+            entries.forEach((fingerprint, entry) -> {
+                if (entry.expiresAt <= now && entry.incident.isDone() && entries.remove(fingerprint, entry)) {
+                    closeWindow(entry);
+                }
+            });
+        }
+        return entries.size() < maxEntries;
+    }
+
+    private void closeWindow(Entry entry) {
+        if (entry != null && entry.unreported.get() > 0) {
+            closed.add(entry);
+        }
+    }
+
+    /**
+     * 🧹 SWEEP: Drop expired windows and write the repeats their last interval left over.
+     * Runs on the sweeper thread, inside its own Jira request context.
+     */
+    private void sweep() {
+        threadLocalUtil.preCall();
+        try {
+            lastPurge.set(0);
+            purgeExpired(System.currentTimeMillis());
+            List<Entry> creating = new ArrayList<>();
+            Entry entry;
+            while ((entry = closed.poll()) != null) {
+                if (!entry.incident.isDone()) {
+                    // Replaced while its incident was still being created; look again next sweep
+                    creating.add(entry);
+                    continue;
+                }
+                int repeats = entry.unreported.getAndSet(0);
+                if (repeats == 0 || entry.incident.isCompletedExceptionally()) {
+                    continue;
+                }
+                Long incidentId = entry.incident.join();
+                try {
+                    issueCreator.addAutomationComment(incidentId, repeatComment(repeats, entry.occurrences.get()));
+                    repeatsFlushed.add(repeats);
+                } catch (Exception e) {
+                    log.warn("Failed to record {} final repeats on incident {}: {}", repeats, incidentId, e.getMessage());
+                }
+            }
+            closed.addAll(creating);
+        } catch (Exception e) {
+            log.warn("Alert dedup sweep failed: {}", e.getMessage());
+        } finally {
+            threadLocalUtil.postCall(log);
+        }
+    }
+
+    public static final class Registration {
+        private final long fingerprint;
+        private final Entry entry;
+        private final boolean duplicate;
+
+        Registration(long fingerprint, Entry entry, boolean duplicate) {
+            this.fingerprint = fingerprint;
+            this.entry = entry;
+            this.duplicate = duplicate;
+        }
+
+        public boolean isDuplicate() {
+            return duplicate;
+        }
+
+        /**
+         * Incident id of the window owner, completed once the owner has created it.
+         */
+        public CompletableFuture<Long> getIncident() {
+            return entry.incident;
+        }
+
+        public int getOccurrences() {
+            return entry.occurrences.get();
+        }
+    }
+
+    private static final class Entry {
+        final CompletableFuture<Long> incident = new CompletableFuture<>();
+        final AtomicInteger occurrences = new AtomicInteger(1);
+        final AtomicInteger unreported = new AtomicInteger();
+        final AtomicLong lastCommentAt = new AtomicLong();
+        final long expiresAt;
+
+        Entry(long expiresAt) {
+            this.expiresAt = expiresAt;
+        }
+    }
+}
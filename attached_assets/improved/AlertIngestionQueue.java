@@ -0,0 +1,235 @@
+package com.example.itil.service;
+
+import com.atlassian.jira.util.thread.JiraThreadLocalUtil;
+import com.example.itil.concurrent.NamedThreadFactory;
+import com.example.itil.config.PluginConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 📥 ASYNC: Bounded in-memory queue that decouples alert intake from incident creation.
+ *
+ * The webhook thread only validates, authenticates and enqueues; a dedicated worker
+ * pool drains the queue. Each accepted alert gets a tracking id whose status can be
+ * polled until it expires from the status table. Workers are not request threads, so each
+ * task sets up and clears Jira's thread-local request context around itself.
+ *
+ * Finished statuses also go on a queue in the order they finished, so expiry only looks
+ * at its head: a worker trims it after each alert, and a periodic sweep applies the
+ * retention when no alerts arrive. The HTTP thread never pays for cleanup.
+ */
+@Named
+public class AlertIngestionQueue {
+    private static final Logger log = LoggerFactory.getLogger(AlertIngestionQueue.class);
+
+    // Configuration defaults
+    private static final int DEFAULT_CAPACITY = 1000;
+    private static final int DEFAULT_WORKERS = 4;
+    private static final long DEFAULT_STATUS_RETENTION_MS = TimeUnit.MINUTES.toMillis(15);
+    private static final int DEFAULT_MAX_TRACKED = 20000;
+    private static final long STATUS_SWEEP_SECONDS = 30;
+
+    private final JiraThreadLocalUtil threadLocalUtil;
+    private final int capacity;
+    private final long statusRetentionMs;
+    private final int maxTracked;
+    private final ThreadPoolExecutor workers;
+    private final ScheduledExecutorService sweeper;
+    private final Map<String, IngestionStatus> statuses = new ConcurrentHashMap<>();
+    // Finished statuses, oldest first
+    private final Queue<IngestionStatus> finished = new ConcurrentLinkedQueue<>();
+
+    // 📊 METRICS
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    @Inject
+    public AlertIngestionQueue(JiraThreadLocalUtil threadLocalUtil) {
+        this.threadLocalUtil = threadLocalUtil;
+        this.capacity = Math.max(1, PluginConfiguration.getInt("alert.queue.capacity", DEFAULT_CAPACITY));
+        int workerCount = Math.max(1, PluginConfiguration.getInt("alert.queue.workers", DEFAULT_WORKERS));
+        this.statusRetentionMs = PluginConfiguration.getLong("alert.queue.status.retention.ms", DEFAULT_STATUS_RETENTION_MS);
+        this.maxTracked = Math.max(capacity, PluginConfiguration.getInt("alert.queue.status.max", DEFAULT_MAX_TRACKED));
+
+        // AbortPolicy: a full queue is reported to the caller instead of blocking the HTTP thread
+        this.workers = new ThreadPoolExecutor(
+            workerCount, workerCount,
+            0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(capacity),
+            new NamedThreadFactory("itil-alert-worker"),
+            new ThreadPoolExecutor.AbortPolicy());
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("itil-alert-status"));
+        this.sweeper.scheduleWithFixedDelay(this::expireStatuses, STATUS_SWEEP_SECONDS, STATUS_SWEEP_SECONDS, TimeUnit.SECONDS);
+
+        log.info("Alert ingestion queue started with capacity {} and {} workers", capacity, workerCount);
+    }
+
+    /**
+     * 📥 ENQUEUE: Submit alert work. Returns {@code null} when the queue is full.
+     */
+    public IngestionStatus submit(String source, Callable<Map<String, Object>> work) {
+        IngestionStatus status = new IngestionStatus(UUID.randomUUID().toString(), source);
+        statuses.put(status.trackingId, status);
+
+        try {
+            workers.execute(() -> run(status, work));
+        } catch (RejectedExecutionException e) {
+            statuses.remove(status.trackingId);
+            rejected.increment();
+            log.warn("Alert queue full ({} queued), rejecting alert from source {}", workers.getQueue().size(), source);
+            return null;
+        }
+
+        accepted.increment();
+        return status;
+    }
+
+    /**
+     * 🔍 STATUS: Look up a tracking id, or {@code null} if unknown or expired.
+     */
+    public IngestionStatus getStatus(String trackingId) {
+        if (trackingId == null) {
+            return null;
+        }
+        return statuses.get(trackingId);
+    }
+
+    public int getQueueDepth() {
+        return workers.getQueue().size();
+    }
+
+    /**
+     * 📊 METRICS: Snapshot for sizing the queue and worker pool.
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("queueDepth", workers.getQueue().size());
+        metrics.put("queueCapacity", capacity);
+        metrics.put("activeWorkers", workers.getActiveCount());
+        metrics.put("workerPoolSize", workers.getMaximumPoolSize());
+        metrics.put("accepted", accepted.sum());
+        metrics.put("rejected", rejected.sum());
+        metrics.put("completed", completed.sum());
+        metrics.put("failed", failed.sum());
+        metrics.put("trackedStatuses", statuses.size());
+        return metrics;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sweeper.shutdownNow();
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("Alert workers did not finish in time, {} alerts dropped", workers.shutdownNow().size());
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run(IngestionStatus status, Callable<Map<String, Object>> work) {
+        status.state = State.PROCESSING;
+        threadLocalUtil.preCall();
+        try {
+            status.result = work.call();
+            status.state = State.COMPLETED;
+            completed.increment();
+        } catch (Exception e) {
+            status.error = e.getMessage();
+            status.state = State.FAILED;
+            failed.increment();
+            log.error("Queued alert {} from source {} failed: {}", status.trackingId, status.source, e.getMessage(), e);
+        } finally {
+            threadLocalUtil.postCall(log);
+            status.finishedAt = System.currentTimeMillis();
+            finished.add(status);
+        }
+        expireStatuses();
+    }
+
+    /**
+     * 🧹 CLEANUP: Drop the oldest finished statuses while they are past retention or the
+     * table is over the cap. Only the head of the finished queue is examined.
+     */
+    private void expireStatuses() {
+        long cutoff = System.currentTimeMillis() - statusRetentionMs;
+        IngestionStatus oldest;
+        while ((oldest = finished.peek()) != null
+                && (oldest.finishedAt < cutoff || statuses.size() > maxTracked)) {
+            if (finished.remove(oldest)) {
+                statuses.remove(oldest.trackingId);
+            }
+        }
+    }
+
+    public enum State {
+        QUEUED, PROCESSING, COMPLETED, FAILED
+    }
+
+    public static final class IngestionStatus {
+        private final String trackingId;
+        private final String source;
+        private final long acceptedAt = System.currentTimeMillis();
+        private volatile State state = State.QUEUED;
+        private volatile Map<String, Object> result;
+        private volatile String error;
+        private volatile long finishedAt;
+
+        IngestionStatus(String trackingId, String source) {
+            this.trackingId = trackingId;
+            this.source = source;
+        }
+
+        public String getTrackingId() {
+            return trackingId;
+        }
+
+        public String getSource() {
+            return source;
+        }
+
+        public long getAcceptedAt() {
+            return acceptedAt;
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        public Map<String, Object> getResult() {
+            Map<String, Object> r = result;
+            return r == null ? null : Collections.unmodifiableMap(r);
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public long getFinishedAt() {
+            return finishedAt;
+        }
+    }
+}
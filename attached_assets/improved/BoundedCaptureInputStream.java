@@ -0,0 +1,110 @@
+package com.example.itil.rest;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * 📏 STREAMING: Wraps the request body, failing as soon as more than {@code maxBytes}
+ * have been read, and keeps a copy of every byte that passes through so the webhook
+ * signature can be verified over exactly the bytes the parser consumed.
+ */
+final class BoundedCaptureInputStream extends FilterInputStream {
+
+    private static final int MIN_INITIAL_CAPACITY = 512;
+    private static final int DEFAULT_INITIAL_CAPACITY = 4096;
+    // Content-Length arrives before authentication, so it only presizes up to this much
+    private static final int MAX_PRESIZE = 64 * 1024;
+    private static final int DRAIN_CHUNK = 8192;
+
+    private final int maxBytes;
+    private byte[] captured;
+    private int count;
+
+    /**
+     * @param expectedLength Content-Length of the request, or a negative value if unknown
+     */
+    BoundedCaptureInputStream(InputStream in, int maxBytes, long expectedLength) {
+        super(in);
+        this.maxBytes = maxBytes;
+        int initial = expectedLength > 0
+            ? (int) Math.min(expectedLength, Math.min(MAX_PRESIZE, maxBytes))
+            : Math.min(DEFAULT_INITIAL_CAPACITY, maxBytes);
+        this.captured = new byte[Math.max(MIN_INITIAL_CAPACITY, initial)];
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = in.read();
+        if (b >= 0) {
+            ensureCapacity(1);
+            captured[count++] = (byte) b;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int n = in.read(buffer, offset, length);
+        if (n > 0) {
+            ensureCapacity(n);
+            System.arraycopy(buffer, offset, captured, count, n);
+            count += n;
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        // Skipped bytes must still be captured for the signature
+        byte[] scratch = new byte[(int) Math.min(n, DRAIN_CHUNK)];
+        int r = read(scratch, 0, scratch.length);
+        return Math.max(r, 0);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    /**
+     * Read whatever the parser left behind (trailing whitespace) so the capture is complete.
+     */
+    void drain() throws IOException {
+        byte[] scratch = new byte[DRAIN_CHUNK];
+        while (read(scratch, 0, scratch.length) >= 0) {
+            // captured by read()
+        }
+    }
+
+    /**
+     * Captured bytes; only the first {@link #size()} entries are valid.
+     */
+    byte[] bytes() {
+        return captured;
+    }
+
+    int size() {
+        return count;
+    }
+
+    private void ensureCapacity(int additional) throws PayloadTooLargeException {
+        int required = count + additional;
+        if (required > maxBytes) {
+            throw new PayloadTooLargeException(maxBytes);
+        }
+        if (required > captured.length) {
+            int grown = Math.max(required, Math.min(maxBytes, captured.length * 2));
+            captured = Arrays.copyOf(captured, grown);
+        }
+    }
+
+    static final class PayloadTooLargeException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        PayloadTooLargeException(int maxBytes) {
+            super("Payload exceeds " + maxBytes + " bytes");
+        }
+    }
+}
@@ -0,0 +1,392 @@
+package com.example.itil.workflow;
+
+import com.atlassian.jira.bc.issue.IssueService;
+import com.atlassian.jira.component.ComponentAccessor;
+import com.atlassian.jira.issue.Issue;
+import com.atlassian.jira.issue.IssueInputParameters;
+import com.atlassian.jira.issue.MutableIssue;
+import com.atlassian.jira.issue.link.IssueLink;
+import com.atlassian.jira.issue.link.IssueLinkManager;
+import com.atlassian.jira.issue.status.Status;
+import com.atlassian.jira.issue.status.category.StatusCategory;
+import com.atlassian.jira.security.JiraAuthenticationContext;
+import com.atlassian.jira.user.ApplicationUser;
+import com.atlassian.jira.util.thread.JiraThreadLocalUtil;
+import com.example.itil.concurrent.NamedThreadFactory;
+import com.example.itil.config.PluginConfiguration;
+import com.example.itil.service.IssueCreatorService;
+import com.example.itil.service.ItilMetadataCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 🔒 WORKFLOW: Closes the Incidents and Problems linked to a Change in the background.
+ *
+ * The workflow transition of the Change only marks it. Once the transition has completed
+ * and fired its issue event, {@code ITILIssueEventListener} enqueues the Change, so the
+ * closing never starts before the Change's new status is committed and never holds up
+ * the transition. A small pool then follows its inward and outward links, transitions each linked issue with bounded parallelism, and
+ * posts one report comment on the Change when every issue has an outcome. An issue whose
+ * transition throws is retried with exponential backoff; one the workflow refuses (no
+ * transition to the target status, failed validation) is reported straight away. Every
+ * pool task runs inside its own Jira thread-local request context.
+ */
+@Named
+public class BulkTransitionService {
+    private static final Logger log = LoggerFactory.getLogger(BulkTransitionService.class);
+
+    private static final int MAX_REPORTED_FAILURES = 20;
+
+    // Configuration defaults
+    private static final int DEFAULT_THREADS = 4;
+    private static final int DEFAULT_MAX_ATTEMPTS = 3;
+    private static final long DEFAULT_RETRY_DELAY_MS = 2000;
+    private static final int DEFAULT_MAX_PENDING_CHANGES = 100;
+    private static final long DEFAULT_AWAIT_EVENT_SECONDS = 300;
+
+    private final IssueCreatorService issueCreator;
+    private final ItilMetadataCache metadata;
+    private final TransitionResolver transitions;
+    private final JiraThreadLocalUtil threadLocalUtil;
+    private final int maxAttempts;
+    private final long retryDelayMs;
+    private final int maxPendingChanges;
+    private final long awaitEventMs;
+    private final ScheduledThreadPoolExecutor executor;
+    private final AtomicInteger pendingChanges = new AtomicInteger();
+    // Changes marked by the post function whose transition has not fired its event yet
+    private final Map<Long, AwaitingEvent> awaitingEvent = new ConcurrentHashMap<>();
+
+    // 📊 METRICS
+    private final LongAdder changesSubmitted = new LongAdder();
+    private final LongAdder changesRejected = new LongAdder();
+    private final LongAdder changesWithoutEvent = new LongAdder();
+    private final LongAdder issuesClosed = new LongAdder();
+    private final LongAdder issuesAlreadyDone = new LongAdder();
+    private final LongAdder issuesFailed = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+
+    @Inject
+    public BulkTransitionService(IssueCreatorService issueCreator, ItilMetadataCache metadata,
+                                 TransitionResolver transitions, JiraThreadLocalUtil threadLocalUtil) {
+        this.issueCreator = issueCreator;
+        this.metadata = metadata;
+        this.transitions = transitions;
+        this.threadLocalUtil = threadLocalUtil;
+        this.maxAttempts = Math.max(1, PluginConfiguration.getInt("workflow.bulk.max.attempts", DEFAULT_MAX_ATTEMPTS));
+        this.retryDelayMs = Math.max(1, PluginConfiguration.getLong("workflow.bulk.retry.delay.ms", DEFAULT_RETRY_DELAY_MS));
+        this.maxPendingChanges = Math.max(1,
+            PluginConfiguration.getInt("workflow.bulk.max.pending.changes", DEFAULT_MAX_PENDING_CHANGES));
+        this.awaitEventMs = TimeUnit.SECONDS.toMillis(Math.max(1,
+            PluginConfiguration.getLong("workflow.bulk.await.event.seconds", DEFAULT_AWAIT_EVENT_SECONDS)));
+        int threads = Math.max(1, PluginConfiguration.getInt("workflow.bulk.threads", DEFAULT_THREADS));
+        this.executor = new ScheduledThreadPoolExecutor(threads, new NamedThreadFactory("itil-bulk-transition"));
+        this.executor.setRemoveOnCancelPolicy(true);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 📌 MARK: Close the Change's linked issues once its running transition has completed.
+     * Called from inside the transition; {@link #transitionCompleted} starts the work.
+     */
+    public void closeRelatedAfterTransition(Issue change, String targetStatus, ApplicationUser user) {
+        long now = System.currentTimeMillis();
+        // A transition rolled back after the post function never fires its event
+        awaitingEvent.entrySet().removeIf(e -> {
+            if (e.getValue().expiresAt > now) {
+                return false;
+            }
+            changesWithoutEvent.increment();
+            log.warn("Change {} fired no event after its transition; related issues not closed", e.getKey());
+            return true;
+        });
+        awaitingEvent.put(change.getId(), new AwaitingEvent(targetStatus, user, now + awaitEventMs));
+    }
+
+    /**
+     * 🔔 EVENT: An issue event was fired for {@code issue}; if it is a Change marked by
+     * {@link #closeRelatedAfterTransition}, its transition is done and the closing starts.
+     */
+    public void transitionCompleted(Issue issue) {
+        AwaitingEvent awaiting = awaitingEvent.remove(issue.getId());
+        if (awaiting != null && !closeRelated(issue, awaiting.targetStatus, awaiting.user)) {
+            log.error("Related issues of {} were not queued for closing; close them manually", issue.getKey());
+        }
+    }
+
+    /**
+     * 📥 ENQUEUE: Close the Incidents and Problems linked to a Change, acting as {@code user}
+     * (the automation user if null). Returns false when too many Changes are still pending.
+     */
+    public boolean closeRelated(Issue change, String targetStatus, ApplicationUser user) {
+        if (pendingChanges.incrementAndGet() > maxPendingChanges) {
+            pendingChanges.decrementAndGet();
+            changesRejected.increment();
+            log.warn("{} Changes still closing related issues, rejecting {}", maxPendingChanges, change.getKey());
+            return false;
+        }
+        ApplicationUser actor = user != null ? user : metadata.getUser("automation");
+        Long changeId = change.getId();
+        String changeKey = change.getKey();
+        try {
+            executor.execute(inJiraContext(() -> closeLinked(changeId, changeKey, targetStatus, actor)));
+        } catch (RejectedExecutionException e) {
+            pendingChanges.decrementAndGet();
+            changesRejected.increment();
+            return false;
+        }
+        changesSubmitted.increment();
+        return true;
+    }
+
+    /**
+     * 📊 METRICS: Outcomes and pool state for health reporting
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("awaitingEvent", awaitingEvent.size());
+        metrics.put("changesWithoutEvent", changesWithoutEvent.sum());
+        metrics.put("pendingChanges", pendingChanges.get());
+        metrics.put("changesSubmitted", changesSubmitted.sum());
+        metrics.put("changesRejected", changesRejected.sum());
+        metrics.put("issuesClosed", issuesClosed.sum());
+        metrics.put("issuesAlreadyDone", issuesAlreadyDone.sum());
+        metrics.put("issuesFailed", issuesFailed.sum());
+        metrics.put("retries", retries.sum());
+        metrics.put("activeThreads", executor.getActiveCount());
+        metrics.put("poolSize", executor.getCorePoolSize());
+        metrics.put("queuedTasks", executor.getQueue().size());
+        metrics.put("transitionIds", transitions.getMetrics());
+        return metrics;
+    }
+
+    /**
+     * Pool threads are not request threads; set up and clean Jira's thread-locals per task.
+     */
+    private Runnable inJiraContext(Runnable task) {
+        return () -> {
+            threadLocalUtil.preCall();
+            try {
+                task.run();
+            } finally {
+                threadLocalUtil.postCall(log);
+            }
+        };
+    }
+
+    private void closeLinked(Long changeId, String changeKey, String targetStatus, ApplicationUser user) {
+        List<CompletableFuture<Outcome>> outcomes = new ArrayList<>();
+        try {
+            for (Long issueId : linkedIncidentsAndProblems(changeId)) {
+                CompletableFuture<Outcome> outcome = new CompletableFuture<>();
+                outcomes.add(outcome);
+                try {
+                    executor.execute(inJiraContext(() -> attempt(issueId, changeKey, targetStatus, user, 1, outcome)));
+                } catch (RejectedExecutionException shutdown) {
+                    outcome.complete(Outcome.failed(issueId, "plugin shutting down"));
+                }
+            }
+        } catch (Exception e) {
+            log.error("Unable to close issues related to {}: {}", changeKey, e.getMessage(), e);
+        }
+        CompletableFuture.allOf(outcomes.toArray(new CompletableFuture<?>[0]))
+            .whenComplete((ignored, error) -> {
+                try {
+                    report(changeId, changeKey, targetStatus, outcomes);
+                } finally {
+                    pendingChanges.decrementAndGet();
+                }
+            });
+    }
+
+    private Set<Long> linkedIncidentsAndProblems(Long changeId) {
+        String incidentTypeId = metadata.getIssueTypeId("Incident");
+        String problemTypeId = metadata.getIssueTypeId("Problem");
+        IssueLinkManager linkManager = ComponentAccessor.getIssueLinkManager();
+        Set<Long> targets = new LinkedHashSet<>();
+        for (IssueLink link : linkManager.getOutwardLinks(changeId)) {
+            addIfIncidentOrProblem(targets, link.getDestinationObject(), incidentTypeId, problemTypeId);
+        }
+        for (IssueLink link : linkManager.getInwardLinks(changeId)) {
+            addIfIncidentOrProblem(targets, link.getSourceObject(), incidentTypeId, problemTypeId);
+        }
+        return targets;
+    }
+
+    private static void addIfIncidentOrProblem(Set<Long> targets, Issue issue, String incidentTypeId, String problemTypeId) {
+        if (issue == null || issue.getIssueType() == null) {
+            return;
+        }
+        String typeId = issue.getIssueType().getId();
+        if (typeId != null && (typeId.equals(incidentTypeId) || typeId.equals(problemTypeId))) {
+            targets.add(issue.getId());
+        }
+    }
+
+    /**
+     * 🔄 TRANSITION: One try at moving an issue to the target status; exceptions are retried
+     * after {@code retryDelayMs * 2^(attempt-1)}, refusals are final.
+     */
+    private void attempt(Long issueId, String changeKey, String targetStatus, ApplicationUser user,
+                         int attempt, CompletableFuture<Outcome> outcome) {
+        JiraAuthenticationContext authContext = ComponentAccessor.getJiraAuthenticationContext();
+        ApplicationUser previousUser = authContext.getLoggedInUser();
+        authContext.setLoggedInUser(user);
+        try {
+            outcome.complete(transition(issueId, changeKey, targetStatus, user));
+        } catch (Exception e) {
+            if (attempt >= maxAttempts) {
+                log.warn("Closing issue {} for {} failed after {} attempts: {}", issueId, changeKey, attempt, e.getMessage());
+                outcome.complete(Outcome.failed(issueId, e.getMessage()));
+                return;
+            }
+            retries.increment();
+            long delayMs = retryDelayMs << Math.min(attempt - 1, 20);
+            try {
+                executor.schedule(inJiraContext(() -> attempt(issueId, changeKey, targetStatus, user, attempt + 1, outcome)),
+                    delayMs, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException shutdown) {
+                outcome.complete(Outcome.failed(issueId, "plugin shutting down"));
+            }
+        } finally {
+            authContext.setLoggedInUser(previousUser);
+        }
+    }
+
+    private Outcome transition(Long issueId, String changeKey, String targetStatus, ApplicationUser user) {
+        MutableIssue issue = ComponentAccessor.getIssueManager().getIssueObject(issueId);
+        if (issue == null) {
+            return Outcome.failed(issueId, "issue no longer exists");
+        }
+        Status status = issue.getStatus();
+        if (status != null && (targetStatus.equalsIgnoreCase(status.getName()) || (status.getStatusCategory() != null
+                && StatusCategory.COMPLETE.equals(status.getStatusCategory().getKey())))) {
+            return Outcome.of(OutcomeType.ALREADY_DONE, issue, null);
+        }
+
+        Integer actionId = transitions.getActionId(issue, targetStatus);
+        if (actionId == null) {
+            return Outcome.of(OutcomeType.FAILED, issue, "no transition to " + targetStatus
+                + " from " + (status == null ? "its status" : status.getName()));
+        }
+
+        IssueService issueService = ComponentAccessor.getIssueService();
+        IssueInputParameters params = issueService.newIssueInputParameters();
+        params.setSkipScreenCheck(true)
+              .setRetainExistingValuesWhenParameterNotProvided(true)
+              .setComment("Closed automatically: Change " + changeKey + " was completed.");
+        IssueService.TransitionValidationResult validation = issueService.validateTransition(user, issueId, actionId, params);
+        if (!validation.isValid()) {
+            return Outcome.of(OutcomeType.FAILED, issue, String.valueOf(validation.getErrorCollection()));
+        }
+        IssueService.IssueResult result = issueService.transition(user, validation);
+        if (!result.isValid()) {
+            // Usually a concurrent edit or lock timeout; worth another attempt
+            throw new IllegalStateException("transition failed: " + result.getErrorCollection());
+        }
+        return Outcome.of(OutcomeType.CLOSED, issue, null);
+    }
+
+    /**
+     * 💬 REPORT: One comment on the Change summarizing every linked issue's outcome.
+     */
+    private void report(Long changeId, String changeKey, String targetStatus, List<CompletableFuture<Outcome>> outcomes) {
+        int closed = 0;
+        int alreadyDone = 0;
+        List<Outcome> failed = new ArrayList<>();
+        for (CompletableFuture<Outcome> future : outcomes) {
+            Outcome outcome = future.getNow(null);
+            if (outcome == null) {
+                continue;
+            }
+            switch (outcome.type) {
+                case CLOSED:
+                    closed++;
+                    issuesClosed.increment();
+                    break;
+                case ALREADY_DONE:
+                    alreadyDone++;
+                    issuesAlreadyDone.increment();
+                    break;
+                default:
+                    failed.add(outcome);
+                    issuesFailed.increment();
+            }
+        }
+        if (outcomes.isEmpty()) {
+            return;
+        }
+
+        StringBuilder body = new StringBuilder(String.format(
+            "🔒 Related Incidents and Problems moved to %s: %d closed, %d already done, %d failed.",
+            targetStatus, closed, alreadyDone, failed.size()));
+        for (int i = 0; i < failed.size() && i < MAX_REPORTED_FAILURES; i++) {
+            body.append("\n* ").append(failed.get(i).issueKey).append(": ").append(failed.get(i).reason);
+        }
+        if (failed.size() > MAX_REPORTED_FAILURES) {
+            body.append("\n* ... and ").append(failed.size() - MAX_REPORTED_FAILURES).append(" more");
+        }
+        try {
+            issueCreator.addAutomationComment(changeId, body.toString());
+        } catch (Exception e) {
+            log.warn("Unable to report related issue closure on {}: {}", changeKey, e.getMessage());
+        }
+        log.info("Closed related issues of {}: {} closed, {} already done, {} failed",
+            changeKey, closed, alreadyDone, failed.size());
+    }
+
+    private enum OutcomeType { CLOSED, ALREADY_DONE, FAILED }
+
+    private static final class AwaitingEvent {
+        private final String targetStatus;
+        private final ApplicationUser user;
+        private final long expiresAt;
+
+        private AwaitingEvent(String targetStatus, ApplicationUser user, long expiresAt) {
+            this.targetStatus = targetStatus;
+            this.user = user;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static final class Outcome {
+        private final OutcomeType type;
+        private final String issueKey;
+        private final String reason;
+
+        private Outcome(OutcomeType type, String issueKey, String reason) {
+            this.type = type;
+            this.issueKey = issueKey;
+            this.reason = reason;
+        }
+
+        static Outcome of(OutcomeType type, Issue issue, String reason) {
+            return new Outcome(type, issue.getKey(), reason);
+        }
+
+        static Outcome failed(Long issueId, String reason) {
+            return new Outcome(OutcomeType.FAILED, "issue " + issueId, reason);
+        }
+    }
+}
@@ -6,18 +6,19 @@ import com.atlassian.jira.plugin.webfragment.model.JiraHelper;
 import com.atlassian.jira.user.ApplicationUser;
 import com.atlassian.jira.issue.Issue;
 import com.atlassian.jira.issue.fields.CustomField;
-import com.atlassian.sal.api.net.RequestFactory;
-import com.atlassian.sal.api.net.Request;
-import com.atlassian.sal.api.net.Response;
-import com.atlassian.sal.api.net.ResponseException;
-import org.json.JSONObject;
-import org.json.JSONException;
+import com.example.itil.cmdb.CmdbCiCache;
+import com.example.itil.cmdb.CmdbCiData;
+import com.example.itil.cmdb.CmdbClient;
+import com.example.itil.cmdb.CmdbSnapshotStore;
+import com.example.itil.metrics.PipelineMetrics;
+import com.example.itil.metrics.PipelineMetrics.Stage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
 import javax.inject.Named;
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
@@ -27,23 +28,21 @@ import java.util.concurrent.TimeoutException;
 public class CIContextProvider extends AbstractJiraContextProvider {
     private static final Logger log = LoggerFactory.getLogger(CIContextProvider.class);
     
-    private final RequestFactory requestFactory;
-    private final String cmdbBaseUrl;
-    private final String cmdbApiToken;
-    private final int timeoutMs;
+    private final CmdbClient cmdbClient;
+    private final CmdbCiCache ciCache;
+    private final CmdbSnapshotStore snapshotStore;
+    private final PipelineMetrics pipelineMetrics;
     
     // Configuration constants
     private static final String CI_CUSTOM_FIELD_NAME = "CI";
-    private static final int DEFAULT_TIMEOUT_MS = 5000;
-    private static final String CACHE_PREFIX = "ci_context_";
     
     @Inject
-    public CIContextProvider(RequestFactory requestFactory) {
-        this.requestFactory = requestFactory;
-        // 🔒 SECURE: Get from plugin configuration instead of environment
-        this.cmdbBaseUrl = getPluginConfiguration("cmdb.base.url");
-        this.cmdbApiToken = getPluginConfiguration("cmdb.api.token");
-        this.timeoutMs = Integer.parseInt(getPluginConfiguration("cmdb.timeout.ms", String.valueOf(DEFAULT_TIMEOUT_MS)));
+    public CIContextProvider(CmdbClient cmdbClient, CmdbCiCache ciCache, CmdbSnapshotStore snapshotStore,
+                             PipelineMetrics pipelineMetrics) {
+        this.cmdbClient = cmdbClient;
+        this.ciCache = ciCache;
+        this.snapshotStore = snapshotStore;
+        this.pipelineMetrics = pipelineMetrics;
     }
 
     @Override
@@ -66,7 +65,9 @@ public class CIContextProvider extends AbstractJiraContextProvider {
             }
             
             // 🚀 PERFORMANCE: Async CMDB call with timeout
+            long enrichStart = System.nanoTime();
             enrichWithCMDBData(ctx, ciValue, issue.getKey());
+            pipelineMetrics.recordSince(Stage.CMDB_CONTEXT, enrichStart);
             
         } catch (Exception e) {
             log.error("Error in CIContextProvider for user {}: {}", user.getName(), e.getMessage(), e);
@@ -99,169 +100,99 @@ public class CIContextProvider extends AbstractJiraContextProvider {
     }
     
     /**
-     * 🚀 PERFORMANCE: Async CMDB call with proper error handling
+     * 🚀 PERFORMANCE: Cached CMDB lookup; only a cache miss waits on the CMDB. Each lookup
+     * is counted by how it was answered, and the wait on the CMDB is timed.
      */
     private void enrichWithCMDBData(Map<String, Object> ctx, String ciValue, String issueKey) {
         // Set basic CI info immediately
         ctx.put("ciName", ciValue);
         ctx.put("ciLocation", "Loading...");
         
-        if (cmdbBaseUrl == null || cmdbApiToken == null) {
+        if (!cmdbClient.isConfigured()) {
             log.warn("CMDB integration not configured");
             ctx.put("ciLocation", "CMDB not configured");
+            pipelineMetrics.countCmdbLookup("not_configured");
             return;
         }
         
-        try {
-            // 🚀 ASYNC: Non-blocking CMDB call
-            CompletableFuture<Map<String, Object>> cmdbDataFuture = CompletableFuture.supplyAsync(() -> {
-                return fetchCMDBData(ciValue);
-            });
-            
-            // 🕒 TIMEOUT: Wait with timeout
-            Map<String, Object> cmdbData = cmdbDataFuture.get(timeoutMs, TimeUnit.MILLISECONDS);
-            
-            if (cmdbData != null && !cmdbData.isEmpty()) {
-                ctx.putAll(cmdbData);
-                log.debug("Successfully enriched CI data for {} in issue {}", ciValue, issueKey);
-            } else {
-                ctx.put("ciLocation", "Not found in CMDB");
+        // 🗄️ CACHE: Fresh or stale entries are served without touching the CMDB
+        CmdbCiCache.Lookup cached = ciCache.lookup(ciValue);
+        if (cached.getState() != CmdbCiCache.State.MISS) {
+            if (cached.isRefreshOwner()) {
+                scheduleRefresh(ciValue);
             }
+            applyCMDBData(ctx, cached.getData());
+            pipelineMetrics.countCmdbLookup(cached.getState().name().toLowerCase(Locale.ROOT));
+            return;
+        }
+        
+        // 💽 SNAPSHOT: A local read when the CI is in this node's CMDB snapshot
+        CmdbCiData snapshot = snapshotStore.get(ciValue);
+        if (snapshot != null) {
+            ciCache.put(ciValue, snapshot);
+            applyCMDBData(ctx, snapshot);
+            pipelineMetrics.countCmdbLookup("snapshot");
+            return;
+        }
+        
+        // 🚀 ASYNC: Runs on the CMDB bulkhead, shared with concurrent views of the same CI;
+        // short-circuits while the breaker is open
+        long fetchStart = System.nanoTime();
+        CompletableFuture<CmdbCiData> cmdbDataFuture = cmdbClient.fetchAsync(ciValue);
+        try {
+            // 🕒 TIMEOUT: Each view keeps its own deadline; cancelling detaches this view and
+            // the shared call is cancelled once no view is waiting on it
+            CmdbCiData cmdbData = cmdbDataFuture.get(cmdbClient.getTimeoutMs(), TimeUnit.MILLISECONDS);
+            pipelineMetrics.recordSince(Stage.CMDB_FETCH, fetchStart);
+            ciCache.put(ciValue, cmdbData);
+            applyCMDBData(ctx, cmdbData);
+            pipelineMetrics.countCmdbLookup("fetched");
+            log.debug("Enriched CI data for {} in issue {}: {}", ciValue, issueKey, cmdbData.getStatus());
             
         } catch (TimeoutException e) {
+            pipelineMetrics.recordSince(Stage.CMDB_FETCH, fetchStart);
+            cmdbDataFuture.cancel(true);
             log.warn("CMDB call timeout for CI {} in issue {}", ciValue, issueKey);
             ctx.put("ciLocation", "CMDB timeout");
+            pipelineMetrics.countCmdbLookup("timeout");
+        } catch (InterruptedException e) {
+            cmdbDataFuture.cancel(true);
+            Thread.currentThread().interrupt();
+            ctx.put("ciLocation", "CMDB error");
+            pipelineMetrics.countCmdbLookup("error");
         } catch (Exception e) {
+            pipelineMetrics.recordSince(Stage.CMDB_FETCH, fetchStart);
             log.error("Error fetching CMDB data for CI {} in issue {}: {}", ciValue, issueKey, e.getMessage());
             ctx.put("ciLocation", "CMDB error");
+            pipelineMetrics.countCmdbLookup("error");
         }
     }
     
-    /**
-     * 🔒 SECURE: CMDB API call with proper error handling
-     */
-    private Map<String, Object> fetchCMDBData(String ciValue) {
-        Map<String, Object> result = new HashMap<>();
-        
-        try {
-            // 🔒 SECURE: Proper URL encoding and validation
-            String encodedCI = java.net.URLEncoder.encode(ciValue, "UTF-8");
-            String cmdbUrl = cmdbBaseUrl + "/api/assets/" + encodedCI;
-            
-            // 🔒 SECURE: Validate URL
-            if (!isValidCMDBUrl(cmdbUrl)) {
-                log.error("Invalid CMDB URL: {}", cmdbUrl);
-                return result;
-            }
-            
-            Request req = requestFactory.createRequest(Request.MethodType.GET, cmdbUrl);
-            req.setRequestHeader("Authorization", "Bearer " + cmdbApiToken);
-            req.setRequestHeader("Accept", "application/json");
-            req.setRequestHeader("User-Agent", "JIRA-ITIL-Plugin/1.0");
-            
-            // 🕒 TIMEOUT: Set connection and read timeouts
-            req.setConnectionTimeout(timeoutMs);
-            req.setSoTimeout(timeoutMs);
-            
-            Response resp = req.execute();
-            
-            if (resp.getStatusCode() == 200) {
-                String responseBody = resp.getResponseBodyAsString();
-                JSONObject json = new JSONObject(responseBody);
-                
-                // 🔒 SECURE: Sanitize and validate JSON data
-                result.put("ciName", sanitizeString(json.optString("hostname", ciValue)));
-                result.put("ciLocation", sanitizeString(json.optString("location", "unknown")));
-                result.put("ciIpAddress", sanitizeString(json.optString("ip", "")));
-                result.put("ciOperatingSystem", sanitizeString(json.optString("os", "")));
-                result.put("ciEnvironment", sanitizeString(json.optString("environment", "")));
-                
-                // 🔗 SAFE: Only include CMDB URL if it's valid
-                String cmdbViewUrl = json.optString("cmdbUrl", "");
-                if (isValidCMDBUrl(cmdbViewUrl)) {
-                    result.put("cmdbViewUrl", cmdbViewUrl);
-                }
-                
-                log.debug("Successfully fetched CMDB data for CI: {}", ciValue);
-                
-            } else if (resp.getStatusCode() == 404) {
-                log.info("CI {} not found in CMDB", ciValue);
-                result.put("ciLocation", "Not found in CMDB");
-            } else {
-                log.warn("CMDB API returned status {} for CI {}", resp.getStatusCode(), ciValue);
-                result.put("ciLocation", "CMDB error (" + resp.getStatusCode() + ")");
-            }
-            
-        } catch (JSONException e) {
-            log.error("Invalid JSON response from CMDB for CI {}: {}", ciValue, e.getMessage());
-        } catch (ResponseException e) {
-            log.error("HTTP error calling CMDB for CI {}: {}", ciValue, e.getMessage());
-        } catch (Exception e) {
-            log.error("Unexpected error calling CMDB for CI {}: {}", ciValue, e.getMessage());
-        }
-        
-        return result;
-    }
-    
-    /**
-     * 🔒 SECURITY: Validate CMDB URLs to prevent SSRF
-     */
-    private boolean isValidCMDBUrl(String url) {
-        if (url == null || url.trim().isEmpty()) {
-            return false;
-        }
-        
-        try {
-            java.net.URL parsedUrl = new java.net.URL(url);
-            String host = parsedUrl.getHost().toLowerCase();
-            
-            // 🔒 SECURITY: Prevent SSRF - only allow configured CMDB hosts
-            return url.startsWith(cmdbBaseUrl) && 
-                   !host.equals("localhost") && 
-                   !host.equals("127.0.0.1") &&
-                   !host.startsWith("192.168.") &&
-                   !host.startsWith("10.") &&
-                   !host.startsWith("172.");
-                   
-        } catch (Exception e) {
-            log.warn("Invalid URL format: {}", url);
-            return false;
+    private void applyCMDBData(Map<String, Object> ctx, CmdbCiData data) {
+        switch (data.getStatus()) {
+            case FOUND:
+                ctx.putAll(data.getFields());
+                break;
+            case NOT_FOUND:
+                ctx.put("ciLocation", "Not found in CMDB");
+                break;
+            default:
+                ctx.put("ciLocation", data.getError() != null ? data.getError() : "CMDB error");
+                break;
         }
     }
     
     /**
-     * 🔒 SECURITY: Sanitize string values to prevent XSS
+     * 🔄 REVALIDATION: Refresh a stale entry in the background on the CMDB bulkhead;
+     * errors and rejections release the entry so a later view can retry
      */
-    private String sanitizeString(String input) {
-        if (input == null) return "";
-        
-        return input.trim()
-            .replaceAll("[<>\"'&]", "") // Remove dangerous characters
-            .substring(0, Math.min(input.length(), 255)); // Limit length
-    }
-    
-    /**
-     * 🔧 CONFIG: Get plugin configuration safely
-     */
-    private String getPluginConfiguration(String key) {
-        return getPluginConfiguration(key, null);
-    }
-    
-    private String getPluginConfiguration(String key, String defaultValue) {
-        try {
-            // Get from plugin settings or system properties
-            String value = System.getProperty("jira.itil.plugin." + key);
-            if (value != null && !value.trim().isEmpty()) {
-                return value.trim();
+    private void scheduleRefresh(String ciValue) {
+        cmdbClient.fetchAsync(ciValue).whenComplete((data, error) -> {
+            if (data != null) {
+                ciCache.put(ciValue, data);
+            } else {
+                ciCache.refreshFailed(ciValue);
             }
-            
-            // Fallback to environment variable (less secure)
-            value = System.getenv(key.toUpperCase().replace(".", "_"));
-            return (value != null && !value.trim().isEmpty()) ? value.trim() : defaultValue;
-            
-        } catch (Exception e) {
-            log.warn("Error reading configuration for key {}: {}", key, e.getMessage());
-            return defaultValue;
-        }
+        });
     }
 }
@@ -0,0 +1,77 @@
+package com.example.itil.cmdb;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 📦 CMDB: One page of the "changed since" relationship feed used to maintain the
+ * CI topology graph.
+ */
+public final class CiRelationshipPage {
+
+    private final List<Relationship> added;
+    private final List<Relationship> removed;
+    private final String cursor;
+    private final boolean hasMore;
+
+    CiRelationshipPage(List<Relationship> added, List<Relationship> removed, String cursor, boolean hasMore) {
+        this.added = Collections.unmodifiableList(added);
+        this.removed = Collections.unmodifiableList(removed);
+        this.cursor = cursor;
+        this.hasMore = hasMore;
+    }
+
+    /**
+     * Relationships created since the requested cursor.
+     */
+    public List<Relationship> getAdded() {
+        return added;
+    }
+
+    public List<Relationship> getRemoved() {
+        return removed;
+    }
+
+    /**
+     * Cursor to pass on the next pull; resumes after the last change in this page.
+     */
+    public String getCursor() {
+        return cursor;
+    }
+
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    public int size() {
+        return added.size() + removed.size();
+    }
+
+    /**
+     * A directed relationship: {@code sourceId} depends on, contains or connects to
+     * {@code targetId}.
+     */
+    public static final class Relationship {
+        private final String sourceId;
+        private final String targetId;
+        private final String type;
+
+        Relationship(String sourceId, String targetId, String type) {
+            this.sourceId = sourceId;
+            this.targetId = targetId;
+            this.type = type;
+        }
+
+        public String getSourceId() {
+            return sourceId;
+        }
+
+        public String getTargetId() {
+            return targetId;
+        }
+
+        public String getType() {
+            return type;
+        }
+    }
+}
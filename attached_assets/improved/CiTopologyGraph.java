@@ -0,0 +1,192 @@
+package com.example.itil.topology;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 🕸️ TOPOLOGY: Immutable snapshot of the CI relationship graph.
+ *
+ * CIs are numbered 0..n-1 and edges live in CSR (compressed sparse row) arrays: the
+ * targets of node {@code i} are {@code outTargets[outOffsets[i] .. outOffsets[i+1])},
+ * and {@code inSources} mirrors that for reverse edges. A graph of a few hundred
+ * thousand CIs is a handful of int arrays, and traversals allocate only a small queue
+ * and visited set sized by the result limit.
+ */
+public final class CiTopologyGraph {
+
+    public static final CiTopologyGraph EMPTY =
+        build(new String[0], 0, new int[0], new int[0], 0);
+
+    private final String[] names;
+    private final int nodeCount;
+    private final int edgeCount;
+    private final int[] table;
+    private final int[] outOffsets;
+    private final int[] outTargets;
+    private final int[] inOffsets;
+    private final int[] inSources;
+
+    private CiTopologyGraph(String[] names, int nodeCount, int edgeCount, int[] table,
+                            int[] outOffsets, int[] outTargets, int[] inOffsets, int[] inSources) {
+        this.names = names;
+        this.nodeCount = nodeCount;
+        this.edgeCount = edgeCount;
+        this.table = table;
+        this.outOffsets = outOffsets;
+        this.outTargets = outTargets;
+        this.inOffsets = inOffsets;
+        this.inSources = inSources;
+    }
+
+    /**
+     * Build a snapshot from {@code edgeCount} edges {@code src[i] -> dst[i]} over nodes
+     * {@code 0..nodeCount-1}. {@code names} is only read, never written, so an
+     * append-only name array may be shared with the builder.
+     */
+    static CiTopologyGraph build(String[] names, int nodeCount, int[] src, int[] dst, int edgeCount) {
+        int[] outOffsets = new int[nodeCount + 1];
+        int[] inOffsets = new int[nodeCount + 1];
+        for (int e = 0; e < edgeCount; e++) {
+            outOffsets[src[e] + 1]++;
+            inOffsets[dst[e] + 1]++;
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            outOffsets[i + 1] += outOffsets[i];
+            inOffsets[i + 1] += inOffsets[i];
+        }
+
+        int[] outTargets = new int[edgeCount];
+        int[] inSources = new int[edgeCount];
+        int[] outFill = new int[nodeCount];
+        int[] inFill = new int[nodeCount];
+        for (int e = 0; e < edgeCount; e++) {
+            int s = src[e];
+            int d = dst[e];
+            outTargets[outOffsets[s] + outFill[s]++] = d;
+            inSources[inOffsets[d] + inFill[d]++] = s;
+        }
+
+        int[] table = new int[tableSize(nodeCount)];
+        int mask = table.length - 1;
+        for (int node = 0; node < nodeCount; node++) {
+            int slot = mix(names[node].hashCode()) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = node + 1;
+        }
+
+        return new CiTopologyGraph(names, nodeCount, edgeCount, table,
+            outOffsets, outTargets, inOffsets, inSources);
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * Node number of a CI, or -1 if the CI has no relationships in this snapshot.
+     */
+    public int indexOf(String ciId) {
+        if (ciId == null || nodeCount == 0) {
+            return -1;
+        }
+        int mask = table.length - 1;
+        int slot = mix(ciId.hashCode()) & mask;
+        int entry;
+        while ((entry = table[slot]) != 0) {
+            if (names[entry - 1].equals(ciId)) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * 🔍 TRAVERSE: CIs within {@code maxHops} of {@code ciId} in either direction —
+     * upstream dependencies and downstream dependents — nearest first, excluding the CI
+     * itself and stopping after {@code maxNodes} results.
+     */
+    public List<String> neighborhood(String ciId, int maxHops, int maxNodes) {
+        int start = indexOf(ciId);
+        if (start < 0 || maxHops <= 0 || maxNodes <= 0) {
+            return Collections.emptyList();
+        }
+
+        List<String> result = new ArrayList<>(Math.min(maxNodes, 16));
+        IntSet visited = new IntSet(maxNodes + 1);
+        int[] queue = new int[maxNodes + 1];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = start;
+        visited.add(start);
+
+        for (int hop = 0; hop < maxHops && head < tail; hop++) {
+            int levelEnd = tail;
+            while (head < levelEnd) {
+                int node = queue[head++];
+                for (int e = outOffsets[node], end = outOffsets[node + 1]; e < end; e++) {
+                    int next = outTargets[e];
+                    if (visited.add(next)) {
+                        result.add(names[next]);
+                        if (result.size() >= maxNodes) return result;
+                        queue[tail++] = next;
+                    }
+                }
+                for (int e = inOffsets[node], end = inOffsets[node + 1]; e < end; e++) {
+                    int next = inSources[e];
+                    if (visited.add(next)) {
+                        result.add(names[next]);
+                        if (result.size() >= maxNodes) return result;
+                        queue[tail++] = next;
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    static int mix(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int tableSize(int entries) {
+        int size = 16;
+        while (size < entries * 2) {
+            size <<= 1;
+        }
+        return size;
+    }
+
+    /**
+     * Open-addressing set of node numbers, sized once for a bounded traversal.
+     */
+    private static final class IntSet {
+        private final int[] slots;
+
+        IntSet(int capacity) {
+            slots = new int[tableSize(capacity)];
+        }
+
+        boolean add(int node) {
+            int mask = slots.length - 1;
+            int slot = mix(node) & mask;
+            int entry;
+            while ((entry = slots[slot]) != 0) {
+                if (entry == node + 1) {
+                    return false;
+                }
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = node + 1;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package com.example.itil.topology;
+
+import com.example.itil.cmdb.CiRelationshipPage;
+import com.example.itil.config.PluginConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Named;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 🕸️ TOPOLOGY: In-memory CI relationship graph fed by the CMDB relationship feed.
+ *
+ * Readers traverse the current immutable {@link CiTopologyGraph} without locking. The
+ * sync job applies each feed page to a primitive edge list (interned int node ids,
+ * parallel int arrays, and an open-addressing edge-key index for removals), then
+ * {@link #publish()} rebuilds the CSR snapshot in one linear pass and swaps it in.
+ */
+@Named
+public class CiTopologyIndex {
+    private static final Logger log = LoggerFactory.getLogger(CiTopologyIndex.class);
+
+    // Relationship type codes; part of the edge key so parallel edges of different types coexist
+    private static final int TYPE_DEPENDS_ON = 0;
+    private static final int TYPE_CONTAINS = 1;
+    private static final int TYPE_CONNECTS_TO = 2;
+    private static final int TYPE_OTHER = 3;
+
+    // Node ids must fit in 30 bits of the edge key
+    private static final int MAX_NODES = 1 << 30;
+
+    private final boolean enabled;
+
+    private volatile CiTopologyGraph graph = CiTopologyGraph.EMPTY;
+
+    // Writer state, guarded by this
+    private final NodeTable nodes = new NodeTable();
+    private final EdgeList edges = new EdgeList();
+    private String cursor;
+    private boolean dirty;
+
+    // 📊 METRICS
+    private final LongAdder traversals = new LongAdder();
+    private final LongAdder edgesAdded = new LongAdder();
+    private final LongAdder edgesRemoved = new LongAdder();
+    private final LongAdder rebuilds = new LongAdder();
+    private volatile long lastRebuildMs;
+    private volatile long lastPublishedAt;
+
+    public CiTopologyIndex() {
+        this.enabled = PluginConfiguration.getBoolean("cmdb.topology.enabled", true);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Current graph snapshot; safe to hold and traverse from any thread.
+     */
+    public CiTopologyGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * 🔍 TRAVERSE: Related CIs within {@code maxHops}, nearest first.
+     */
+    public List<String> neighborhood(String ciId, int maxHops, int maxNodes) {
+        traversals.increment();
+        return graph.neighborhood(ciId, maxHops, maxNodes);
+    }
+
+    /**
+     * Cursor of the last applied feed page, or null before the first full pull.
+     */
+    public synchronized String getCursor() {
+        return cursor;
+    }
+
+    /**
+     * 🔄 SYNC: Apply one feed page to the edge list. Readers keep seeing the previous
+     * snapshot until {@link #publish()}.
+     */
+    public synchronized void apply(CiRelationshipPage page) {
+        for (CiRelationshipPage.Relationship rel : page.getRemoved()) {
+            int source = nodes.find(rel.getSourceId());
+            int target = nodes.find(rel.getTargetId());
+            if (source >= 0 && target >= 0 && edges.remove(edgeKey(source, target, typeCode(rel.getType())))) {
+                edgesRemoved.increment();
+                dirty = true;
+            }
+        }
+        for (CiRelationshipPage.Relationship rel : page.getAdded()) {
+            if (nodes.size() >= MAX_NODES - 2) {
+                log.warn("CI topology node limit reached, ignoring further relationships");
+                break;
+            }
+            int source = nodes.intern(rel.getSourceId());
+            int target = nodes.intern(rel.getTargetId());
+            if (source != target && edges.add(source, target, edgeKey(source, target, typeCode(rel.getType())))) {
+                edgesAdded.increment();
+                dirty = true;
+            }
+        }
+        cursor = page.getCursor();
+    }
+
+    /**
+     * 🔄 SYNC: Rebuild the CSR snapshot from the edge list if anything changed.
+     */
+    public synchronized void publish() {
+        if (!dirty) {
+            return;
+        }
+        long start = System.nanoTime();
+        graph = CiTopologyGraph.build(nodes.names, nodes.size(), edges.source, edges.target, edges.size);
+        dirty = false;
+        lastRebuildMs = (System.nanoTime() - start) / 1_000_000;
+        lastPublishedAt = System.currentTimeMillis();
+        rebuilds.increment();
+        log.debug("CI topology rebuilt: {} CIs, {} relationships in {} ms",
+            nodes.size(), edges.size, lastRebuildMs);
+    }
+
+    /**
+     * 📊 METRICS: Graph size and sync statistics for health reporting
+     */
+    public Map<String, Object> getMetrics() {
+        CiTopologyGraph current = graph;
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", enabled);
+        metrics.put("cis", current.getNodeCount());
+        metrics.put("relationships", current.getEdgeCount());
+        metrics.put("traversals", traversals.sum());
+        metrics.put("edgesAdded", edgesAdded.sum());
+        metrics.put("edgesRemoved", edgesRemoved.sum());
+        metrics.put("rebuilds", rebuilds.sum());
+        metrics.put("lastRebuildMs", lastRebuildMs);
+        metrics.put("lastPublishedAt", lastPublishedAt);
+        synchronized (this) {
+            metrics.put("cursor", cursor);
+        }
+        return metrics;
+    }
+
+    private static long edgeKey(int source, int target, int type) {
+        return ((long) source << 32) | ((long) target << 2) | type;
+    }
+
+    private static int typeCode(String type) {
+        if ("depends_on".equals(type)) return TYPE_DEPENDS_ON;
+        if ("contains".equals(type)) return TYPE_CONTAINS;
+        if ("connects_to".equals(type)) return TYPE_CONNECTS_TO;
+        return TYPE_OTHER;
+    }
+
+    private static int mix(long key) {
+        key *= 0x9E3779B97F4A7C15L;
+        return (int) (key ^ (key >>> 32));
+    }
+
+    /**
+     * Append-only CI id interning. {@code names} is shared with published snapshots,
+     * which is safe because an index, once assigned, is never rewritten.
+     */
+    private static final class NodeTable {
+        String[] names = new String[1024];
+        private int size;
+        private int[] table = new int[2048];
+
+        int size() {
+            return size;
+        }
+
+        int find(String name) {
+            int mask = table.length - 1;
+            int slot = CiTopologyGraph.mix(name.hashCode()) & mask;
+            int entry;
+            while ((entry = table[slot]) != 0) {
+                if (names[entry - 1].equals(name)) {
+                    return entry - 1;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        int intern(String name) {
+            int existing = find(name);
+            if (existing >= 0) {
+                return existing;
+            }
+            if (size == names.length) {
+                names = Arrays.copyOf(names, size * 2);
+            }
+            names[size] = name;
+            int node = size++;
+            if (size * 2 > table.length) {
+                rehash(table.length * 2);
+            } else {
+                insert(table, node);
+            }
+            return node;
+        }
+
+        private void rehash(int capacity) {
+            int[] grown = new int[capacity];
+            for (int node = 0; node < size; node++) {
+                insert(grown, node);
+            }
+            table = grown;
+        }
+
+        private void insert(int[] target, int node) {
+            int mask = target.length - 1;
+            int slot = CiTopologyGraph.mix(names[node].hashCode()) & mask;
+            while (target[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            target[slot] = node + 1;
+        }
+    }
+
+    /**
+     * Edge list in parallel int arrays with an open-addressing index from edge key to
+     * position, so duplicates are ignored and removal is a swap with the last edge.
+     */
+    private static final class EdgeList {
+        private static final long EMPTY = 0;
+        private static final long DELETED = -1;
+
+        int[] source = new int[1024];
+        int[] target = new int[1024];
+        private byte[] type = new byte[1024];
+        int size;
+        private long[] keys = new long[2048];
+        private int[] positions = new int[2048];
+        private int used;
+
+        boolean add(int from, int to, long key) {
+            if (slotOf(key) >= 0) {
+                return false;
+            }
+            if (size == source.length) {
+                source = Arrays.copyOf(source, size * 2);
+                target = Arrays.copyOf(target, size * 2);
+                type = Arrays.copyOf(type, size * 2);
+            }
+            source[size] = from;
+            target[size] = to;
+            type[size] = (byte) (key & 3);
+            if ((used + 1) * 10 > keys.length * 7) {
+                rehash();
+            }
+            int mask = keys.length - 1;
+            int slot = mix(key) & mask;
+            while (keys[slot] != EMPTY && keys[slot] != DELETED) {
+                slot = (slot + 1) & mask;
+            }
+            if (keys[slot] == EMPTY) used++;
+            keys[slot] = stored(key);
+            positions[slot] = size++;
+            return true;
+        }
+
+        boolean remove(long key) {
+            int slot = slotOf(key);
+            if (slot < 0) {
+                return false;
+            }
+            int position = positions[slot];
+            keys[slot] = DELETED;
+
+            int last = --size;
+            if (position != last) {
+                source[position] = source[last];
+                target[position] = target[last];
+                type[position] = type[last];
+                positions[slotOf(edgeKey(source[position], target[position], type[position]))] = position;
+            }
+            return true;
+        }
+
+        private int slotOf(long key) {
+            long wanted = stored(key);
+            int mask = keys.length - 1;
+            int slot = mix(key) & mask;
+            long entry;
+            while ((entry = keys[slot]) != EMPTY) {
+                if (entry == wanted) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        private void rehash() {
+            int capacity = keys.length;
+            while (size * 10 > capacity * 5) {
+                capacity <<= 1;
+            }
+            long[] oldKeys = keys;
+            int[] oldPositions = positions;
+            keys = new long[capacity];
+            positions = new int[capacity];
+            used = 0;
+            int mask = capacity - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                long entry = oldKeys[i];
+                if (entry == EMPTY || entry == DELETED) continue;
+                int slot = mix(entry - 1) & mask;
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = entry;
+                positions[slot] = oldPositions[i];
+                used++;
+            }
+        }
+
+        // Keys are stored +1 so that 0 can mark an empty slot; node ids < 2^30 keep them positive
+        private static long stored(long key) {
+            return key + 1;
+        }
+    }
+}
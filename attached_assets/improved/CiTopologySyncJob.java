@@ -0,0 +1,121 @@
+package com.example.itil.jobs;
+
+import com.atlassian.scheduler.JobRunner;
+import com.atlassian.scheduler.JobRunnerRequest;
+import com.atlassian.scheduler.JobRunnerResponse;
+import com.atlassian.scheduler.SchedulerService;
+import com.atlassian.scheduler.SchedulerServiceException;
+import com.atlassian.scheduler.config.JobConfig;
+import com.atlassian.scheduler.config.JobId;
+import com.atlassian.scheduler.config.JobRunnerKey;
+import com.atlassian.scheduler.config.RunMode;
+import com.atlassian.scheduler.config.Schedule;
+import com.example.itil.cmdb.CiRelationshipPage;
+import com.example.itil.cmdb.CmdbClient;
+import com.example.itil.config.PluginConfiguration;
+import com.example.itil.topology.CiTopologyIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 🔄 SYNC: Keeps this node's {@link CiTopologyIndex} current with incremental
+ * "changed since" pulls of CMDB relationships.
+ *
+ * The graph is held in memory on every node, so the job runs locally on each node; the
+ * first run after startup pulls every relationship and later runs only pull changes
+ * after the last cursor. The new graph is published once per run, after all pages.
+ */
+@Named
+public class CiTopologySyncJob implements JobRunner {
+    private static final Logger log = LoggerFactory.getLogger(CiTopologySyncJob.class);
+
+    static final JobRunnerKey JOB_RUNNER_KEY = JobRunnerKey.of(CiTopologySyncJob.class.getName());
+    static final JobId JOB_ID = JobId.of(CiTopologySyncJob.class.getName());
+
+    // Configuration defaults
+    private static final long DEFAULT_INTERVAL_SECONDS = 300;
+    private static final int DEFAULT_PAGE_SIZE = 10000;
+    private static final int DEFAULT_MAX_PAGES = 1000;
+
+    private final SchedulerService schedulerService;
+    private final CmdbClient cmdbClient;
+    private final CiTopologyIndex topology;
+    private final long intervalMs;
+    private final int pageSize;
+    private final int maxPagesPerRun;
+
+    @Inject
+    public CiTopologySyncJob(SchedulerService schedulerService, CmdbClient cmdbClient, CiTopologyIndex topology) {
+        this.schedulerService = schedulerService;
+        this.cmdbClient = cmdbClient;
+        this.topology = topology;
+        this.intervalMs = TimeUnit.SECONDS.toMillis(Math.max(1,
+            PluginConfiguration.getLong("cmdb.topology.sync.interval.seconds", DEFAULT_INTERVAL_SECONDS)));
+        this.pageSize = Math.max(1, PluginConfiguration.getInt("cmdb.topology.sync.page.size", DEFAULT_PAGE_SIZE));
+        this.maxPagesPerRun = Math.max(1, PluginConfiguration.getInt("cmdb.topology.sync.max.pages", DEFAULT_MAX_PAGES));
+    }
+
+    @PostConstruct
+    public void register() {
+        if (!topology.isEnabled()) {
+            log.debug("CI topology disabled, sync job not scheduled");
+            return;
+        }
+        schedulerService.registerJobRunner(JOB_RUNNER_KEY, this);
+        try {
+            schedulerService.scheduleJob(JOB_ID, JobConfig.forJobRunnerKey(JOB_RUNNER_KEY)
+                .withRunMode(RunMode.RUN_LOCALLY)
+                .withSchedule(Schedule.forInterval(intervalMs, new Date())));
+            log.info("CI topology sync scheduled every {} seconds", TimeUnit.MILLISECONDS.toSeconds(intervalMs));
+        } catch (SchedulerServiceException e) {
+            log.error("Unable to schedule CI topology sync: {}", e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void unregister() {
+        if (!topology.isEnabled()) {
+            return;
+        }
+        schedulerService.unscheduleJob(JOB_ID);
+        schedulerService.unregisterJobRunner(JOB_RUNNER_KEY);
+    }
+
+    @Override
+    public JobRunnerResponse runJob(JobRunnerRequest request) {
+        if (!cmdbClient.isConfigured()) {
+            return JobRunnerResponse.aborted("CMDB integration not configured");
+        }
+
+        int pages = 0;
+        int changes = 0;
+        try {
+            CiRelationshipPage page;
+            do {
+                if (request.isCancellationRequested()) {
+                    return JobRunnerResponse.aborted("Cancelled after " + changes + " changes");
+                }
+                page = cmdbClient.fetchRelationshipChanges(topology.getCursor(), pageSize);
+                if (page == null) {
+                    return JobRunnerResponse.failed("CMDB relationship feed unavailable after " + changes + " changes");
+                }
+                topology.apply(page);
+                changes += page.size();
+                pages++;
+            } while (page.hasMore() && pages < maxPagesPerRun);
+        } finally {
+            // Publish whatever was applied, even if a later page failed
+            topology.publish();
+        }
+
+        log.debug("CI topology sync applied {} changes in {} pages", changes, pages);
+        return JobRunnerResponse.success(changes + " changes");
+    }
+}
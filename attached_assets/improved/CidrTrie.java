@@ -0,0 +1,373 @@
+package com.example.itil.validation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 🌐 NETWORK: Immutable set of IPv4 and IPv6 CIDR ranges compiled into binary tries.
+ *
+ * Each address family has its own trie over the address bits, stored in flat int arrays.
+ * A lookup walks at most 32 or 128 nodes and stops at the first node that ends a range,
+ * so its cost does not depend on how many ranges the set holds. Addresses are parsed
+ * from the string straight into primitives, without allocating.
+ *
+ * IPv4-mapped IPv6 addresses ({@code ::ffff:a.b.c.d}) are matched against the IPv4 ranges,
+ * so a range inside the mapped block ({@code ::ffff:10.0.0.0/104}) is stored as its IPv4
+ * equivalent ({@code 10.0.0.0/8}), and a shorter IPv6 range that covers the whole block
+ * also admits every IPv4 address.
+ */
+public final class CidrTrie {
+
+    public static final CidrTrie EMPTY = compile(Collections.emptyList());
+
+    private static final int IPV4_BITS = 32;
+    private static final int IPV6_BITS = 128;
+    private static final long IPV4_MAPPED_PREFIX = 0xffffL;
+    private static final int IPV4_MAPPED_BITS = IPV6_BITS - IPV4_BITS;
+
+    private final List<String> ranges;
+    private final Trie ipv4;
+    private final Trie ipv6;
+
+    private CidrTrie(List<String> ranges, Trie ipv4, Trie ipv6) {
+        this.ranges = ranges;
+        this.ipv4 = ipv4;
+        this.ipv6 = ipv6;
+    }
+
+    /**
+     * Compile ranges such as {@code 10.20.0.0/16}, {@code 2001:db8::/32} or a single
+     * address (a full-length prefix). Host bits below the prefix are ignored.
+     *
+     * @throws IllegalArgumentException naming the first entry that is not a valid range
+     */
+    public static CidrTrie compile(Collection<String> entries) {
+        TrieBuilder v4 = new TrieBuilder();
+        TrieBuilder v6 = new TrieBuilder();
+        List<String> accepted = new ArrayList<>(entries.size());
+
+        for (String entry : entries) {
+            String range = entry == null ? "" : entry.trim();
+            if (range.isEmpty()) {
+                continue;
+            }
+            int slash = range.indexOf('/');
+            int end = slash < 0 ? range.length() : slash;
+
+            if (range.indexOf(':') < 0) {
+                long address = parseIpv4(range, 0, end);
+                int prefix = parsePrefix(range, slash, IPV4_BITS);
+                if (address < 0 || prefix < 0) {
+                    throw new IllegalArgumentException("Invalid IPv4 range: " + range);
+                }
+                v4.insert(address << 32, 0, prefix);
+            } else {
+                int tailStart = ipv6TailStart(range, 0, end);
+                int prefix = parsePrefix(range, slash, IPV6_BITS);
+                if (tailStart < 0 || prefix < 0) {
+                    throw new IllegalArgumentException("Invalid IPv6 range: " + range);
+                }
+                long high = ipv6Word(range, 0, end, tailStart, false);
+                long low = ipv6Word(range, 0, end, tailStart, true);
+                if (prefix >= IPV4_MAPPED_BITS && isIpv4Mapped(high, low, IPV4_MAPPED_BITS)) {
+                    v4.insert(low << 32, 0, prefix - IPV4_MAPPED_BITS);
+                } else {
+                    if (isIpv4Mapped(high, low, prefix)) {
+                        v4.insert(0, 0, 0);
+                    }
+                    v6.insert(high, low, prefix);
+                }
+            }
+            accepted.add(range);
+        }
+        return new CidrTrie(Collections.unmodifiableList(accepted), v4.build(), v6.build());
+    }
+
+    /**
+     * 🔍 LOOKUP: Whether {@code address} lies in any range; false for anything that is
+     * not a plain IPv4 or IPv6 address literal.
+     */
+    public boolean contains(String address) {
+        if (address == null) {
+            return false;
+        }
+        int from = 0;
+        int to = address.length();
+        while (from < to && address.charAt(from) <= ' ') from++;
+        while (to > from && address.charAt(to - 1) <= ' ') to--;
+        if (to - from > 2 && address.charAt(from) == '[' && address.charAt(to - 1) == ']') {
+            from++;
+            to--;
+        }
+
+        int colon = address.indexOf(':', from);
+        if (colon < 0 || colon >= to) {
+            long ip = parseIpv4(address, from, to);
+            return ip >= 0 && ipv4.contains(ip << 32, 0, IPV4_BITS);
+        }
+
+        int tailStart = ipv6TailStart(address, from, to);
+        if (tailStart < 0) {
+            return false;
+        }
+        long high = ipv6Word(address, from, to, tailStart, false);
+        long low = ipv6Word(address, from, to, tailStart, true);
+        if (high == 0 && (low >>> 32) == IPV4_MAPPED_PREFIX) {
+            return ipv4.contains(low << 32, 0, IPV4_BITS);
+        }
+        return ipv6.contains(high, low, IPV6_BITS);
+    }
+
+    /**
+     * Whether the first {@code bits} bits of an IPv6 address match {@code ::ffff:0:0/96}.
+     */
+    private static boolean isIpv4Mapped(long high, long low, int bits) {
+        long mappedLow = IPV4_MAPPED_PREFIX << 32;
+        if (bits <= 64) {
+            return bits == 0 || (high >>> (64 - bits)) == 0;
+        }
+        return high == 0 && ((low ^ mappedLow) >>> (IPV6_BITS - bits)) == 0;
+    }
+
+    /**
+     * Ranges in the order they were given, trimmed and without blank entries.
+     */
+    public List<String> getRanges() {
+        return ranges;
+    }
+
+    public int getIpv4RangeCount() {
+        return ipv4.rangeCount;
+    }
+
+    public int getIpv6RangeCount() {
+        return ipv6.rangeCount;
+    }
+
+    public int getNodeCount() {
+        return ipv4.terminal.length + ipv6.terminal.length;
+    }
+
+    /**
+     * Dotted-quad IPv4 in {@code s[from, to)} as an unsigned 32-bit value, or -1.
+     */
+    static long parseIpv4(String s, int from, int to) {
+        long address = 0;
+        int octets = 0;
+        int i = from;
+        for (;;) {
+            int start = i;
+            int value = 0;
+            while (i < to && i - start < 3) {
+                char c = s.charAt(i);
+                if (c < '0' || c > '9') break;
+                value = value * 10 + (c - '0');
+                i++;
+            }
+            if (i == start || value > 255) {
+                return -1;
+            }
+            address = (address << 8) | value;
+            octets++;
+            if (i == to) {
+                return octets == 4 ? address : -1;
+            }
+            if (s.charAt(i) != '.' || octets == 4) {
+                return -1;
+            }
+            i++;
+        }
+    }
+
+    /**
+     * Validate the IPv6 literal in {@code s[from, to)} and return the index (0-8) of the
+     * group that follows "::", 8 when there is none, or -1 if the text is not an address.
+     * A trailing dotted IPv4 part counts as two groups.
+     */
+    static int ipv6TailStart(String s, int from, int to) {
+        if (to - from < 2) {
+            return -1;
+        }
+        int groups = 0;
+        int gapAt = -1;
+        int i = from;
+        if (s.charAt(i) == ':') {
+            if (s.charAt(i + 1) != ':') {
+                return -1;
+            }
+            gapAt = 0;
+            i += 2;
+        }
+        while (i < to) {
+            int start = i;
+            while (i < to && i - start < 4 && hexDigit(s.charAt(i)) >= 0) i++;
+            if (i < to && s.charAt(i) == '.') {
+                if (parseIpv4(s, start, to) < 0) {
+                    return -1;
+                }
+                groups += 2;
+                break;
+            }
+            if (i == start) {
+                return -1;
+            }
+            groups++;
+            if (i == to) {
+                break;
+            }
+            if (s.charAt(i) != ':') {
+                return -1;
+            }
+            i++;
+            if (i < to && s.charAt(i) == ':') {
+                if (gapAt >= 0) {
+                    return -1;
+                }
+                gapAt = groups;
+                i++;
+            } else if (i == to) {
+                return -1;
+            }
+        }
+        if (gapAt < 0) {
+            return groups == 8 ? 8 : -1;
+        }
+        return groups > 7 ? -1 : 8 - (groups - gapAt);
+    }
+
+    /**
+     * High or low 64 bits of an IPv6 literal already checked by {@link #ipv6TailStart}.
+     */
+    static long ipv6Word(String s, int from, int to, int tailStart, boolean low) {
+        long word = 0;
+        int group = 0;
+        int i = from;
+        if (s.charAt(i) == ':') {
+            group = tailStart;
+            i += 2;
+        }
+        while (i < to) {
+            int start = i;
+            int value = 0;
+            int digit;
+            while (i < to && (digit = hexDigit(s.charAt(i))) >= 0) {
+                value = (value << 4) | digit;
+                i++;
+            }
+            if (i < to && s.charAt(i) == '.') {
+                // Dotted IPv4 suffix always fills groups 6 and 7
+                return low ? word | parseIpv4(s, start, to) : word;
+            }
+            if ((group >= 4) == low) {
+                word |= (long) value << (48 - 16 * (group & 3));
+            }
+            group++;
+            if (i == to) {
+                break;
+            }
+            i++;
+            if (i < to && s.charAt(i) == ':') {
+                group = tailStart;
+                i++;
+            }
+        }
+        return word;
+    }
+
+    private static int parsePrefix(String range, int slash, int maxBits) {
+        if (slash < 0) {
+            return maxBits;
+        }
+        String prefix = range.substring(slash + 1);
+        if (prefix.isEmpty() || prefix.length() > 3) {
+            return -1;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (prefix.charAt(i) < '0' || prefix.charAt(i) > '9') {
+                return -1;
+            }
+        }
+        int bits = Integer.parseInt(prefix);
+        return bits <= maxBits ? bits : -1;
+    }
+
+    private static int hexDigit(char c) {
+        if (c >= '0' && c <= '9') return c - '0';
+        if (c >= 'a' && c <= 'f') return c - 'a' + 10;
+        if (c >= 'A' && c <= 'F') return c - 'A' + 10;
+        return -1;
+    }
+
+    private static int bit(long high, long low, int index) {
+        return (int) (index < 64 ? high >>> (63 - index) : low >>> (127 - index)) & 1;
+    }
+
+    /**
+     * Binary trie in flat arrays: node n's children are at {@code children[2n]} and
+     * {@code children[2n + 1]}, 0 meaning none (the root is never a child).
+     */
+    private static final class Trie {
+        private final int[] children;
+        private final boolean[] terminal;
+        private final int rangeCount;
+
+        Trie(int[] children, boolean[] terminal, int rangeCount) {
+            this.children = children;
+            this.terminal = terminal;
+            this.rangeCount = rangeCount;
+        }
+
+        boolean contains(long high, long low, int bits) {
+            int node = 0;
+            for (int i = 0; i < bits; i++) {
+                if (terminal[node]) {
+                    return true;
+                }
+                node = children[2 * node + bit(high, low, i)];
+                if (node == 0) {
+                    return false;
+                }
+            }
+            return terminal[node];
+        }
+    }
+
+    private static final class TrieBuilder {
+        private int[] children = new int[64];
+        private boolean[] terminal = new boolean[32];
+        private int nodes = 1;
+        private int rangeCount;
+
+        void insert(long high, long low, int prefixBits) {
+            rangeCount++;
+            int node = 0;
+            for (int i = 0; i < prefixBits; i++) {
+                if (terminal[node]) {
+                    return; // already covered by a shorter range
+                }
+                int slot = 2 * node + bit(high, low, i);
+                if (children[slot] == 0) {
+                    int child = newNode(); // may replace the children array
+                    children[slot] = child;
+                }
+                node = children[slot];
+            }
+            terminal[node] = true;
+        }
+
+        private int newNode() {
+            if (nodes == terminal.length) {
+                terminal = Arrays.copyOf(terminal, nodes * 2);
+                children = Arrays.copyOf(children, nodes * 4);
+            }
+            return nodes++;
+        }
+
+        Trie build() {
+            return new Trie(Arrays.copyOf(children, nodes * 2), Arrays.copyOf(terminal, nodes), rangeCount);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.itil.concurrent;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ⚡ RESILIENCE: Consecutive-failure circuit breaker for calls to an external system.
+ *
+ * CLOSED lets every call through. After {@code failureThreshold} consecutive failures
+ * the breaker OPENs and rejects calls for {@code openMs}; the first call after that is
+ * a HALF_OPEN probe whose outcome closes or re-opens the breaker. A probe that never
+ * reports back is replaced once another {@code openMs} has passed.
+ */
+public final class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openMs;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private long probeStartedAt;
+
+    // 📊 METRICS
+    private final LongAdder shortCircuited = new LongAdder();
+    private final LongAdder trips = new LongAdder();
+
+    public CircuitBreaker(String name, int failureThreshold, long openMs) {
+        this.name = name;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openMs = Math.max(0, openMs);
+    }
+
+    /**
+     * Whether a call may proceed now. A permitted call should report its outcome through
+     * {@link #recordSuccess()} or {@link #recordFailure()}.
+     */
+    public synchronized boolean tryAcquire() {
+        long now = System.currentTimeMillis();
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (now - openedAt >= openMs) {
+                    state = State.HALF_OPEN;
+                    probeStartedAt = now;
+                    return true;
+                }
+                break;
+            default:
+                if (now - probeStartedAt >= openMs) {
+                    probeStartedAt = now;
+                    return true;
+                }
+                break;
+        }
+        shortCircuited.increment();
+        return false;
+    }
+
+    public synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+        state = State.CLOSED;
+    }
+
+    public synchronized void recordFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+            trips.increment();
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        synchronized (this) {
+            metrics.put("name", name);
+            metrics.put("state", state.name());
+            metrics.put("consecutiveFailures", consecutiveFailures);
+        }
+        metrics.put("failureThreshold", failureThreshold);
+        metrics.put("openSeconds", TimeUnit.MILLISECONDS.toSeconds(openMs));
+        metrics.put("trips", trips.sum());
+        metrics.put("shortCircuited", shortCircuited.sum());
+        return metrics;
+    }
+}
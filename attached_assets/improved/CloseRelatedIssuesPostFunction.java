@@ -0,0 +1,45 @@
+package com.example.itil.workflow;
+
+import com.atlassian.jira.issue.Issue;
+import com.atlassian.jira.workflow.function.issue.AbstractJiraFunctionProvider;
+import com.example.itil.config.PluginConfiguration;
+import com.opensymphony.module.propertyset.PropertySet;
+import com.opensymphony.workflow.WorkflowException;
+import javax.inject.Inject;
+import java.util.Map;
+
+/**
+ * 🔒 WORKFLOW: Closes the Incidents and Problems linked (either direction) to a Change
+ * when it completes.
+ *
+ * The function only marks the Change: the closing starts on the {@link BulkTransitionService}
+ * pool once the transition has completed and fired its issue event, and is reported as a
+ * comment on the Change, so the Change's own transition returns at once however many
+ * issues it resolves. The transition must fire an event, as the default "Fire Event"
+ * post function does. The target status comes from the {@code targetStatus} function
+ * argument, falling back to {@code workflow.close.related.status}.
+ */
+public class CloseRelatedIssuesPostFunction extends AbstractJiraFunctionProvider {
+    static final String TARGET_STATUS_ARG = "targetStatus";
+
+    // Configuration defaults
+    private static final String DEFAULT_TARGET_STATUS = "Done";
+
+    private final BulkTransitionService bulkTransitions;
+
+    @Inject
+    public CloseRelatedIssuesPostFunction(BulkTransitionService bulkTransitions) {
+        this.bulkTransitions = bulkTransitions;
+    }
+
+    @Override
+    public void execute(Map transientVars, Map args, PropertySet ps) throws WorkflowException {
+        Issue change = getIssue(transientVars);
+        Object configured = args.get(TARGET_STATUS_ARG);
+        String targetStatus = configured instanceof String && !((String) configured).trim().isEmpty()
+            ? ((String) configured).trim()
+            : PluginConfiguration.getString("workflow.close.related.status", DEFAULT_TARGET_STATUS);
+
+        bulkTransitions.closeRelatedAfterTransition(change, targetStatus, getCallerUser(transientVars, args));
+    }
+}
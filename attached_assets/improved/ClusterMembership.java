@@ -0,0 +1,24 @@
+package com.example.itil.cluster;
+
+import java.util.Set;
+
+/**
+ * 🌐 CLUSTER: Which nodes are alive and which one this is.
+ *
+ * Backed by Jira's cluster manager in production ({@link JiraClusterMembership}) and by
+ * {@link InMemoryClusterMembership} when several nodes run in one process.
+ */
+public interface ClusterMembership {
+
+    /**
+     * Whether work has to be shared with other nodes at all.
+     */
+    boolean isClustered();
+
+    String getLocalNodeId();
+
+    /**
+     * Ids of the nodes currently considered alive, including this one while it is healthy.
+     */
+    Set<String> getLiveNodeIds();
+}
@@ -0,0 +1,83 @@
+package com.example.itil.cluster;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 🌐 CLUSTER: Decides which keys this node is responsible for.
+ *
+ * The live node set is read on {@link #refresh()}, once per unit of work, and the
+ * {@link ConsistentHashRing} is rebuilt only when it changed. Outside a cluster every
+ * key is local. A node missing from the live set (its heartbeat lapsed) owns nothing,
+ * since the others have already taken its keys over.
+ */
+public final class ClusterShards {
+    private static final Logger log = LoggerFactory.getLogger(ClusterShards.class);
+
+    private final String name;
+    private final ClusterMembership membership;
+    private final int virtualNodes;
+
+    private volatile Set<String> liveNodes = Collections.emptySet();
+    private volatile ConsistentHashRing ring;
+    private volatile boolean clustered;
+
+    // 📊 METRICS
+    private final LongAdder rebalances = new LongAdder();
+
+    public ClusterShards(String name, ClusterMembership membership, int virtualNodes) {
+        this.name = name;
+        this.membership = membership;
+        this.virtualNodes = virtualNodes;
+    }
+
+    /**
+     * Re-read cluster membership; rebuilds the ring if nodes joined or left.
+     */
+    public void refresh() {
+        clustered = membership.isClustered();
+        if (!clustered) {
+            return;
+        }
+        Set<String> current = membership.getLiveNodeIds();
+        if (ring == null || !current.equals(liveNodes)) {
+            if (ring != null) {
+                rebalances.increment();
+            }
+            ConsistentHashRing rebuilt = new ConsistentHashRing(current, virtualNodes);
+            ring = rebuilt;
+            liveNodes = current;
+            log.info("{} shards assigned across {} live nodes {} (this node: {})",
+                name, current.size(), rebuilt.getNodes(), membership.getLocalNodeId());
+        }
+    }
+
+    /**
+     * Whether this node owns {@code key} as of the last {@link #refresh()}.
+     */
+    public boolean isLocal(long key) {
+        if (!clustered) {
+            return true;
+        }
+        ConsistentHashRing current = ring;
+        return current != null && membership.getLocalNodeId().equals(current.ownerOf(key));
+    }
+
+    /**
+     * 📊 METRICS: Live nodes and rebalance count
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("clustered", clustered);
+        metrics.put("localNode", membership.getLocalNodeId());
+        metrics.put("liveNodes", liveNodes.size());
+        metrics.put("rebalances", rebalances.sum());
+        return metrics;
+    }
+}
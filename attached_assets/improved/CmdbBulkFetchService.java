@@ -0,0 +1,213 @@
+package com.example.itil.cmdb;
+
+import com.example.itil.config.PluginConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 📦 BULK: CI data for many issues at once — issue lists, the dashboard gadget and
+ * related-ticket views.
+ *
+ * Ids are de-duplicated and served from {@link CmdbCiCache} or the local
+ * {@link CmdbSnapshotStore} where possible; the rest are split into multi-get chunks
+ * that run on at most {@code maxConcurrency} lanes of the CMDB pool. Every result is written back to the shared cache, so the single-issue
+ * panels rendered afterwards are cache hits.
+ */
+@Named
+public class CmdbBulkFetchService {
+    private static final Logger log = LoggerFactory.getLogger(CmdbBulkFetchService.class);
+
+    // Configuration defaults
+    private static final int DEFAULT_CHUNK_SIZE = 50;
+    private static final int DEFAULT_MAX_CONCURRENCY = 4;
+
+    private final CmdbClient cmdbClient;
+    private final CmdbCiCache ciCache;
+    private final CmdbSnapshotStore snapshotStore;
+    private final int chunkSize;
+    private final int maxConcurrency;
+
+    @Inject
+    public CmdbBulkFetchService(CmdbClient cmdbClient, CmdbCiCache ciCache, CmdbSnapshotStore snapshotStore) {
+        this.cmdbClient = cmdbClient;
+        this.ciCache = ciCache;
+        this.snapshotStore = snapshotStore;
+        this.chunkSize = Math.max(1, PluginConfiguration.getInt("cmdb.bulk.chunk.size", DEFAULT_CHUNK_SIZE));
+        this.maxConcurrency = Math.max(1, PluginConfiguration.getInt("cmdb.bulk.max.concurrency", DEFAULT_MAX_CONCURRENCY));
+    }
+
+    /**
+     * 🔍 FETCH: CI data for every distinct id, in first-seen order, waiting at most
+     * {@code timeoutMs} for the CMDB. Ids still outstanding at the deadline map to a
+     * "CMDB timeout" error; their requests finish in the background and fill the cache.
+     */
+    public Map<String, CmdbCiData> fetchAll(Collection<String> ciIds, long timeoutMs) {
+        Set<String> unique = normalize(ciIds);
+        if (unique.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        if (!cmdbClient.isConfigured()) {
+            Map<String, CmdbCiData> unconfigured = new LinkedHashMap<>();
+            for (String ciId : unique) {
+                unconfigured.put(ciId, CmdbCiData.error("CMDB not configured"));
+            }
+            return unconfigured;
+        }
+
+        Map<String, CmdbCiData> found = new ConcurrentHashMap<>();
+        List<String> misses = new ArrayList<>();
+        List<String> stale = new ArrayList<>();
+        for (String ciId : unique) {
+            CmdbCiCache.Lookup cached = ciCache.lookup(ciId);
+            if (cached.getState() == CmdbCiCache.State.MISS) {
+                CmdbCiData snapshot = snapshotStore.get(ciId);
+                if (snapshot != null) {
+                    ciCache.put(ciId, snapshot);
+                    found.put(ciId, snapshot);
+                } else {
+                    misses.add(ciId);
+                }
+            } else {
+                found.put(ciId, cached.getData());
+                if (cached.isRefreshOwner()) {
+                    stale.add(ciId);
+                }
+            }
+        }
+
+        // 🔄 REVALIDATION: Stale entries are served now and refreshed in the background
+        if (!stale.isEmpty()) {
+            runChunks(stale, null, new AtomicBoolean());
+        }
+
+        if (!misses.isEmpty()) {
+            AtomicBoolean abandoned = new AtomicBoolean();
+            CompletableFuture<Void> run = runChunks(misses, found, abandoned);
+            try {
+                run.get(timeoutMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                abandoned.set(true);
+                log.warn("CMDB bulk fetch timed out with {} of {} CIs outstanding",
+                    misses.size() - countPresent(found, misses), misses.size());
+            } catch (InterruptedException e) {
+                abandoned.set(true);
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                log.error("CMDB bulk fetch failed: {}", e.getMessage());
+            }
+        }
+
+        Map<String, CmdbCiData> results = new LinkedHashMap<>();
+        for (String ciId : unique) {
+            CmdbCiData data = found.get(ciId);
+            results.put(ciId, data != null ? data : CmdbCiData.error("CMDB timeout"));
+        }
+        return results;
+    }
+
+    /**
+     * 🔥 PREFETCH: Warm the cache for CIs about to be rendered, without waiting.
+     */
+    public void prefetch(Collection<String> ciIds) {
+        if (!cmdbClient.isConfigured()) {
+            return;
+        }
+        List<String> misses = new ArrayList<>();
+        for (String ciId : normalize(ciIds)) {
+            CmdbCiCache.Lookup cached = ciCache.lookup(ciId);
+            if (cached.getState() == CmdbCiCache.State.MISS) {
+                CmdbCiData snapshot = snapshotStore.get(ciId);
+                if (snapshot != null) {
+                    ciCache.put(ciId, snapshot);
+                } else {
+                    misses.add(ciId);
+                }
+            } else if (cached.isRefreshOwner()) {
+                misses.add(ciId);
+            }
+        }
+        if (!misses.isEmpty()) {
+            runChunks(misses, null, new AtomicBoolean());
+        }
+    }
+
+    /**
+     * Run chunks of {@code ciIds} on {@code maxConcurrency} lanes; each lane starts its
+     * next chunk when the previous one finishes, unless the caller has given up.
+     */
+    private CompletableFuture<Void> runChunks(List<String> ciIds, Map<String, CmdbCiData> sink,
+                                              AtomicBoolean abandoned) {
+        List<List<String>> chunks = new ArrayList<>();
+        for (int i = 0; i < ciIds.size(); i += chunkSize) {
+            chunks.add(ciIds.subList(i, Math.min(ciIds.size(), i + chunkSize)));
+        }
+
+        int lanes = Math.min(maxConcurrency, chunks.size());
+        CompletableFuture<?>[] tails = new CompletableFuture<?>[lanes];
+        for (int lane = 0; lane < lanes; lane++) {
+            CompletableFuture<Void> tail = CompletableFuture.completedFuture(null);
+            for (int c = lane; c < chunks.size(); c += lanes) {
+                List<String> chunk = chunks.get(c);
+                tail = tail.thenCompose(ignored -> abandoned.get()
+                    ? CompletableFuture.<Void>completedFuture(null)
+                    : cmdbClient.fetchBatchAsync(chunk).handle((data, error) -> {
+                        store(chunk, data, sink);
+                        return null;
+                    }));
+            }
+            tails[lane] = tail;
+        }
+        return CompletableFuture.allOf(tails);
+    }
+
+    private void store(List<String> chunk, Map<String, CmdbCiData> data, Map<String, CmdbCiData> sink) {
+        for (String ciId : chunk) {
+            CmdbCiData result = data == null ? null : data.get(ciId);
+            if (result == null) {
+                ciCache.refreshFailed(ciId);
+                continue;
+            }
+            ciCache.put(ciId, result);
+            if (sink != null) {
+                sink.put(ciId, result);
+            }
+        }
+    }
+
+    private static Set<String> normalize(Collection<String> ciIds) {
+        Set<String> unique = new LinkedHashSet<>();
+        if (ciIds != null) {
+            for (String ciId : ciIds) {
+                if (ciId != null && !ciId.trim().isEmpty()) {
+                    unique.add(ciId.trim());
+                }
+            }
+        }
+        return unique;
+    }
+
+    private static int countPresent(Map<String, CmdbCiData> found, List<String> ciIds) {
+        int present = 0;
+        for (String ciId : ciIds) {
+            if (found.containsKey(ciId)) present++;
+        }
+        return present;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.itil.cmdb;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 📦 CMDB: One page of the "changed since" asset feed used to sync the local snapshot.
+ */
+public final class CmdbChangePage {
+
+    private final Map<String, CmdbCiData> changed;
+    private final List<String> deleted;
+    private final String cursor;
+    private final boolean hasMore;
+
+    CmdbChangePage(Map<String, CmdbCiData> changed, List<String> deleted, String cursor, boolean hasMore) {
+        this.changed = Collections.unmodifiableMap(changed);
+        this.deleted = Collections.unmodifiableList(deleted);
+        this.cursor = cursor;
+        this.hasMore = hasMore;
+    }
+
+    /**
+     * CIs created or updated since the requested cursor, keyed by CI id.
+     */
+    public Map<String, CmdbCiData> getChanged() {
+        return changed;
+    }
+
+    public List<String> getDeleted() {
+        return deleted;
+    }
+
+    /**
+     * Cursor to pass on the next pull; resumes after the last change in this page.
+     */
+    public String getCursor() {
+        return cursor;
+    }
+
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    public int size() {
+        return changed.size() + deleted.size();
+    }
+}
@@ -0,0 +1,250 @@
+package com.example.itil.cmdb;
+
+import com.example.itil.config.PluginConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Named;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 🗄️ CACHE: Bounded CI-data cache with two tiers of freshness.
+ *
+ * An entry is <em>fresh</em> for the TTL and served as-is; after that it stays
+ * <em>stale</em> for a further grace window, during which it is still served while
+ * exactly one caller revalidates it in the background. Past the grace window the entry
+ * is a miss. 404s are cached with their own, shorter TTL; errors are never cached.
+ * When the cache is full, expired entries are purged first and then the least recently
+ * read of a small random sample is evicted, so no access-order list has to be locked.
+ */
+@Named
+public class CmdbCiCache {
+    private static final Logger log = LoggerFactory.getLogger(CmdbCiCache.class);
+
+    // Configuration defaults
+    private static final int DEFAULT_MAX_ENTRIES = 10000;
+    private static final long DEFAULT_TTL_SECONDS = 300;
+    private static final long DEFAULT_STALE_SECONDS = 3600;
+    private static final long DEFAULT_NEGATIVE_TTL_SECONDS = 60;
+    private static final long PURGE_INTERVAL_MS = 1000;
+    private static final int EVICTION_SAMPLE_SIZE = 8;
+    private static final int EVICTION_SAMPLE_SKIP = 64;
+
+    public enum State {
+        FRESH, STALE, MISS
+    }
+
+    private final int maxEntries;
+    private final long ttlMs;
+    private final long staleMs;
+    private final long negativeTtlMs;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong lastPurge = new AtomicLong();
+
+    // 📊 METRICS
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+
+    public CmdbCiCache() {
+        this.maxEntries = Math.max(1, PluginConfiguration.getInt("cmdb.cache.max.entries", DEFAULT_MAX_ENTRIES));
+        this.ttlMs = TimeUnit.SECONDS.toMillis(
+            PluginConfiguration.getLong("cmdb.cache.ttl.seconds", DEFAULT_TTL_SECONDS));
+        this.staleMs = TimeUnit.SECONDS.toMillis(
+            PluginConfiguration.getLong("cmdb.cache.stale.seconds", DEFAULT_STALE_SECONDS));
+        this.negativeTtlMs = TimeUnit.SECONDS.toMillis(
+            PluginConfiguration.getLong("cmdb.cache.negative.ttl.seconds", DEFAULT_NEGATIVE_TTL_SECONDS));
+    }
+
+    public boolean isEnabled() {
+        return ttlMs > 0;
+    }
+
+    /**
+     * 🔍 LOOKUP: Cached data for a CI and how fresh it is. A {@link State#STALE} result
+     * carries {@code refreshOwner = true} for exactly one caller, which must then call
+     * {@link #put} or {@link #refreshFailed} once its background fetch finishes.
+     */
+    public Lookup lookup(String ciId) {
+        long now = System.currentTimeMillis();
+        Entry entry = isEnabled() ? entries.get(ciId) : null;
+        if (entry == null || now >= entry.staleUntil) {
+            misses.increment();
+            return Lookup.MISS;
+        }
+
+        entry.lastAccess = now;
+        if (now < entry.freshUntil) {
+            if (entry.data.isFound()) {
+                hits.increment();
+            } else {
+                negativeHits.increment();
+            }
+            return new Lookup(State.FRESH, entry.data, false);
+        }
+
+        staleHits.increment();
+        boolean owner = entry.refreshing.compareAndSet(false, true);
+        if (owner) {
+            refreshes.increment();
+        }
+        return new Lookup(State.STALE, entry.data, owner);
+    }
+
+    /**
+     * 💾 STORE: Cache a lookup result. Found CIs use the TTL, 404s the negative TTL;
+     * errors are not cached, and a stale entry keeps being served until it ages out.
+     */
+    public void put(String ciId, CmdbCiData data) {
+        if (!isEnabled() || data == null) {
+            return;
+        }
+        if (data.getStatus() == CmdbCiData.Status.ERROR) {
+            refreshFailed(ciId);
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        long ttl = data.isFound() ? ttlMs : negativeTtlMs;
+        entries.put(ciId, new Entry(data, now, now + ttl, now + ttl + staleMs));
+        if (entries.size() > maxEntries) {
+            makeRoom(now);
+        }
+    }
+
+    /**
+     * Background revalidation failed; keep serving the stale value and let the next
+     * reader try again.
+     */
+    public void refreshFailed(String ciId) {
+        Entry entry = entries.get(ciId);
+        if (entry != null) {
+            entry.refreshing.set(false);
+        }
+    }
+
+    public void invalidate(String ciId) {
+        entries.remove(ciId);
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public Map<String, Object> getMetrics() {
+        long hitCount = hits.sum() + staleHits.sum() + negativeHits.sum();
+        long total = hitCount + misses.sum();
+
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", isEnabled());
+        metrics.put("entries", entries.size());
+        metrics.put("maxEntries", maxEntries);
+        metrics.put("ttlSeconds", TimeUnit.MILLISECONDS.toSeconds(ttlMs));
+        metrics.put("staleSeconds", TimeUnit.MILLISECONDS.toSeconds(staleMs));
+        metrics.put("negativeTtlSeconds", TimeUnit.MILLISECONDS.toSeconds(negativeTtlMs));
+        metrics.put("hits", hits.sum());
+        metrics.put("staleHits", staleHits.sum());
+        metrics.put("negativeHits", negativeHits.sum());
+        metrics.put("misses", misses.sum());
+        metrics.put("hitRatio", total == 0 ? 0.0 : (double) hitCount / total);
+        metrics.put("evictions", evictions.sum());
+        metrics.put("backgroundRefreshes", refreshes.sum());
+        return metrics;
+    }
+
+    /**
+     * 🧹 EVICTION: Drop entries past their stale window (at most once per purge interval),
+     * then evict sampled least-recently-read entries until the cache is within bounds.
+     */
+    private void makeRoom(long now) {
+        long last = lastPurge.get();
+        if (now - last >= PURGE_INTERVAL_MS && lastPurge.compareAndSet(last, now)) {
+            int before = entries.size();
+            entries.values().removeIf(e -> now >= e.staleUntil);
+            evictions.add(Math.max(0, before - entries.size()));
+        }
+
+        while (entries.size() > maxEntries) {
+            String victim = null;
+            long oldest = Long.MAX_VALUE;
+            Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+            // Start the sample at a random offset so the same hash buckets are not always chosen
+            int maxSkip = Math.min(EVICTION_SAMPLE_SKIP, entries.size() - EVICTION_SAMPLE_SIZE);
+            for (int skip = ThreadLocalRandom.current().nextInt(Math.max(1, maxSkip)); skip > 0 && it.hasNext(); skip--) {
+                it.next();
+            }
+            for (int i = 0; i < EVICTION_SAMPLE_SIZE && it.hasNext(); i++) {
+                Map.Entry<String, Entry> candidate = it.next();
+                if (candidate.getValue().lastAccess < oldest) {
+                    oldest = candidate.getValue().lastAccess;
+                    victim = candidate.getKey();
+                }
+            }
+            if (victim == null) {
+                break;
+            }
+            if (entries.remove(victim) != null) {
+                evictions.increment();
+                log.debug("Evicted CMDB cache entry for CI {}", victim);
+            }
+        }
+    }
+
+    public static final class Lookup {
+        static final Lookup MISS = new Lookup(State.MISS, null, false);
+
+        private final State state;
+        private final CmdbCiData data;
+        private final boolean refreshOwner;
+
+        private Lookup(State state, CmdbCiData data, boolean refreshOwner) {
+            this.state = state;
+            this.data = data;
+            this.refreshOwner = refreshOwner;
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        /**
+         * Cached data, or null on a miss.
+         */
+        public CmdbCiData getData() {
+            return data;
+        }
+
+        /**
+         * True if this caller must revalidate the stale entry.
+         */
+        public boolean isRefreshOwner() {
+            return refreshOwner;
+        }
+    }
+
+    private static final class Entry {
+        final CmdbCiData data;
+        final long freshUntil;
+        final long staleUntil;
+        final AtomicBoolean refreshing = new AtomicBoolean();
+        volatile long lastAccess;
+
+        Entry(CmdbCiData data, long now, long freshUntil, long staleUntil) {
+            this.data = data;
+            this.lastAccess = now;
+            this.freshUntil = freshUntil;
+            this.staleUntil = staleUntil;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.itil.cmdb;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 📦 CMDB: Immutable outcome of a CI lookup — the panel fields when found, or why not.
+ */
+public final class CmdbCiData {
+
+    public enum Status {
+        FOUND, NOT_FOUND, ERROR
+    }
+
+    private final Status status;
+    private final Map<String, Object> fields;
+    private final String error;
+
+    private CmdbCiData(Status status, Map<String, Object> fields, String error) {
+        this.status = status;
+        this.fields = fields;
+        this.error = error;
+    }
+
+    public static CmdbCiData found(Map<String, Object> fields) {
+        return new CmdbCiData(Status.FOUND, Collections.unmodifiableMap(new LinkedHashMap<>(fields)), null);
+    }
+
+    public static CmdbCiData notFound() {
+        return new CmdbCiData(Status.NOT_FOUND, Collections.emptyMap(), null);
+    }
+
+    public static CmdbCiData error(String error) {
+        return new CmdbCiData(Status.ERROR, Collections.emptyMap(), error);
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isFound() {
+        return status == Status.FOUND;
+    }
+
+    /**
+     * Context-map fields for the CI panel (ciName, ciLocation, ciIpAddress, ...); empty unless found.
+     */
+    public Map<String, Object> getFields() {
+        return fields;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,656 @@
+package com.example.itil.cmdb;
+
+import com.atlassian.sal.api.net.Request;
+import com.atlassian.sal.api.net.RequestFactory;
+import com.atlassian.sal.api.net.Response;
+import com.atlassian.sal.api.net.ResponseException;
+import com.example.itil.concurrent.CircuitBreaker;
+import com.example.itil.concurrent.NamedThreadFactory;
+import com.example.itil.config.PluginConfiguration;
+import com.example.itil.security.InputSanitizer;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 🌐 CMDB: HTTP client for the asset API, isolated behind its own bulkhead.
+ *
+ * Calls run on a small dedicated pool with a bounded queue instead of the JVM-wide
+ * common pool, so a slow CMDB can only ever tie up these threads. Concurrent lookups
+ * of one CI are coalesced into a single request, an abandoned request is interrupted or
+ * dequeued, and a circuit breaker fails calls fast with "CMDB unavailable" while the
+ * CMDB keeps erroring or timing out.
+ */
+@Named
+public class CmdbClient {
+    private static final Logger log = LoggerFactory.getLogger(CmdbClient.class);
+
+    public static final String UNAVAILABLE = "CMDB unavailable";
+    public static final String BUSY = "CMDB busy";
+
+    // Configuration defaults
+    private static final int DEFAULT_TIMEOUT_MS = 5000;
+    private static final int DEFAULT_THREADS = 8;
+    private static final int DEFAULT_QUEUE_CAPACITY = 50;
+    private static final int DEFAULT_BREAKER_FAILURES = 5;
+    private static final long DEFAULT_BREAKER_OPEN_SECONDS = 30;
+
+    private final RequestFactory requestFactory;
+    private final String cmdbBaseUrl;
+    private final String cmdbApiToken;
+    private final int timeoutMs;
+    private final int queueCapacity;
+    private final ThreadPoolExecutor executor;
+    private final CircuitBreaker breaker;
+    private final Map<String, Flight> inFlight = new ConcurrentHashMap<>();
+    private volatile boolean bulkSupported = true;
+
+    // 📊 METRICS
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder batchCalls = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    @Inject
+    public CmdbClient(RequestFactory requestFactory) {
+        this.requestFactory = requestFactory;
+        // 🔒 SECURE: Get from plugin configuration instead of environment
+        this.cmdbBaseUrl = PluginConfiguration.getString("cmdb.base.url", null);
+        this.cmdbApiToken = PluginConfiguration.getString("cmdb.api.token", null);
+        this.timeoutMs = PluginConfiguration.getInt("cmdb.timeout.ms", DEFAULT_TIMEOUT_MS);
+
+        int threads = Math.max(1, PluginConfiguration.getInt("cmdb.pool.threads", DEFAULT_THREADS));
+        this.queueCapacity = Math.max(1, PluginConfiguration.getInt("cmdb.pool.queue.capacity", DEFAULT_QUEUE_CAPACITY));
+        this.executor = new ThreadPoolExecutor(
+            threads, threads,
+            60L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            new NamedThreadFactory("itil-cmdb"),
+            new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+
+        this.breaker = new CircuitBreaker("cmdb",
+            PluginConfiguration.getInt("cmdb.breaker.failure.threshold", DEFAULT_BREAKER_FAILURES),
+            TimeUnit.SECONDS.toMillis(
+                PluginConfiguration.getLong("cmdb.breaker.open.seconds", DEFAULT_BREAKER_OPEN_SECONDS)));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public boolean isConfigured() {
+        return cmdbBaseUrl != null && cmdbApiToken != null;
+    }
+
+    public int getTimeoutMs() {
+        return timeoutMs;
+    }
+
+    /**
+     * 🚀 ASYNC: Look up a CI on the CMDB pool. Never blocks: while the breaker is open
+     * the future completes immediately with {@link #UNAVAILABLE}, and with {@link #BUSY}
+     * when the pool queue is full.
+     *
+     * Concurrent lookups of the same CI share one in-flight request. Every caller gets
+     * its own future and applies its own deadline; cancelling it only detaches that
+     * caller, and the HTTP call itself is cancelled once no caller is waiting any more.
+     */
+    public CompletableFuture<CmdbCiData> fetchAsync(String ciId) {
+        for (;;) {
+            Flight flight = inFlight.get(ciId);
+            if (flight == null) {
+                Flight created = new Flight(ciId);
+                flight = inFlight.putIfAbsent(ciId, created);
+                if (flight == null) {
+                    CompletableFuture<CmdbCiData> waiter = created.join();
+                    created.start();
+                    return waiter;
+                }
+            }
+
+            CompletableFuture<CmdbCiData> waiter = flight.join();
+            if (waiter != null) {
+                coalesced.increment();
+                return waiter;
+            }
+            // The flight finished or was abandoned between get() and join()
+            inFlight.remove(ciId, flight);
+        }
+    }
+
+    /**
+     * 📦 BULK: Look up several distinct CIs with one multi-get request on the CMDB pool.
+     * Follows the same breaker and queue rules as {@link #fetchAsync}; every requested id
+     * has an entry in the result. If the CMDB has no bulk endpoint the ids are looked up
+     * one by one (still coalesced) from then on.
+     */
+    public CompletableFuture<Map<String, CmdbCiData>> fetchBatchAsync(List<String> ciIds) {
+        if (!bulkSupported) {
+            return fetchEach(ciIds);
+        }
+        if (!breaker.tryAcquire()) {
+            return CompletableFuture.completedFuture(
+                fillMissing(new LinkedHashMap<>(), ciIds, CmdbCiData.error(UNAVAILABLE)));
+        }
+
+        CompletableFuture<Map<String, CmdbCiData>> result = new CompletableFuture<>();
+        FutureTask<Map<String, CmdbCiData>> task = new FutureTask<Map<String, CmdbCiData>>(() -> fetchBatch(ciIds)) {
+            @Override
+            protected void done() {
+                try {
+                    Map<String, CmdbCiData> data = get();
+                    if (data == null) {
+                        // Not a CMDB failure: the bulk endpoint does not exist
+                        breaker.recordSuccess();
+                        bulkSupported = false;
+                        log.info("CMDB has no bulk asset endpoint, falling back to single lookups");
+                        fetchEach(ciIds).whenComplete((each, error) -> result.complete(each));
+                        return;
+                    }
+                    if (data.values().stream().anyMatch(d -> d.getStatus() == CmdbCiData.Status.ERROR)) {
+                        failures.increment();
+                        breaker.recordFailure();
+                    } else {
+                        breaker.recordSuccess();
+                    }
+                    result.complete(data);
+                } catch (InterruptedException | ExecutionException | CancellationException e) {
+                    failures.increment();
+                    breaker.recordFailure();
+                    result.completeExceptionally(e);
+                }
+            }
+        };
+
+        try {
+            executor.execute(task);
+            batchCalls.increment();
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            log.warn("CMDB pool saturated, rejecting bulk lookup of {} CIs", ciIds.size());
+            result.complete(fillMissing(new LinkedHashMap<>(), ciIds, CmdbCiData.error(BUSY)));
+        }
+        return result;
+    }
+
+    private CompletableFuture<Map<String, CmdbCiData>> fetchEach(List<String> ciIds) {
+        Map<String, CompletableFuture<CmdbCiData>> calls = new LinkedHashMap<>();
+        for (String ciId : ciIds) {
+            calls.put(ciId, fetchAsync(ciId));
+        }
+        return CompletableFuture.allOf(calls.values().toArray(new CompletableFuture<?>[0]))
+            .handle((ignored, error) -> {
+                Map<String, CmdbCiData> results = new LinkedHashMap<>();
+                calls.forEach((ciId, call) ->
+                    results.put(ciId, call.isCompletedExceptionally() ? CmdbCiData.error("CMDB error") : call.join()));
+                return results;
+            });
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("configured", isConfigured());
+        metrics.put("timeoutMs", timeoutMs);
+        metrics.put("activeCalls", executor.getActiveCount());
+        metrics.put("poolSize", executor.getMaximumPoolSize());
+        metrics.put("queueDepth", executor.getQueue().size());
+        metrics.put("queueCapacity", queueCapacity);
+        metrics.put("calls", calls.sum());
+        metrics.put("coalesced", coalesced.sum());
+        metrics.put("inFlightCis", inFlight.size());
+        metrics.put("batchCalls", batchCalls.sum());
+        metrics.put("bulkSupported", bulkSupported);
+        metrics.put("rejected", rejected.sum());
+        metrics.put("cancelled", cancelled.sum());
+        metrics.put("failures", failures.sum());
+        metrics.put("circuitBreaker", breaker.getMetrics());
+        return metrics;
+    }
+
+    /**
+     * 🔒 SECURE: CMDB API call with proper error handling; runs on the CMDB pool
+     */
+    private CmdbCiData fetch(String ciValue) {
+        try {
+            // 🔒 SECURE: Proper URL encoding and validation
+            String encodedCI = java.net.URLEncoder.encode(ciValue, "UTF-8");
+            String cmdbUrl = cmdbBaseUrl + "/api/assets/" + encodedCI;
+
+            // 🔒 SECURE: Validate URL
+            if (!isValidCMDBUrl(cmdbUrl)) {
+                log.error("Invalid CMDB URL: {}", cmdbUrl);
+                return CmdbCiData.error("CMDB error");
+            }
+
+            Response resp = newRequest(cmdbUrl).execute();
+
+            if (resp.getStatusCode() == 200) {
+                String responseBody = resp.getResponseBodyAsString();
+                JSONObject json = new JSONObject(responseBody);
+
+                log.debug("Successfully fetched CMDB data for CI: {}", ciValue);
+                return toCiData(json, ciValue);
+
+            } else if (resp.getStatusCode() == 404) {
+                log.info("CI {} not found in CMDB", ciValue);
+                return CmdbCiData.notFound();
+            } else {
+                log.warn("CMDB API returned status {} for CI {}", resp.getStatusCode(), ciValue);
+                return CmdbCiData.error("CMDB error (" + resp.getStatusCode() + ")");
+            }
+
+        } catch (JSONException e) {
+            log.error("Invalid JSON response from CMDB for CI {}: {}", ciValue, e.getMessage());
+        } catch (ResponseException e) {
+            log.error("HTTP error calling CMDB for CI {}: {}", ciValue, e.getMessage());
+        } catch (Exception e) {
+            log.error("Unexpected error calling CMDB for CI {}: {}", ciValue, e.getMessage());
+        }
+
+        return CmdbCiData.error("CMDB error");
+    }
+
+    /**
+     * 📦 BULK: Multi-get {@code /api/assets?ids=a,b,c} answered with a JSON array of assets
+     * (or an object with an {@code assets} array), each carrying its CI id in {@code id}.
+     * Requested ids missing from the response are not found. Returns null if the CMDB
+     * does not offer the bulk endpoint.
+     */
+    private Map<String, CmdbCiData> fetchBatch(List<String> ciIds) {
+        Map<String, CmdbCiData> results = new LinkedHashMap<>();
+        try {
+            StringBuilder url = new StringBuilder(cmdbBaseUrl).append("/api/assets?ids=");
+            for (int i = 0; i < ciIds.size(); i++) {
+                if (i > 0) url.append(',');
+                url.append(java.net.URLEncoder.encode(ciIds.get(i), "UTF-8"));
+            }
+
+            // 🔒 SECURE: Validate URL
+            String cmdbUrl = url.toString();
+            if (!isValidCMDBUrl(cmdbUrl)) {
+                log.error("Invalid CMDB URL: {}", cmdbUrl);
+                return fillMissing(results, ciIds, CmdbCiData.error("CMDB error"));
+            }
+
+            Response resp = newRequest(cmdbUrl).execute();
+            int status = resp.getStatusCode();
+            if (status == 404 || status == 405 || status == 501) {
+                return null;
+            }
+            if (status != 200) {
+                log.warn("CMDB bulk API returned status {} for {} CIs", status, ciIds.size());
+                return fillMissing(results, ciIds, CmdbCiData.error("CMDB error (" + status + ")"));
+            }
+
+            String body = resp.getResponseBodyAsString().trim();
+            JSONArray assets = body.startsWith("[")
+                ? new JSONArray(body)
+                : new JSONObject(body).getJSONArray("assets");
+            Set<String> requested = new HashSet<>(ciIds);
+            for (int i = 0; i < assets.length(); i++) {
+                JSONObject json = assets.optJSONObject(i);
+                String id = json == null ? null : json.optString("id", null);
+                if (id != null && requested.contains(id)) {
+                    results.put(id, toCiData(json, id));
+                }
+            }
+            log.debug("Fetched {} of {} CIs from CMDB bulk API", results.size(), ciIds.size());
+            return fillMissing(results, ciIds, CmdbCiData.notFound());
+
+        } catch (JSONException e) {
+            log.error("Invalid JSON response from CMDB bulk API: {}", e.getMessage());
+        } catch (ResponseException e) {
+            log.error("HTTP error calling CMDB bulk API: {}", e.getMessage());
+        } catch (Exception e) {
+            log.error("Unexpected error calling CMDB bulk API: {}", e.getMessage());
+        }
+        return fillMissing(results, ciIds, CmdbCiData.error("CMDB error"));
+    }
+
+    /**
+     * 🔄 SYNC: One page of {@code /api/assets/changes?since=<cursor>&limit=<n>}, answered with
+     * {@code {"assets": [...], "deleted": [ids], "cursor": "...", "hasMore": bool}}. A null
+     * cursor pulls the full asset list. Runs on the caller's thread (the snapshot sync job),
+     * outside the bulkhead; returns null if the page could not be fetched.
+     */
+    public CmdbChangePage fetchChanges(String since, int limit) {
+        try {
+            StringBuilder url = new StringBuilder(cmdbBaseUrl).append("/api/assets/changes?limit=").append(limit);
+            if (since != null) {
+                url.append("&since=").append(java.net.URLEncoder.encode(since, "UTF-8"));
+            }
+
+            // 🔒 SECURE: Validate URL
+            String cmdbUrl = url.toString();
+            if (!isValidCMDBUrl(cmdbUrl)) {
+                log.error("Invalid CMDB URL: {}", cmdbUrl);
+                return null;
+            }
+
+            Response resp = newRequest(cmdbUrl).execute();
+            if (resp.getStatusCode() != 200) {
+                log.warn("CMDB change feed returned status {}", resp.getStatusCode());
+                return null;
+            }
+
+            JSONObject json = new JSONObject(resp.getResponseBodyAsString());
+            Map<String, CmdbCiData> changed = new LinkedHashMap<>();
+            JSONArray assets = json.optJSONArray("assets");
+            if (assets != null) {
+                for (int i = 0; i < assets.length(); i++) {
+                    JSONObject asset = assets.optJSONObject(i);
+                    String id = asset == null ? null : asset.optString("id", null);
+                    if (id != null && !id.isEmpty()) {
+                        changed.put(id, toCiData(asset, id));
+                    }
+                }
+            }
+            List<String> deleted = new ArrayList<>();
+            JSONArray removed = json.optJSONArray("deleted");
+            if (removed != null) {
+                for (int i = 0; i < removed.length(); i++) {
+                    String id = removed.optString(i, null);
+                    if (id != null && !id.isEmpty()) {
+                        deleted.add(id);
+                    }
+                }
+            }
+            String cursor = json.optString("cursor", since);
+            return new CmdbChangePage(changed, deleted, cursor, json.optBoolean("hasMore", false));
+
+        } catch (JSONException e) {
+            log.error("Invalid JSON response from CMDB change feed: {}", e.getMessage());
+        } catch (ResponseException e) {
+            log.error("HTTP error calling CMDB change feed: {}", e.getMessage());
+        } catch (Exception e) {
+            log.error("Unexpected error calling CMDB change feed: {}", e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * 🕸️ TOPOLOGY: One page of {@code /api/relationships/changes?since=<cursor>&limit=<n>},
+     * answered with {@code {"relationships": [...], "deleted": [...], "cursor": "...",
+     * "hasMore": bool}} where each entry carries {@code sourceId}, {@code targetId} and
+     * {@code relationshipType}. A null cursor pulls every relationship. Runs on the caller's
+     * thread (the topology sync job); returns null if the page could not be fetched.
+     */
+    public CiRelationshipPage fetchRelationshipChanges(String since, int limit) {
+        try {
+            StringBuilder url = new StringBuilder(cmdbBaseUrl).append("/api/relationships/changes?limit=").append(limit);
+            if (since != null) {
+                url.append("&since=").append(java.net.URLEncoder.encode(since, "UTF-8"));
+            }
+
+            // 🔒 SECURE: Validate URL
+            String cmdbUrl = url.toString();
+            if (!isValidCMDBUrl(cmdbUrl)) {
+                log.error("Invalid CMDB URL: {}", cmdbUrl);
+                return null;
+            }
+
+            Response resp = newRequest(cmdbUrl).execute();
+            if (resp.getStatusCode() != 200) {
+                log.warn("CMDB relationship feed returned status {}", resp.getStatusCode());
+                return null;
+            }
+
+            JSONObject json = new JSONObject(resp.getResponseBodyAsString());
+            String cursor = json.optString("cursor", since);
+            return new CiRelationshipPage(toRelationships(json.optJSONArray("relationships")),
+                toRelationships(json.optJSONArray("deleted")), cursor, json.optBoolean("hasMore", false));
+
+        } catch (JSONException e) {
+            log.error("Invalid JSON response from CMDB relationship feed: {}", e.getMessage());
+        } catch (ResponseException e) {
+            log.error("HTTP error calling CMDB relationship feed: {}", e.getMessage());
+        } catch (Exception e) {
+            log.error("Unexpected error calling CMDB relationship feed: {}", e.getMessage());
+        }
+        return null;
+    }
+
+    private static List<CiRelationshipPage.Relationship> toRelationships(JSONArray entries) {
+        List<CiRelationshipPage.Relationship> relationships = new ArrayList<>();
+        if (entries == null) {
+            return relationships;
+        }
+        for (int i = 0; i < entries.length(); i++) {
+            JSONObject entry = entries.optJSONObject(i);
+            if (entry == null) continue;
+            String source = entry.optString("sourceId", null);
+            String target = entry.optString("targetId", null);
+            if (source != null && !source.isEmpty() && target != null && !target.isEmpty()) {
+                relationships.add(new CiRelationshipPage.Relationship(
+                    source, target, entry.optString("relationshipType", null)));
+            }
+        }
+        return relationships;
+    }
+
+    private static Map<String, CmdbCiData> fillMissing(Map<String, CmdbCiData> results,
+                                                      List<String> ciIds, CmdbCiData value) {
+        for (String ciId : ciIds) {
+            results.putIfAbsent(ciId, value);
+        }
+        return results;
+    }
+
+    private Request newRequest(String url) {
+        Request req = requestFactory.createRequest(Request.MethodType.GET, url);
+        req.setRequestHeader("Authorization", "Bearer " + cmdbApiToken);
+        req.setRequestHeader("Accept", "application/json");
+        req.setRequestHeader("User-Agent", "JIRA-ITIL-Plugin/1.0");
+
+        // 🕒 TIMEOUT: Set connection and read timeouts
+        req.setConnectionTimeout(timeoutMs);
+        req.setSoTimeout(timeoutMs);
+        return req;
+    }
+
+    /**
+     * 🔒 SECURE: Sanitize and validate asset JSON into CI panel fields
+     */
+    private CmdbCiData toCiData(JSONObject json, String ciValue) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("ciName", sanitizeString(json.optString("hostname", ciValue)));
+        result.put("ciLocation", sanitizeString(json.optString("location", "unknown")));
+        result.put("ciIpAddress", sanitizeString(json.optString("ip", "")));
+        result.put("ciOperatingSystem", sanitizeString(json.optString("os", "")));
+        result.put("ciEnvironment", sanitizeString(json.optString("environment", "")));
+
+        // 🔗 SAFE: Only include CMDB URL if it's valid
+        String cmdbViewUrl = json.optString("cmdbUrl", "");
+        if (isValidCMDBUrl(cmdbViewUrl)) {
+            result.put("cmdbViewUrl", cmdbViewUrl);
+        }
+        return CmdbCiData.found(result);
+    }
+
+    /**
+     * 🔒 SECURITY: Validate CMDB URLs to prevent SSRF
+     */
+    private boolean isValidCMDBUrl(String url) {
+        if (url == null || url.trim().isEmpty()) {
+            return false;
+        }
+
+        try {
+            java.net.URL parsedUrl = new java.net.URL(url);
+            String host = parsedUrl.getHost().toLowerCase();
+
+            // 🔒 SECURITY: Prevent SSRF - only allow configured CMDB hosts
+            return url.startsWith(cmdbBaseUrl) &&
+                   !host.equals("localhost") &&
+                   !host.equals("127.0.0.1") &&
+                   !host.startsWith("192.168.") &&
+                   !host.startsWith("10.") &&
+                   !host.startsWith("172.");
+
+        } catch (Exception e) {
+            log.warn("Invalid URL format: {}", url);
+            return false;
+        }
+    }
+
+    /**
+     * 🔒 SECURITY: Sanitize string values to prevent XSS
+     */
+    private String sanitizeString(String input) {
+        if (input == null) return "";
+
+        return InputSanitizer.CMDB_DISPLAY.sanitize(input);
+    }
+
+    /**
+     * 🛫 SINGLE-FLIGHT: One CMDB request for a CI and the callers waiting on it.
+     * Completes every waiter with the task's result; when the last waiter cancels, the
+     * task is cancelled. A call already talking to the CMDB is interrupted and counts
+     * against the circuit breaker like a timeout; one still queued behind the bulkhead
+     * is only dequeued, since it says nothing about the CMDB's health.
+     */
+    private final class Flight {
+        private final String ciId;
+        private final CompletableFuture<CmdbCiData> result = new CompletableFuture<>();
+        private final FutureTask<CmdbCiData> task;
+        private int waiters;
+        private boolean closed;
+        private volatile boolean started;
+
+        Flight(String ciId) {
+            this.ciId = ciId;
+            this.task = new FutureTask<CmdbCiData>(() -> {
+                started = true;
+                return fetch(ciId);
+            }) {
+                @Override
+                protected void done() {
+                    if (isCancelled()) {
+                        return;
+                    }
+                    try {
+                        CmdbCiData data = get();
+                        if (data.getStatus() == CmdbCiData.Status.ERROR) {
+                            failures.increment();
+                            breaker.recordFailure();
+                        } else {
+                            breaker.recordSuccess();
+                        }
+                        result.complete(data);
+                    } catch (InterruptedException | ExecutionException e) {
+                        failures.increment();
+                        breaker.recordFailure();
+                        result.completeExceptionally(e);
+                    }
+                }
+            };
+            result.whenComplete((data, error) -> close());
+        }
+
+        void start() {
+            if (!breaker.tryAcquire()) {
+                result.complete(CmdbCiData.error(UNAVAILABLE));
+                return;
+            }
+            try {
+                executor.execute(task);
+                calls.increment();
+            } catch (RejectedExecutionException e) {
+                rejected.increment();
+                log.warn("CMDB pool saturated, rejecting lookup of CI {}", ciId);
+                result.complete(CmdbCiData.error(BUSY));
+            }
+        }
+
+        /**
+         * A new future for one more waiter, or null if the flight is already over.
+         */
+        synchronized CompletableFuture<CmdbCiData> join() {
+            if (closed) {
+                return null;
+            }
+            waiters++;
+            Waiter waiter = new Waiter(this);
+            result.whenComplete((data, error) -> {
+                if (error != null) {
+                    waiter.completeExceptionally(error);
+                } else {
+                    waiter.complete(data);
+                }
+            });
+            return waiter;
+        }
+
+        void leave() {
+            synchronized (this) {
+                if (--waiters > 0 || closed) {
+                    return;
+                }
+                closed = true;
+            }
+            inFlight.remove(ciId, this);
+            if (task.cancel(true)) {
+                cancelled.increment();
+                if (started) {
+                    breaker.recordFailure();
+                } else {
+                    executor.remove(task);
+                }
+            }
+            result.cancel(false);
+        }
+
+        private void close() {
+            synchronized (this) {
+                closed = true;
+            }
+            inFlight.remove(ciId, this);
+        }
+    }
+
+    /**
+     * One caller's view of a {@link Flight}; cancelling it detaches only this caller.
+     */
+    private static final class Waiter extends CompletableFuture<CmdbCiData> {
+        private final Flight flight;
+
+        Waiter(Flight flight) {
+            this.flight = flight;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                flight.leave();
+            }
+            return cancelled;
+        }
+    }
+}
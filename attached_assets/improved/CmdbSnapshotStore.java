@@ -0,0 +1,700 @@
+package com.example.itil.cmdb;
+
+import com.atlassian.jira.component.ComponentAccessor;
+import com.atlassian.jira.config.util.JiraHome;
+import com.example.itil.config.PluginConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Named;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 💽 SNAPSHOT: Optional on-disk copy of the CMDB so the CI panel renders without a network call.
+ *
+ * Records live in an append-only data file mapped in 256 MB segments, and an open-addressing
+ * hash index (16 bytes per slot) lives in a second mapped file, so neither occupies Jira heap
+ * even at millions of CIs. The index is rebuilt by scanning the data file when the store opens,
+ * which is what lets a restarted node serve the snapshot straight away. Only writes covered by
+ * a {@link #commit} survive a restart; anything later is pulled again from the stored cursor.
+ * Superseded records are reclaimed by compacting into a new generation of the data file.
+ *
+ * Readers never wait for the sync job: while it holds the write lock a lookup simply misses
+ * and the caller falls back to the cache or the CMDB.
+ */
+@Named
+public class CmdbSnapshotStore {
+    private static final Logger log = LoggerFactory.getLogger(CmdbSnapshotStore.class);
+
+    // Context-map keys stored per CI, in record order
+    static final String[] FIELDS = {
+        "ciName", "ciLocation", "ciIpAddress", "ciOperatingSystem", "ciEnvironment", "cmdbViewUrl"
+    };
+
+    private static final String META_FILE = "snapshot.properties";
+    private static final int MAGIC = 0x49544349; // "ITCI"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final long SEGMENT_BYTES = 1L << 28;
+    private static final int MAX_ID_BYTES = 1024;
+    private static final int MAX_FIELD_BYTES = 4096;
+    private static final int MAX_RECORD_BYTES = 64 * 1024;
+    private static final int MIN_INDEX_SLOTS = 1 << 16;
+    private static final int MAX_INDEX_SLOTS = 1 << 26;
+    private static final double MAX_INDEX_LOAD = 0.6;
+    private static final long MIN_COMPACT_GARBAGE_BYTES = 64L << 20;
+    private static final byte FLAG_DELETED = 1;
+    private static final byte[] EMPTY = new byte[0];
+
+    // Record: int length | byte flags | short idLength | id | (short valueLength | value) per field
+    private static final int RECORD_FLAGS = 4;
+    private static final int RECORD_ID_LENGTH = 5;
+    private static final int RECORD_ID = 7;
+
+    // FNV-1a 64-bit
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final boolean enabled;
+    private final String configuredDirectory;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock
+    private Path directory;
+    private long generation;
+    private DataFile data;
+    private IndexTable index;
+    private long liveCount;
+    private long garbageBytes;
+    private String cursor;
+
+    private volatile boolean open;
+    private volatile long lastCommitAt;
+
+    // 📊 METRICS
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder compactions = new LongAdder();
+
+    public CmdbSnapshotStore() {
+        this.enabled = PluginConfiguration.getBoolean("cmdb.snapshot.enabled", false);
+        this.configuredDirectory = PluginConfiguration.getString("cmdb.snapshot.dir", null);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * 📂 OPEN: Map the committed generation and rebuild the index. No-op if disabled or open.
+     */
+    public void open() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (open || !enabled) {
+                return;
+            }
+            directory = resolveDirectory();
+            Files.createDirectories(directory);
+
+            Properties meta = readMeta();
+            generation = Long.parseLong(meta.getProperty("generation", "0"));
+            long committed = Long.parseLong(meta.getProperty("writePos", String.valueOf(HEADER_BYTES)));
+            cursor = meta.getProperty("cursor");
+
+            data = new DataFile(dataPath(generation));
+            if (!data.hasValidHeader()) {
+                log.warn("CMDB snapshot {} is not readable, starting a full resync", dataPath(generation));
+                data.close();
+                Files.deleteIfExists(dataPath(generation));
+                data = new DataFile(dataPath(generation));
+                committed = HEADER_BYTES;
+                cursor = null;
+            }
+            index = new IndexTable(directory, MIN_INDEX_SLOTS);
+            liveCount = 0;
+            garbageBytes = 0;
+            rebuildIndex(committed);
+
+            open = true;
+            log.info("CMDB snapshot opened at {} with {} CIs ({} bytes)", directory, liveCount, data.writePos);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            open = false;
+            if (data != null) data.close();
+            if (index != null) index.close();
+            data = null;
+            index = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 🔍 LOOKUP: Snapshot data for a CI, or null if it is not in the snapshot, the store is
+     * closed, or the sync job is writing right now.
+     */
+    public CmdbCiData get(String ciId) {
+        if (!open || ciId == null) {
+            return null;
+        }
+        lookups.increment();
+        if (!lock.readLock().tryLock()) {
+            return null;
+        }
+        try {
+            if (!open) {
+                return null;
+            }
+            byte[] id = ciId.getBytes(StandardCharsets.UTF_8);
+            long pos = index.find(hash(id), id, data);
+            if (pos < 0 || data.isDeleted(pos)) {
+                return null;
+            }
+            hits.increment();
+            return data.readFields(pos);
+        } catch (RuntimeException e) {
+            log.debug("CMDB snapshot lookup failed for CI {}: {}", ciId, e.getMessage());
+            return null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public String getCursor() {
+        lock.readLock().lock();
+        try {
+            return cursor;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * ✍️ APPLY: Upsert changed CIs and remove deleted ones. Not durable until {@link #commit}.
+     */
+    public void apply(Map<String, CmdbCiData> changed, Collection<String> deleted) throws IOException {
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            for (Map.Entry<String, CmdbCiData> change : changed.entrySet()) {
+                if (change.getValue().isFound()) {
+                    write(change.getKey(), change.getValue());
+                } else {
+                    remove(change.getKey());
+                }
+            }
+            for (String ciId : deleted) {
+                remove(ciId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 💾 COMMIT: Flush applied changes and record the feed cursor they correspond to.
+     */
+    public void commit(String newCursor) throws IOException {
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            data.force();
+            cursor = newCursor;
+            writeMeta();
+            lastCommitAt = System.currentTimeMillis();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 🧹 COMPACT: Rewrite live records into a new generation once superseded records take up
+     * more space than live ones. Returns true if a compaction ran.
+     */
+    public boolean compactIfNeeded() throws IOException {
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            long liveBytes = data.writePos - HEADER_BYTES - garbageBytes;
+            if (garbageBytes < MIN_COMPACT_GARBAGE_BYTES || garbageBytes < liveBytes) {
+                return false;
+            }
+
+            long nextGeneration = generation + 1;
+            Files.deleteIfExists(dataPath(nextGeneration));
+            DataFile compacted = new DataFile(dataPath(nextGeneration));
+            IndexTable compactedIndex = new IndexTable(directory, IndexTable.slotsFor(liveCount));
+            for (int slot = 0; slot < index.slots; slot++) {
+                long pos = index.positionAt(slot);
+                if (pos < 0 || data.isDeleted(pos)) {
+                    continue;
+                }
+                compactedIndex.insert(index.hashAt(slot), compacted.copyFrom(data, pos));
+            }
+            compacted.force();
+
+            DataFile previous = data;
+            index.close();
+            data = compacted;
+            index = compactedIndex;
+            generation = nextGeneration;
+            garbageBytes = 0;
+            writeMeta();
+
+            previous.close();
+            Files.deleteIfExists(dataPath(nextGeneration - 1));
+            compactions.increment();
+            log.info("CMDB snapshot compacted to generation {} with {} CIs", generation, liveCount);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", enabled);
+        metrics.put("open", open);
+        lock.readLock().lock();
+        try {
+            if (open) {
+                metrics.put("directory", directory.toString());
+                metrics.put("generation", generation);
+                metrics.put("cis", liveCount);
+                metrics.put("dataBytes", data.writePos);
+                metrics.put("garbageBytes", garbageBytes);
+                metrics.put("indexSlots", index.slots);
+                metrics.put("cursor", cursor);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        metrics.put("lastCommitAt", lastCommitAt);
+        metrics.put("lookups", lookups.sum());
+        metrics.put("hits", hits.sum());
+        metrics.put("compactions", compactions.sum());
+        return metrics;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (!open) {
+            throw new IOException("CMDB snapshot is not open");
+        }
+    }
+
+    private void write(String ciId, CmdbCiData ci) throws IOException {
+        byte[] id = ciId.getBytes(StandardCharsets.UTF_8);
+        if (id.length == 0 || id.length > MAX_ID_BYTES) {
+            log.warn("Skipping CI with unsupported id length {} in CMDB snapshot", id.length);
+            return;
+        }
+        byte[][] values = new byte[FIELDS.length][];
+        for (int i = 0; i < FIELDS.length; i++) {
+            Object value = ci.getFields().get(FIELDS[i]);
+            values[i] = value == null ? EMPTY : String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+            if (values[i].length > MAX_FIELD_BYTES) {
+                values[i] = EMPTY;
+            }
+        }
+        record(id, data.append((byte) 0, id, values));
+    }
+
+    private void remove(String ciId) throws IOException {
+        byte[] id = ciId.getBytes(StandardCharsets.UTF_8);
+        long pos = index.find(hash(id), id, data);
+        if (pos >= 0 && !data.isDeleted(pos)) {
+            record(id, data.append(FLAG_DELETED, id, null));
+        }
+    }
+
+    /**
+     * Point the index at the record at {@code pos}, accounting for the record it replaces.
+     */
+    private void record(byte[] id, long pos) throws IOException {
+        boolean deleted = data.isDeleted(pos);
+        long hash = hash(id);
+        long previous = index.find(hash, id, data);
+        if (previous >= 0) {
+            garbageBytes += data.lengthAt(previous);
+            if (!data.isDeleted(previous)) {
+                liveCount--;
+            }
+            index.replace(hash, id, data, pos);
+        } else if (!deleted) {
+            if (index.needsGrowth()) {
+                IndexTable grown = index.grow(directory);
+                index.close();
+                index = grown;
+            }
+            index.insert(hash, pos);
+        }
+
+        if (deleted) {
+            garbageBytes += data.lengthAt(pos);
+        } else {
+            liveCount++;
+        }
+    }
+
+    private void rebuildIndex(long committed) throws IOException {
+        long pos = HEADER_BYTES;
+        while (pos < committed) {
+            long next = data.nextRecord(pos);
+            if (next != pos) {
+                pos = next;
+                continue;
+            }
+            int length = data.lengthAt(pos);
+            if (length <= RECORD_ID || length > MAX_RECORD_BYTES || pos % SEGMENT_BYTES + length > SEGMENT_BYTES) {
+                log.warn("CMDB snapshot is corrupt at offset {}, truncating", pos);
+                break;
+            }
+            record(data.readId(pos), pos);
+            pos += length;
+        }
+        data.writePos = pos;
+        data.forcedPos = pos;
+    }
+
+    private Path resolveDirectory() {
+        if (configuredDirectory != null) {
+            return Paths.get(configuredDirectory);
+        }
+        JiraHome jiraHome = ComponentAccessor.getComponent(JiraHome.class);
+        return Paths.get(jiraHome.getLocalHomePath(), "itil", "cmdb-snapshot");
+    }
+
+    private Path dataPath(long gen) {
+        return directory.resolve("cis-" + gen + ".dat");
+    }
+
+    private Properties readMeta() throws IOException {
+        Properties meta = new Properties();
+        Path path = directory.resolve(META_FILE);
+        if (Files.exists(path)) {
+            try (InputStream in = Files.newInputStream(path)) {
+                meta.load(in);
+            }
+        }
+        return meta;
+    }
+
+    /**
+     * Written to a temporary file and moved into place, so a crash leaves the previous commit.
+     */
+    private void writeMeta() throws IOException {
+        Properties meta = new Properties();
+        meta.setProperty("generation", String.valueOf(generation));
+        meta.setProperty("writePos", String.valueOf(data.writePos));
+        if (cursor != null) {
+            meta.setProperty("cursor", cursor);
+        }
+        Path tmp = directory.resolve(META_FILE + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            meta.store(out, "ITIL CMDB snapshot");
+        }
+        Files.move(tmp, directory.resolve(META_FILE),
+            StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static long hash(byte[] id) {
+        long hash = FNV_OFFSET_BASIS;
+        for (byte b : id) {
+            hash ^= (b & 0xff);
+            hash *= FNV_PRIME;
+        }
+        return hash == 0 ? 1 : hash;
+    }
+
+    /**
+     * Append-only record file, mapped segment by segment. A record never spans two segments;
+     * the unused tail of a segment is marked with a zero length.
+     */
+    private static final class DataFile {
+        private final FileChannel channel;
+        private final List<MappedByteBuffer> segments = new ArrayList<>();
+        long writePos;
+        private long forcedPos = HEADER_BYTES;
+
+        DataFile(Path path) throws IOException {
+            boolean created = !Files.exists(path);
+            this.channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            if (created) {
+                MappedByteBuffer first = segment(0);
+                first.putInt(0, MAGIC).putInt(4, VERSION);
+                first.force();
+            }
+            this.writePos = HEADER_BYTES;
+        }
+
+        boolean hasValidHeader() throws IOException {
+            MappedByteBuffer first = segment(0);
+            return first.getInt(0) == MAGIC && first.getInt(4) == VERSION;
+        }
+
+        MappedByteBuffer segment(long pos) throws IOException {
+            int n = (int) (pos / SEGMENT_BYTES);
+            while (segments.size() <= n) {
+                segments.add(channel.map(FileChannel.MapMode.READ_WRITE, segments.size() * SEGMENT_BYTES, SEGMENT_BYTES));
+            }
+            return segments.get(n);
+        }
+
+        private MappedByteBuffer mapped(long pos) {
+            return segments.get((int) (pos / SEGMENT_BYTES));
+        }
+
+        private static int offset(long pos) {
+            return (int) (pos % SEGMENT_BYTES);
+        }
+
+        /**
+         * {@code pos} if a record starts there, otherwise the start of the next segment.
+         */
+        long nextRecord(long pos) throws IOException {
+            long remaining = SEGMENT_BYTES - offset(pos);
+            if (remaining < 4 || segment(pos).getInt(offset(pos)) == 0) {
+                return pos + remaining;
+            }
+            return pos;
+        }
+
+        int lengthAt(long pos) {
+            return mapped(pos).getInt(offset(pos));
+        }
+
+        boolean isDeleted(long pos) {
+            return (mapped(pos).get(offset(pos) + RECORD_FLAGS) & FLAG_DELETED) != 0;
+        }
+
+        byte[] readId(long pos) {
+            ByteBuffer view = mapped(pos).duplicate();
+            view.position(offset(pos) + RECORD_ID_LENGTH);
+            byte[] id = new byte[view.getShort()];
+            view.get(id);
+            return id;
+        }
+
+        boolean idEquals(long pos, byte[] id) {
+            MappedByteBuffer segment = mapped(pos);
+            int off = offset(pos);
+            if (segment.getShort(off + RECORD_ID_LENGTH) != id.length) {
+                return false;
+            }
+            for (int i = 0; i < id.length; i++) {
+                if (segment.get(off + RECORD_ID + i) != id[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        CmdbCiData readFields(long pos) {
+            ByteBuffer view = mapped(pos).duplicate();
+            view.position(offset(pos) + RECORD_ID_LENGTH);
+            view.position(view.position() + 2 + view.getShort());
+            Map<String, Object> fields = new LinkedHashMap<>();
+            for (String field : FIELDS) {
+                byte[] value = new byte[view.getShort()];
+                view.get(value);
+                if (value.length > 0 || !"cmdbViewUrl".equals(field)) {
+                    fields.put(field, new String(value, StandardCharsets.UTF_8));
+                }
+            }
+            return CmdbCiData.found(fields);
+        }
+
+        long append(byte flags, byte[] id, byte[][] values) throws IOException {
+            int length = RECORD_ID + id.length;
+            if (values != null) {
+                for (byte[] value : values) length += 2 + value.length;
+            }
+            long pos = reserve(length);
+            ByteBuffer view = segment(pos).duplicate();
+            view.position(offset(pos));
+            view.putInt(length).put(flags).putShort((short) id.length).put(id);
+            if (values != null) {
+                for (byte[] value : values) {
+                    view.putShort((short) value.length).put(value);
+                }
+            }
+            writePos = pos + length;
+            return pos;
+        }
+
+        long copyFrom(DataFile source, long sourcePos) throws IOException {
+            int length = source.lengthAt(sourcePos);
+            ByteBuffer from = source.mapped(sourcePos).duplicate();
+            from.position(offset(sourcePos)).limit(offset(sourcePos) + length);
+            long pos = reserve(length);
+            ByteBuffer to = segment(pos).duplicate();
+            to.position(offset(pos));
+            to.put(from);
+            writePos = pos + length;
+            return pos;
+        }
+
+        private long reserve(int length) throws IOException {
+            long pos = writePos;
+            long remaining = SEGMENT_BYTES - offset(pos);
+            if (length > remaining) {
+                if (remaining >= 4) {
+                    segment(pos).putInt(offset(pos), 0);
+                }
+                pos += remaining;
+            }
+            segment(pos);
+            return pos;
+        }
+
+        /**
+         * Flush the segments written since the last force; forcing a whole 256 MB mapping is
+         * far more expensive than the few pages a sync page dirties.
+         */
+        void force() {
+            int first = (int) (forcedPos / SEGMENT_BYTES);
+            int last = (int) (Math.max(writePos - 1, 0) / SEGMENT_BYTES);
+            for (int n = first; n <= last && n < segments.size(); n++) {
+                segments.get(n).force();
+            }
+            forcedPos = writePos;
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.debug("Error closing CMDB snapshot data file: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Open-addressing hash index in a mapped temporary file: per slot the 64-bit id hash
+     * and the record position plus one (zero marks an empty slot). Linear probing.
+     */
+    private static final class IndexTable {
+        private static final int SLOT_BYTES = 16;
+
+        private final FileChannel channel;
+        private final MappedByteBuffer slotsBuffer;
+        final int slots;
+        private int used;
+
+        IndexTable(Path directory, int slots) throws IOException {
+            this.slots = slots;
+            Path path = Files.createTempFile(directory, "cis-", ".idx");
+            this.channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.DELETE_ON_CLOSE);
+            this.slotsBuffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) slots * SLOT_BYTES);
+        }
+
+        static int slotsFor(long entries) {
+            int slots = MIN_INDEX_SLOTS;
+            while (slots < MAX_INDEX_SLOTS && slots * MAX_INDEX_LOAD <= entries) {
+                slots <<= 1;
+            }
+            return slots;
+        }
+
+        long hashAt(int slot) {
+            return slotsBuffer.getLong(slot * SLOT_BYTES);
+        }
+
+        long positionAt(int slot) {
+            return slotsBuffer.getLong(slot * SLOT_BYTES + 8) - 1;
+        }
+
+        private int home(long hash) {
+            return (int) ((hash ^ (hash >>> 32)) & (slots - 1));
+        }
+
+        private int slotOf(long hash, byte[] id, DataFile data) {
+            for (int slot = home(hash), probes = 0; probes < slots; slot = (slot + 1) & (slots - 1), probes++) {
+                long h = hashAt(slot);
+                if (h == 0) {
+                    return -1;
+                }
+                if (h == hash && data.idEquals(positionAt(slot), id)) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        long find(long hash, byte[] id, DataFile data) {
+            int slot = slotOf(hash, id, data);
+            return slot < 0 ? -1 : positionAt(slot);
+        }
+
+        void replace(long hash, byte[] id, DataFile data, long pos) {
+            slotsBuffer.putLong(slotOf(hash, id, data) * SLOT_BYTES + 8, pos + 1);
+        }
+
+        void insert(long hash, long pos) {
+            int slot = home(hash);
+            while (hashAt(slot) != 0) {
+                slot = (slot + 1) & (slots - 1);
+            }
+            slotsBuffer.putLong(slot * SLOT_BYTES, hash);
+            slotsBuffer.putLong(slot * SLOT_BYTES + 8, pos + 1);
+            used++;
+        }
+
+        boolean needsGrowth() {
+            return slots < MAX_INDEX_SLOTS && used + 1 > slots * MAX_INDEX_LOAD;
+        }
+
+        IndexTable grow(Path directory) throws IOException {
+            IndexTable grown = new IndexTable(directory, slots << 1);
+            for (int slot = 0; slot < slots; slot++) {
+                long h = hashAt(slot);
+                if (h != 0) {
+                    grown.insert(h, positionAt(slot));
+                }
+            }
+            return grown;
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.debug("Error closing CMDB snapshot index: {}", e.getMessage());
+            }
+        }
+    }
+}
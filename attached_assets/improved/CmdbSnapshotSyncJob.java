@@ -0,0 +1,137 @@
+package com.example.itil.jobs;
+
+import com.atlassian.scheduler.JobRunner;
+import com.atlassian.scheduler.JobRunnerRequest;
+import com.atlassian.scheduler.JobRunnerResponse;
+import com.atlassian.scheduler.SchedulerService;
+import com.atlassian.scheduler.SchedulerServiceException;
+import com.atlassian.scheduler.config.JobConfig;
+import com.atlassian.scheduler.config.JobId;
+import com.atlassian.scheduler.config.JobRunnerKey;
+import com.atlassian.scheduler.config.RunMode;
+import com.atlassian.scheduler.config.Schedule;
+import com.example.itil.cmdb.CmdbChangePage;
+import com.example.itil.cmdb.CmdbCiCache;
+import com.example.itil.cmdb.CmdbClient;
+import com.example.itil.cmdb.CmdbSnapshotStore;
+import com.example.itil.config.PluginConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.io.IOException;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 🔄 SYNC: Keeps this node's {@link CmdbSnapshotStore} current with incremental
+ * "changed since" pulls from the CMDB.
+ *
+ * Every node holds its own snapshot, so the job runs locally on each node. The first
+ * run opens the store (rebuilding its index) and, for an empty store, pulls the full
+ * asset list; later runs only pull changes after the committed cursor.
+ */
+@Named
+public class CmdbSnapshotSyncJob implements JobRunner {
+    private static final Logger log = LoggerFactory.getLogger(CmdbSnapshotSyncJob.class);
+
+    static final JobRunnerKey JOB_RUNNER_KEY = JobRunnerKey.of(CmdbSnapshotSyncJob.class.getName());
+    static final JobId JOB_ID = JobId.of(CmdbSnapshotSyncJob.class.getName());
+
+    // Configuration defaults
+    private static final long DEFAULT_INTERVAL_SECONDS = 300;
+    private static final int DEFAULT_PAGE_SIZE = 5000;
+    private static final int DEFAULT_MAX_PAGES = 1000;
+
+    private final SchedulerService schedulerService;
+    private final CmdbClient cmdbClient;
+    private final CmdbSnapshotStore snapshotStore;
+    private final CmdbCiCache ciCache;
+    private final long intervalMs;
+    private final int pageSize;
+    private final int maxPagesPerRun;
+
+    @Inject
+    public CmdbSnapshotSyncJob(SchedulerService schedulerService, CmdbClient cmdbClient,
+                               CmdbSnapshotStore snapshotStore, CmdbCiCache ciCache) {
+        this.schedulerService = schedulerService;
+        this.cmdbClient = cmdbClient;
+        this.snapshotStore = snapshotStore;
+        this.ciCache = ciCache;
+        this.intervalMs = TimeUnit.SECONDS.toMillis(Math.max(1,
+            PluginConfiguration.getLong("cmdb.snapshot.sync.interval.seconds", DEFAULT_INTERVAL_SECONDS)));
+        this.pageSize = Math.max(1, PluginConfiguration.getInt("cmdb.snapshot.sync.page.size", DEFAULT_PAGE_SIZE));
+        this.maxPagesPerRun = Math.max(1, PluginConfiguration.getInt("cmdb.snapshot.sync.max.pages", DEFAULT_MAX_PAGES));
+    }
+
+    @PostConstruct
+    public void register() {
+        if (!snapshotStore.isEnabled()) {
+            log.debug("CMDB snapshot disabled, sync job not scheduled");
+            return;
+        }
+        schedulerService.registerJobRunner(JOB_RUNNER_KEY, this);
+        try {
+            schedulerService.scheduleJob(JOB_ID, JobConfig.forJobRunnerKey(JOB_RUNNER_KEY)
+                .withRunMode(RunMode.RUN_LOCALLY)
+                .withSchedule(Schedule.forInterval(intervalMs, new Date())));
+            log.info("CMDB snapshot sync scheduled every {} seconds", TimeUnit.MILLISECONDS.toSeconds(intervalMs));
+        } catch (SchedulerServiceException e) {
+            log.error("Unable to schedule CMDB snapshot sync: {}", e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void unregister() {
+        if (!snapshotStore.isEnabled()) {
+            return;
+        }
+        schedulerService.unscheduleJob(JOB_ID);
+        schedulerService.unregisterJobRunner(JOB_RUNNER_KEY);
+    }
+
+    @Override
+    public JobRunnerResponse runJob(JobRunnerRequest request) {
+        if (!cmdbClient.isConfigured()) {
+            return JobRunnerResponse.aborted("CMDB integration not configured");
+        }
+
+        try {
+            snapshotStore.open();
+
+            int pages = 0;
+            int changes = 0;
+            CmdbChangePage page;
+            do {
+                if (request.isCancellationRequested()) {
+                    return JobRunnerResponse.aborted("Cancelled after " + changes + " changes");
+                }
+                page = cmdbClient.fetchChanges(snapshotStore.getCursor(), pageSize);
+                if (page == null) {
+                    return JobRunnerResponse.failed("CMDB change feed unavailable after " + changes + " changes");
+                }
+
+                snapshotStore.apply(page.getChanged(), page.getDeleted());
+                snapshotStore.commit(page.getCursor());
+
+                // Drop cached copies so the next view reads the updated snapshot
+                for (String ciId : page.getChanged().keySet()) ciCache.invalidate(ciId);
+                for (String ciId : page.getDeleted()) ciCache.invalidate(ciId);
+
+                changes += page.size();
+                pages++;
+            } while (page.hasMore() && pages < maxPagesPerRun);
+
+            snapshotStore.compactIfNeeded();
+            log.debug("CMDB snapshot sync applied {} changes in {} pages", changes, pages);
+            return JobRunnerResponse.success(changes + " changes");
+
+        } catch (IOException e) {
+            log.error("CMDB snapshot sync failed: {}", e.getMessage(), e);
+            return JobRunnerResponse.failed(e);
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.example.itil.rest;
+
+import javax.ws.rs.*;
+import javax.ws.rs.core.*;
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.atlassian.sal.api.user.UserKey;
+import com.atlassian.sal.api.user.UserManager;
+
+import com.example.itil.routing.L1Router;
+import com.example.itil.security.WebhookAuthenticationService;
+import com.example.itil.security.WebhookRateLimiter;
+import com.example.itil.validation.WebhookValidator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 🔧 CONFIG: Administration of runtime plugin settings.
+ *
+ * Settings are persisted in Jira's plugin settings, so they survive restarts and are
+ * shared by all cluster nodes.
+ */
+@Path("/config")
+@Consumes(MediaType.APPLICATION_JSON)
+@Produces(MediaType.APPLICATION_JSON)
+@Named
+public class ConfigurationResource {
+
+    private static final Logger log = LoggerFactory.getLogger(ConfigurationResource.class);
+
+    private final UserManager userManager;
+    private final WebhookRateLimiter rateLimiter;
+    private final WebhookValidator validator;
+    private final WebhookAuthenticationService authService;
+    private final L1Router l1Router;
+
+    @Inject
+    public ConfigurationResource(UserManager userManager, WebhookRateLimiter rateLimiter,
+                                 WebhookValidator validator, WebhookAuthenticationService authService,
+                                 L1Router l1Router) {
+        this.userManager = userManager;
+        this.rateLimiter = rateLimiter;
+        this.validator = validator;
+        this.authService = authService;
+        this.l1Router = l1Router;
+    }
+
+    /**
+     * 🚦 RATE LIMITS: Current per-source and per-IP webhook limits
+     */
+    @GET
+    @Path("/rate-limits")
+    public Response getRateLimits() {
+        if (!isAdmin()) {
+            return forbidden();
+        }
+        return Response.ok(rateLimiter.getLimits().toJson().toString()).build();
+    }
+
+    /**
+     * 🚦 RATE LIMITS: Replace the webhook limits; omitted sections keep their current values.
+     * Body: {@code {"source": {"perSecond": 50, "burst": 100}, "ip": {...},
+     * "sources": {"prometheus": {"perSecond": 200, "burst": 400}}}}; a rate of 0 disables a limit.
+     */
+    @PUT
+    @Path("/rate-limits")
+    public Response updateRateLimits(String body) {
+        if (!isAdmin()) {
+            return forbidden();
+        }
+        WebhookRateLimiter.Limits updated;
+        try {
+            updated = WebhookRateLimiter.Limits.fromJson(new JSONObject(body), rateLimiter.getLimits());
+        } catch (JSONException | IllegalArgumentException e) {
+            return badRequest("Invalid rate limit configuration: " + e.getMessage());
+        }
+        rateLimiter.updateLimits(updated);
+        log.info("Webhook rate limits changed by {}", userManager.getRemoteUserKey());
+        return Response.ok(updated.toJson().toString()).build();
+    }
+
+    /**
+     * 🚦 RATE LIMITS: Discard saved limits and return to the configured defaults
+     */
+    @DELETE
+    @Path("/rate-limits")
+    public Response resetRateLimits() {
+        if (!isAdmin()) {
+            return forbidden();
+        }
+        rateLimiter.resetLimits();
+        log.info("Webhook rate limits reset by {}", userManager.getRemoteUserKey());
+        return Response.ok(rateLimiter.getLimits().toJson().toString()).build();
+    }
+
+    /**
+     * 🌐 ALLOWLIST: CIDR ranges webhook clients must connect from
+     */
+    @GET
+    @Path("/ip-allowlist")
+    public Response getIpAllowlist() {
+        if (!isAdmin()) {
+            return forbidden();
+        }
+        return Response.ok(WebhookValidator.toJson(validator.getAllowlist()).toString()).build();
+    }
+
+    /**
+     * 🌐 ALLOWLIST: Replace the allowed ranges. Body: {@code {"ranges": ["10.20.0.0/16",
+     * "2001:db8::/32", "192.0.2.10"]}}; an empty list denies every client.
+     */
+    @PUT
+    @Path("/ip-allowlist")
+    public Response updateIpAllowlist(String body) {
+        if (!isAdmin()) {
+            return forbidden();
+        }
+        try {
+            List<String> ranges = toList(new JSONObject(body).getJSONArray("ranges"));
+            JSONObject updated = WebhookValidator.toJson(validator.updateAllowlist(ranges));
+            log.info("Webhook IP allowlist changed by {}", userManager.getRemoteUserKey());
+            return Response.ok(updated.toString()).build();
+        } catch (JSONException | IllegalArgumentException e) {
+            return badRequest("Invalid IP allowlist: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 🌐 ALLOWLIST: Discard the saved ranges and return to the configured defaults
+     */
+    @DELETE
+    @Path("/ip-allowlist")
+    public Response resetIpAllowlist() {
+        if (!isAdmin()) {
+            return forbidden();
+        }
+        JSONObject defaults = WebhookValidator.toJson(validator.resetAllowlist());
+        log.info("Webhook IP allowlist reset by {}", userManager.getRemoteUserKey());
+        return Response.ok(defaults.toString()).build();
+    }
+
+    /**
+     * 🔑 CREDENTIALS: Sources with saved webhook credentials; secrets are never returned
+     */
+    @GET
+    @Path("/webhook-credentials")
+    public Response getWebhookCredentials() {
+        if (!isAdmin()) {
+            return forbidden();
+        }
+        JSONObject response = new JSONObject();
+        response.put("sources", authService.describeCredentials());
+        return Response.ok(response.toString()).build();
+    }
+
+    /**
+     * 🔑 CREDENTIALS: Replace a source's bearer token and signing secrets. Body:
+     * {@code {"token": "...", "secrets": ["new", "old"]}}; to rotate, save the new secret
+     * first in the list, switch the sender over, then save it alone.
+     */
+    @PUT
+    @Path("/webhook-credentials/{source}")
+    public Response updateWebhookCredentials(@PathParam("source") String source, String body) {
+        if (!isAdmin()) {
+            return forbidden();
+        }
+        if (!validator.isValidWebhookSource(source)) {
+            return badRequest("Invalid webhook source: " + source);
+        }
+        try {
+            JSONObject json = new JSONObject(body);
+            authService.updateCredentials(source, json.optString("token", null),
+                toList(json.optJSONArray("secrets")));
+        } catch (JSONException | IllegalArgumentException e) {
+            return badRequest("Invalid webhook credentials: " + e.getMessage());
+        }
+        log.info("Webhook credentials for {} changed by {}", source, userManager.getRemoteUserKey());
+        return getWebhookCredentials();
+    }
+
+    /**
+     * 🔑 CREDENTIALS: Remove a source's saved credentials
+     */
+    @DELETE
+    @Path("/webhook-credentials/{source}")
+    public Response removeWebhookCredentials(@PathParam("source") String source) {
+        if (!isAdmin()) {
+            return forbidden();
+        }
+        if (!authService.removeCredentials(source)) {
+            return error(Response.Status.NOT_FOUND, "No saved credentials for source " + source);
+        }
+        log.info("Webhook credentials for {} removed by {}", source, userManager.getRemoteUserKey());
+        return getWebhookCredentials();
+    }
+
+    /**
+     * 🧭 ROUTING: Current L1 assignment rules
+     */
+    @GET
+    @Path("/l1-routing")
+    public Response getL1Routing() {
+        if (!isAdmin()) {
+            return forbidden();
+        }
+        return Response.ok(l1Router.toJson(l1Router.getTable()).toString()).build();
+    }
+
+    /**
+     * 🧭 ROUTING: Replace the L1 assignment rules. Body: {@code {"rules": [{"service": "Network",
+     * "environment": ["prod", "staging"], "hours": "08:00-18:00", "assignee": "netops"}, ...]}};
+     * the most specific (service, CI) match wins, then table order.
+     */
+    @PUT
+    @Path("/l1-routing")
+    public Response updateL1Routing(String body) {
+        if (!isAdmin()) {
+            return forbidden();
+        }
+        try {
+            JSONObject updated = l1Router.toJson(l1Router.updateRules(new JSONObject(body).getJSONArray("rules")));
+            log.info("L1 routing rules changed by {}", userManager.getRemoteUserKey());
+            return Response.ok(updated.toString()).build();
+        } catch (JSONException | IllegalArgumentException e) {
+            return badRequest("Invalid L1 routing rules: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 🧭 ROUTING: Discard the saved rules and return to the configured defaults
+     */
+    @DELETE
+    @Path("/l1-routing")
+    public Response resetL1Routing() {
+        if (!isAdmin()) {
+            return forbidden();
+        }
+        JSONObject defaults = l1Router.toJson(l1Router.resetRules());
+        log.info("L1 routing rules reset by {}", userManager.getRemoteUserKey());
+        return Response.ok(defaults.toString()).build();
+    }
+
+    /**
+     * 🔒 SECURITY: Configuration changes are restricted to system administrators
+     */
+    private boolean isAdmin() {
+        UserKey userKey = userManager.getRemoteUserKey();
+        if (userKey == null || !userManager.isSystemAdmin(userKey)) {
+            log.debug("Rejected configuration request from non-admin user {}", userKey);
+            return false;
+        }
+        return true;
+    }
+
+    private static List<String> toList(JSONArray array) {
+        List<String> values = new ArrayList<>();
+        if (array != null) {
+            for (int i = 0; i < array.length(); i++) {
+                values.add(array.getString(i));
+            }
+        }
+        return values;
+    }
+
+    private Response forbidden() {
+        return error(Response.Status.FORBIDDEN, "Administrator access required");
+    }
+
+    private Response badRequest(String message) {
+        return error(Response.Status.BAD_REQUEST, message);
+    }
+
+    private Response error(Response.Status status, String message) {
+        JSONObject error = new JSONObject();
+        error.put("success", false);
+        error.put("error", message);
+        error.put("timestamp", System.currentTimeMillis());
+        return Response.status(status).entity(error.toString()).build();
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.itil.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 🌐 CLUSTER: Immutable consistent-hash ring assigning numeric keys to nodes.
+ *
+ * Each node is placed at {@code virtualNodes} points so keys spread evenly; when a node
+ * joins or leaves only the keys next to its points change owner. Points are a sorted
+ * long array, so a lookup is one binary search.
+ */
+public final class ConsistentHashRing {
+
+    private final long[] points;
+    private final String[] owners;
+    private final List<String> nodes;
+
+    public ConsistentHashRing(Collection<String> nodeIds, int virtualNodes) {
+        List<String> sorted = new ArrayList<>(nodeIds);
+        Collections.sort(sorted);
+        int perNode = Math.max(1, virtualNodes);
+
+        long[] hashes = new long[sorted.size() * perNode];
+        int[] nodeOf = new int[hashes.length];
+        for (int n = 0; n < sorted.size(); n++) {
+            long base = hash(sorted.get(n));
+            for (int v = 0; v < perNode; v++) {
+                hashes[n * perNode + v] = mix(base + v * 0x9E3779B97F4A7C15L);
+                nodeOf[n * perNode + v] = n;
+            }
+        }
+
+        // Sort point indexes by hash, ties broken by node order so every node agrees
+        Integer[] order = new Integer[hashes.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> hashes[a] != hashes[b] ? Long.compare(hashes[a], hashes[b]) : Integer.compare(a, b));
+        this.points = new long[order.length];
+        this.owners = new String[order.length];
+        for (int i = 0; i < order.length; i++) {
+            points[i] = hashes[order[i]];
+            owners[i] = sorted.get(nodeOf[order[i]]);
+        }
+        this.nodes = Collections.unmodifiableList(sorted);
+    }
+
+    /**
+     * Node owning {@code key}, or null if the ring is empty.
+     */
+    public String ownerOf(long key) {
+        if (points.length == 0) {
+            return null;
+        }
+        int at = Arrays.binarySearch(points, mix(key));
+        int index = at >= 0 ? at : -at - 1;
+        return owners[index == points.length ? 0 : index];
+    }
+
+    public List<String> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * FNV-1a over the UTF-8 bytes, so every node computes the same points.
+     */
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * SplitMix64 finalizer, so consecutive issue ids land far apart on the ring.
+     */
+    private static long mix(long value) {
+        long z = value;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
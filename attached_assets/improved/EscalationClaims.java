@@ -0,0 +1,104 @@
+package com.example.itil.sla;
+
+/**
+ * 🎟️ SLA: Cluster-wide record of the escalation level reached by each issue.
+ *
+ * A node escalates only after winning the claim for the level, so during a rebalance,
+ * when two nodes briefly both think they own an issue, at most one of them acts. The
+ * claim stays pending until the winner reports the level {@link #applied}; a pending
+ * claim older than the caller's takeover time can be won again, so an escalation that
+ * failed part-way is finished by a later run instead of being lost.
+ *
+ * Every won claim carries a fencing token one higher than the last. {@link #applied}
+ * only succeeds for the token currently on record, so a claimant that stalled past the
+ * takeover time finds out it lost the level before it comments, and the level is
+ * commented on once.
+ */
+public interface EscalationClaims {
+
+    /**
+     * Atomically claim {@code level} for the issue unless it was already applied or is
+     * pending for less than {@code takeoverMs}.
+     */
+    Claim claim(Long issueId, int level, long atMillis, long takeoverMs);
+
+    /**
+     * Record the claimed level as applied, if {@code claim} is still the latest claim.
+     *
+     * @return false if the claim was taken over since; the caller must not go on
+     */
+    boolean applied(Long issueId, Claim claim, long atMillis);
+
+    /**
+     * Outcome of a {@link #claim}.
+     */
+    final class Claim {
+        enum Outcome { WON, REACHED, PENDING }
+
+        private final Outcome outcome;
+        private final int level;
+        private final int appliedLevel;
+        private final long retryAt;
+        private final long token;
+
+        private Claim(Outcome outcome, int level, int appliedLevel, long retryAt, long token) {
+            this.outcome = outcome;
+            this.level = level;
+            this.appliedLevel = appliedLevel;
+            this.retryAt = retryAt;
+            this.token = token;
+        }
+
+        /**
+         * Decide a claim for {@code level} against the recorded state: the highest level
+         * claimed, the highest applied, when the claim was made and its token.
+         */
+        static Claim decide(int claimedLevel, int appliedLevel, long claimedAt, long token,
+                            int level, long atMillis, long takeoverMs) {
+            if (appliedLevel >= level) {
+                return new Claim(Outcome.REACHED, level, appliedLevel, 0, token);
+            }
+            if (claimedLevel >= level && atMillis - claimedAt < takeoverMs) {
+                return new Claim(Outcome.PENDING, level, appliedLevel, claimedAt + takeoverMs, token);
+            }
+            return new Claim(Outcome.WON, level, appliedLevel, 0, token + 1);
+        }
+
+        public boolean isWon() {
+            return outcome == Outcome.WON;
+        }
+
+        /**
+         * The issue already reached the level; {@link #getAppliedLevel()} says how far.
+         */
+        public boolean isReached() {
+            return outcome == Outcome.REACHED;
+        }
+
+        /**
+         * Another claimant is still applying the level; try again at {@link #getRetryAt()}.
+         */
+        public boolean isPending() {
+            return outcome == Outcome.PENDING;
+        }
+
+        public int getLevel() {
+            return level;
+        }
+
+        public int getAppliedLevel() {
+            return appliedLevel;
+        }
+
+        /**
+         * Fencing token of a won claim; the token on record for any other outcome.
+         */
+        public long getToken() {
+            return token;
+        }
+
+        public long getRetryAt() {
+            return retryAt;
+        }
+    }
+}
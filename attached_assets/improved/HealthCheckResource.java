@@ -0,0 +1,333 @@
+package com.example.itil.rest;
+
+import javax.ws.rs.*;
+import javax.ws.rs.core.*;
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.atlassian.plugins.rest.common.security.AnonymousAllowed;
+import com.atlassian.sal.api.user.UserKey;
+import com.atlassian.sal.api.user.UserManager;
+
+import com.example.itil.cmdb.CmdbCiCache;
+import com.example.itil.cmdb.CmdbClient;
+import com.example.itil.cmdb.CmdbSnapshotStore;
+import com.example.itil.config.PluginConfiguration;
+import com.example.itil.metrics.PipelineMetrics;
+import com.example.itil.routing.L1Router;
+import com.example.itil.security.WebhookAuthenticationService;
+import com.example.itil.security.WebhookRateLimiter;
+import com.example.itil.service.AlertDeduplicator;
+import com.example.itil.service.AlertIngestionQueue;
+import com.example.itil.service.IdempotencyStore;
+import com.example.itil.service.IncidentCreationLimiter;
+import com.example.itil.service.OpenProblemIndex;
+import com.example.itil.sla.SlaEscalationScheduler;
+import com.example.itil.topology.CiTopologyIndex;
+import com.example.itil.validation.WebhookValidator;
+import com.example.itil.workflow.BulkTransitionService;
+
+@Path("/health")
+@Produces(MediaType.APPLICATION_JSON)
+@Named
+public class HealthCheckResource {
+
+    private static final Logger log = LoggerFactory.getLogger(HealthCheckResource.class);
+
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final String PROMETHEUS_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final UserManager userManager;
+    private final AlertIngestionQueue ingestionQueue;
+    private final AlertDeduplicator deduplicator;
+    private final CmdbCiCache ciCache;
+    private final CmdbClient cmdbClient;
+    private final CmdbSnapshotStore snapshotStore;
+    private final CiTopologyIndex topology;
+    private final OpenProblemIndex problemIndex;
+    private final WebhookRateLimiter rateLimiter;
+    private final IncidentCreationLimiter creationLimiter;
+    private final WebhookValidator validator;
+    private final WebhookAuthenticationService authService;
+    private final SlaEscalationScheduler slaScheduler;
+    private final BulkTransitionService bulkTransitions;
+    private final L1Router l1Router;
+    private final IdempotencyStore idempotencyStore;
+    private final PipelineMetrics pipelineMetrics;
+    private final byte[] scrapeToken;
+    private final boolean anonymousScrape;
+
+    @Inject
+    public HealthCheckResource(UserManager userManager,
+                               AlertIngestionQueue ingestionQueue,
+                               AlertDeduplicator deduplicator,
+                               CmdbCiCache ciCache,
+                               CmdbClient cmdbClient,
+                               CmdbSnapshotStore snapshotStore,
+                               CiTopologyIndex topology,
+                               OpenProblemIndex problemIndex,
+                               WebhookRateLimiter rateLimiter,
+                               IncidentCreationLimiter creationLimiter,
+                               WebhookValidator validator,
+                               WebhookAuthenticationService authService,
+                               SlaEscalationScheduler slaScheduler,
+                               BulkTransitionService bulkTransitions,
+                               L1Router l1Router,
+                               IdempotencyStore idempotencyStore,
+                               PipelineMetrics pipelineMetrics) {
+        this.userManager = userManager;
+        this.ingestionQueue = ingestionQueue;
+        this.deduplicator = deduplicator;
+        this.ciCache = ciCache;
+        this.cmdbClient = cmdbClient;
+        this.snapshotStore = snapshotStore;
+        this.topology = topology;
+        this.problemIndex = problemIndex;
+        this.rateLimiter = rateLimiter;
+        this.creationLimiter = creationLimiter;
+        this.validator = validator;
+        this.authService = authService;
+        this.slaScheduler = slaScheduler;
+        this.bulkTransitions = bulkTransitions;
+        this.l1Router = l1Router;
+        this.idempotencyStore = idempotencyStore;
+        this.pipelineMetrics = pipelineMetrics;
+        String token = PluginConfiguration.getString("health.metrics.scrape.token", null);
+        this.scrapeToken = token == null ? null : token.getBytes(StandardCharsets.UTF_8);
+        this.anonymousScrape = PluginConfiguration.getBoolean("health.metrics.anonymous", false);
+    }
+
+    /**
+     * 💓 LIVENESS: Minimal status for load balancers, no internals exposed
+     */
+    @GET
+    @AnonymousAllowed
+    public Response health() {
+        JSONObject response = new JSONObject();
+        response.put("status", "UP");
+        response.put("timestamp", System.currentTimeMillis());
+        return Response.ok(response.toString()).build();
+    }
+
+    /**
+     * 📊 METRICS: Async alert queue depth, rejections and outcomes
+     */
+    @GET
+    @Path("/alert-queue")
+    public Response alertQueue() {
+        return adminMetrics(ingestionQueue::getMetrics);
+    }
+
+    /**
+     * 📊 METRICS: Alert deduplication window usage
+     */
+    @GET
+    @Path("/alert-dedup")
+    public Response alertDedup() {
+        return adminMetrics(deduplicator::getMetrics);
+    }
+
+    /**
+     * 📊 METRICS: CMDB CI cache hits, misses, evictions and background refreshes
+     */
+    @GET
+    @Path("/cmdb-cache")
+    public Response cmdbCache() {
+        return adminMetrics(ciCache::getMetrics);
+    }
+
+    /**
+     * 📊 METRICS: CMDB bulkhead usage and circuit breaker state
+     */
+    @GET
+    @Path("/cmdb")
+    public Response cmdb() {
+        return adminMetrics(cmdbClient::getMetrics);
+    }
+
+    /**
+     * 📊 METRICS: Local CMDB snapshot size, sync cursor and hit rate
+     */
+    @GET
+    @Path("/cmdb-snapshot")
+    public Response cmdbSnapshot() {
+        return adminMetrics(snapshotStore::getMetrics);
+    }
+
+    /**
+     * 📊 METRICS: CI topology graph size and sync state
+     */
+    @GET
+    @Path("/cmdb-topology")
+    public Response cmdbTopology() {
+        return adminMetrics(topology::getMetrics);
+    }
+
+    /**
+     * 📊 METRICS: Open Problem index size, hit rate and rebuild state
+     */
+    @GET
+    @Path("/problem-index")
+    public Response problemIndex() {
+        return adminMetrics(problemIndex::getMetrics);
+    }
+
+    /**
+     * 📊 METRICS: Webhook rate limiter admissions and rejections per source
+     */
+    @GET
+    @Path("/rate-limits")
+    public Response rateLimits() {
+        return adminMetrics(rateLimiter::getMetrics);
+    }
+
+    /**
+     * 📊 METRICS: Adaptive incident creation limit, in-flight creations and latency
+     */
+    @GET
+    @Path("/incident-limit")
+    public Response incidentLimit() {
+        return adminMetrics(creationLimiter::getMetrics);
+    }
+
+    /**
+     * 📊 METRICS: IP allowlist size and webhook sender validation outcomes
+     */
+    @GET
+    @Path("/ip-allowlist")
+    public Response ipAllowlist() {
+        return adminMetrics(validator::getMetrics);
+    }
+
+    /**
+     * 📊 METRICS: Webhook authentication outcomes, including use of rotated-out secrets
+     */
+    @GET
+    @Path("/webhook-auth")
+    public Response webhookAuth() {
+        return adminMetrics(authService::getMetrics);
+    }
+
+    /**
+     * 📊 METRICS: SLA escalations and the deadline index behind them
+     */
+    @GET
+    @Path("/sla")
+    public Response sla() {
+        return adminMetrics(slaScheduler::getMetrics);
+    }
+
+    /**
+     * 📊 METRICS: Background closing of issues linked to completed Changes
+     */
+    @GET
+    @Path("/bulk-transitions")
+    public Response bulkTransitions() {
+        return adminMetrics(bulkTransitions::getMetrics);
+    }
+
+    /**
+     * 📊 METRICS: L1 routing table size and outcomes
+     */
+    @GET
+    @Path("/l1-routing")
+    public Response l1Routing() {
+        return adminMetrics(l1Router::getMetrics);
+    }
+
+    /**
+     * 📊 METRICS: Webhook idempotency keys and replays
+     */
+    @GET
+    @Path("/idempotency")
+    public Response idempotency() {
+        return adminMetrics(idempotencyStore::getMetrics);
+    }
+
+    /**
+     * 📊 METRICS: Alert pipeline and CMDB stage latency percentiles and request outcomes
+     */
+    @GET
+    @Path("/latency")
+    public Response latency() {
+        return adminMetrics(pipelineMetrics::getMetrics);
+    }
+
+    /**
+     * 📈 PROMETHEUS: Stage histograms, outcome counters and CMDB cache gauges for scraping.
+     * A scraper has no Jira session, so besides system administrators this accepts
+     * {@code Authorization: Bearer <health.metrics.scrape.token>}, or anyone when
+     * {@code health.metrics.anonymous} is set.
+     */
+    @GET
+    @Path("/metrics")
+    @Produces(MediaType.TEXT_PLAIN)
+    @AnonymousAllowed
+    public Response prometheus(@HeaderParam("Authorization") String authHeader) {
+        if (!anonymousScrape && !hasScrapeToken(authHeader) && !isAdmin()) {
+            return Response.status(Response.Status.FORBIDDEN)
+                .entity("Scrape token or administrator access required\n")
+                .type(PROMETHEUS_TYPE)
+                .build();
+        }
+        Map<String, Object> cache = ciCache.getMetrics();
+        Map<String, Number> gauges = new LinkedHashMap<>();
+        gauges.put("cmdb_cache_hit_ratio", (Number) cache.get("hitRatio"));
+        gauges.put("cmdb_cache_entries", (Number) cache.get("entries"));
+        return Response.ok(pipelineMetrics.toPrometheus(gauges))
+            .type(PROMETHEUS_TYPE)
+            .build();
+    }
+
+    /**
+     * 🔒 SECURITY: One component's metrics as JSON, for system administrators only
+     */
+    private Response adminMetrics(Supplier<Map<String, Object>> metrics) {
+        if (!isAdmin()) {
+            return forbidden();
+        }
+        return Response.ok(new JSONObject(metrics.get()).toString()).build();
+    }
+
+    /**
+     * 🔒 SECURITY: Constant-time check of the scraper's bearer token, if one is configured
+     */
+    private boolean hasScrapeToken(String authHeader) {
+        if (scrapeToken == null || authHeader == null
+                || !authHeader.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            return false;
+        }
+        byte[] presented = authHeader.substring(BEARER_PREFIX.length()).trim().getBytes(StandardCharsets.UTF_8);
+        return MessageDigest.isEqual(scrapeToken, presented);
+    }
+
+    /**
+     * 🔒 SECURITY: Detailed metrics are restricted to system administrators
+     */
+    private boolean isAdmin() {
+        UserKey userKey = userManager.getRemoteUserKey();
+        if (userKey == null || !userManager.isSystemAdmin(userKey)) {
+            log.debug("Rejected metrics request from non-admin user {}", userKey);
+            return false;
+        }
+        return true;
+    }
+
+    private Response forbidden() {
+        JSONObject error = new JSONObject();
+        error.put("success", false);
+        error.put("error", "Administrator access required");
+        error.put("timestamp", System.currentTimeMillis());
+        return Response.status(Response.Status.FORBIDDEN).entity(error.toString()).build();
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.itil.listeners;
+
+import com.atlassian.event.api.EventListener;
+import com.atlassian.event.api.EventPublisher;
+import com.atlassian.jira.event.issue.IssueEvent;
+import com.atlassian.jira.event.type.EventType;
+import com.example.itil.service.OpenProblemIndex;
+import com.example.itil.sla.SlaDeadlineIndex;
+import com.example.itil.workflow.BulkTransitionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.inject.Named;
+
+/**
+ * 🔔 EVENTS: Keeps ITIL in-memory state in step with issue changes.
+ *
+ * Creates, edits, transitions (workflow and generic events) and deletes are forwarded
+ * to the {@link OpenProblemIndex} and the {@link SlaDeadlineIndex}; comments and
+ * worklogs cannot change whether an issue is an open Problem or Incident and are ignored.
+ * The event of a completed transition also tells the {@link BulkTransitionService} that a
+ * Change marked for closing its related issues may now be processed.
+ */
+@Named
+public class ITILIssueEventListener {
+    private static final Logger log = LoggerFactory.getLogger(ITILIssueEventListener.class);
+
+    private final EventPublisher eventPublisher;
+    private final OpenProblemIndex problemIndex;
+    private final SlaDeadlineIndex deadlineIndex;
+    private final BulkTransitionService bulkTransitions;
+
+    @Inject
+    public ITILIssueEventListener(EventPublisher eventPublisher, OpenProblemIndex problemIndex,
+                                  SlaDeadlineIndex deadlineIndex, BulkTransitionService bulkTransitions) {
+        this.eventPublisher = eventPublisher;
+        this.problemIndex = problemIndex;
+        this.deadlineIndex = deadlineIndex;
+        this.bulkTransitions = bulkTransitions;
+    }
+
+    @PostConstruct
+    public void init() {
+        eventPublisher.register(this);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        eventPublisher.unregister(this);
+    }
+
+    @EventListener
+    public void onIssueEvent(IssueEvent event) {
+        if (event.getIssue() == null) {
+            return;
+        }
+        Long type = event.getEventTypeId();
+        boolean changed = !EventType.ISSUE_DELETED_ID.equals(type)
+            && !EventType.ISSUE_COMMENTED_ID.equals(type)
+            && !EventType.ISSUE_WORKLOGGED_ID.equals(type);
+        try {
+            if (EventType.ISSUE_DELETED_ID.equals(type)) {
+                problemIndex.remove(event.getIssue().getId());
+                deadlineIndex.remove(event.getIssue().getId());
+            } else if (changed) {
+                problemIndex.update(event.getIssue());
+                deadlineIndex.update(event.getIssue());
+            }
+        } catch (Exception e) {
+            // Never fail the user's operation because of index maintenance
+            log.warn("Failed to apply issue event {} for {}: {}", type, event.getIssue().getKey(), e.getMessage());
+        }
+        if (changed) {
+            try {
+                bulkTransitions.transitionCompleted(event.getIssue());
+            } catch (Exception e) {
+                log.warn("Failed to start closing issues related to {}: {}", event.getIssue().getKey(), e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.itil.service;
+
+import com.example.itil.config.PluginConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Named;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 🔑 IDEMPOTENCY: Responses of recent webhook requests by idempotency key, so a sender's
+ * retry gets the original result instead of creating a second incident.
+ *
+ * The key is the sender's {@code Idempotency-Key} header or, with
+ * {@code webhook.idempotency.payload.keys} enabled, a SHA-256 of the request body; keys
+ * are scoped by webhook source. The first request for a key owns it and the rest wait on
+ * its future, so concurrent retries never race the original. Only successful results are
+ * kept, for {@code webhook.idempotency.ttl.seconds}; a failed original releases the key
+ * so the retry is processed normally. The store is a bounded {@link ConcurrentHashMap},
+ * like the alert deduplicator.
+ *
+ * Body keys are off by default: an alert that keeps firing repeats its body, and those
+ * repeats belong to the alert deduplicator, which counts them on the incident. A replayed
+ * body never reaches it. When enabled, body keys only live for
+ * {@code webhook.idempotency.payload.ttl.seconds}, a sender's retry window that is much
+ * shorter than the dedup window.
+ */
+@Named
+public class IdempotencyStore {
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyStore.class);
+
+    public static final int MAX_KEY_LENGTH = 255;
+
+    // Configuration defaults
+    private static final long DEFAULT_TTL_SECONDS = 3600;
+    private static final long DEFAULT_PAYLOAD_TTL_SECONDS = 30;
+    private static final int DEFAULT_MAX_ENTRIES = 100000;
+    private static final long PURGE_INTERVAL_MS = 1000;
+
+    private final long ttlMs;
+    private final long payloadTtlMs;
+    private final int maxEntries;
+    private final boolean payloadKeys;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong lastPurge = new AtomicLong();
+
+    // 📊 METRICS
+    private final LongAdder stored = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+    private final LongAdder waitedInFlight = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder bypassed = new LongAdder();
+
+    public IdempotencyStore() {
+        this.ttlMs = TimeUnit.SECONDS.toMillis(
+            PluginConfiguration.getLong("webhook.idempotency.ttl.seconds", DEFAULT_TTL_SECONDS));
+        this.payloadTtlMs = Math.min(ttlMs, TimeUnit.SECONDS.toMillis(
+            PluginConfiguration.getLong("webhook.idempotency.payload.ttl.seconds", DEFAULT_PAYLOAD_TTL_SECONDS)));
+        this.maxEntries = Math.max(1, PluginConfiguration.getInt("webhook.idempotency.max.entries", DEFAULT_MAX_ENTRIES));
+        this.payloadKeys = PluginConfiguration.getBoolean("webhook.idempotency.payload.keys", false);
+    }
+
+    public boolean isEnabled() {
+        return ttlMs > 0;
+    }
+
+    /**
+     * Whether a header value is usable as a key: 1 to {@value #MAX_KEY_LENGTH} printable ASCII characters.
+     */
+    public static boolean isValidKey(String key) {
+        if (key == null || key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c < 0x21 || c > 0x7e) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 🔑 DIGEST: Base64 SHA-256 of a request body, used as the key when the sender gives
+     * none and to spot a key reused for a different body.
+     */
+    public static String digest(byte[] body, int length) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            sha256.update(body, 0, length);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(sha256.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+
+    /**
+     * 📥 CLAIM: Look up a request. The returned claim either owns the key (caller must
+     * process the request and {@link #complete} or {@link #abandon}), replays or awaits
+     * the owner's result, or reports a conflict when the key was used for another body.
+     * Returns {@code null} when there is nothing to key on, the store is disabled or it
+     * is full; the caller then just processes the request.
+     */
+    public Claim claim(String source, String idempotencyKey, String payloadDigest) {
+        if (!isEnabled() || (idempotencyKey == null && (!payloadKeys || payloadTtlMs <= 0))) {
+            return null;
+        }
+        String key = source + '\n' + (idempotencyKey != null ? idempotencyKey : "sha256:" + payloadDigest);
+        long now = System.currentTimeMillis();
+        if (entries.size() >= maxEntries && !purgeExpired(now)) {
+            bypassed.increment();
+            log.debug("Idempotency store full ({} entries), not tracking key for source {}", entries.size(), source);
+            return null;
+        }
+
+        Entry[] claimed = new Entry[1];
+        Entry entry = entries.compute(key, (k, existing) -> {
+            if (existing != null && (!existing.result.isDone() || existing.expiresAt > now)) {
+                return existing;
+            }
+            claimed[0] = new Entry(payloadDigest, idempotencyKey != null ? ttlMs : payloadTtlMs);
+            return claimed[0];
+        });
+
+        if (claimed[0] != null) {
+            return new Claim(key, entry, Claim.Kind.OWNER);
+        }
+        if (!entry.payloadDigest.equals(payloadDigest)) {
+            conflicts.increment();
+            return new Claim(key, entry, Claim.Kind.CONFLICT);
+        }
+        if (entry.result.isDone()) {
+            replayed.increment();
+        } else {
+            waitedInFlight.increment();
+        }
+        return new Claim(key, entry, Claim.Kind.DUPLICATE);
+    }
+
+    /**
+     * ✅ COMPLETE: Keep the owner's result for the TTL and release waiting duplicates.
+     */
+    public void complete(Claim claim, Map<String, Object> result) {
+        stored.increment();
+        claim.entry.expiresAt = System.currentTimeMillis() + claim.entry.ttlMs;
+        claim.entry.result.complete(Collections.unmodifiableMap(new LinkedHashMap<>(result)));
+    }
+
+    /**
+     * ❌ ABANDON: Processing failed; forget the key so a retry is processed again.
+     */
+    public void abandon(Claim claim, Throwable cause) {
+        entries.remove(claim.key, claim.entry);
+        claim.entry.result.completeExceptionally(cause);
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", isEnabled());
+        metrics.put("payloadKeys", payloadKeys);
+        metrics.put("ttlSeconds", TimeUnit.MILLISECONDS.toSeconds(ttlMs));
+        metrics.put("payloadTtlSeconds", TimeUnit.MILLISECONDS.toSeconds(payloadTtlMs));
+        metrics.put("trackedKeys", entries.size());
+        metrics.put("maxKeys", maxEntries);
+        metrics.put("stored", stored.sum());
+        metrics.put("replayed", replayed.sum());
+        metrics.put("waitedInFlight", waitedInFlight.sum());
+        metrics.put("conflicts", conflicts.sum());
+        metrics.put("bypassedStoreFull", bypassed.sum());
+        return metrics;
+    }
+
+    /**
+     * 🧹 CLEANUP: Remove expired results, at most once per purge interval; in-flight keys
+     * stay. Returns true if there is room for a new entry afterwards.
+     */
+    private boolean purgeExpired(long now) {
+        long last = lastPurge.get();
+        if (now - last >= PURGE_INTERVAL_MS && lastPurge.compareAndSet(last, now)) {
+            entries.values().removeIf(e -> e.result.isDone() && e.expiresAt <= now);
+        }
+        return entries.size() < maxEntries;
+    }
+
+    public static final class Claim {
+        enum Kind { OWNER, DUPLICATE, CONFLICT }
+
+        private final String key;
+        private final Entry entry;
+        private final Kind kind;
+
+        Claim(String key, Entry entry, Kind kind) {
+            this.key = key;
+            this.entry = entry;
+            this.kind = kind;
+        }
+
+        public boolean isOwner() {
+            return kind == Kind.OWNER;
+        }
+
+        /**
+         * The key was first used with a different request body.
+         */
+        public boolean isConflict() {
+            return kind == Kind.CONFLICT;
+        }
+
+        /**
+         * Result of the owning request, completed once it has been processed; completes
+         * exceptionally if the owner failed.
+         */
+        public CompletableFuture<Map<String, Object>> getResult() {
+            return entry.result;
+        }
+    }
+
+    private static final class Entry {
+        final CompletableFuture<Map<String, Object>> result = new CompletableFuture<>();
+        final String payloadDigest;
+        final long ttlMs;
+        volatile long expiresAt;
+
+        Entry(String payloadDigest, long ttlMs) {
+            this.payloadDigest = payloadDigest;
+            this.ttlMs = ttlMs;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.itil.cluster;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 🧪 CLUSTER: Stand-in membership for running several nodes in one process.
+ *
+ * Nodes {@link Cluster#join join} and {@link Cluster#leave leave} a shared {@link Cluster};
+ * each node's view reports the same live set the way Jira's heartbeats would.
+ */
+public final class InMemoryClusterMembership implements ClusterMembership {
+
+    private final Cluster cluster;
+    private final String localNodeId;
+
+    private InMemoryClusterMembership(Cluster cluster, String localNodeId) {
+        this.cluster = cluster;
+        this.localNodeId = localNodeId;
+    }
+
+    @Override
+    public boolean isClustered() {
+        return true;
+    }
+
+    @Override
+    public String getLocalNodeId() {
+        return localNodeId;
+    }
+
+    @Override
+    public Set<String> getLiveNodeIds() {
+        return Collections.unmodifiableSet(new HashSet<>(cluster.liveNodes));
+    }
+
+    /**
+     * The shared set of live nodes.
+     */
+    public static final class Cluster {
+        private final Set<String> liveNodes = ConcurrentHashMap.newKeySet();
+
+        /**
+         * Mark a node alive and return its view of the cluster.
+         */
+        public InMemoryClusterMembership join(String nodeId) {
+            liveNodes.add(nodeId);
+            return new InMemoryClusterMembership(this, nodeId);
+        }
+
+        /**
+         * Mark a node dead, as if its heartbeat had expired.
+         */
+        public void leave(String nodeId) {
+            liveNodes.remove(nodeId);
+        }
+    }
+}
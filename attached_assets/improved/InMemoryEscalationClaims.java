@@ -0,0 +1,43 @@
+package com.example.itil.sla;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 🧪 SLA: Escalation claims shared by nodes running in one process.
+ */
+public final class InMemoryEscalationClaims implements EscalationClaims {
+
+    // {claimed level, applied level, claimed at, token} per issue
+    private final Map<Long, long[]> states = new ConcurrentHashMap<>();
+
+    @Override
+    public Claim claim(Long issueId, int level, long atMillis, long takeoverMs) {
+        Claim[] claim = new Claim[1];
+        states.compute(issueId, (id, state) -> {
+            long[] current = state == null ? new long[4] : state;
+            claim[0] = Claim.decide((int) current[0], (int) current[1], current[2], current[3],
+                level, atMillis, takeoverMs);
+            return claim[0].isWon() ? new long[]{level, current[1], atMillis, claim[0].getToken()} : current;
+        });
+        return claim[0];
+    }
+
+    @Override
+    public boolean applied(Long issueId, Claim claim, long atMillis) {
+        boolean[] applied = new boolean[1];
+        states.computeIfPresent(issueId, (id, current) -> {
+            if (current[3] != claim.getToken()) {
+                return current;
+            }
+            applied[0] = true;
+            return new long[]{current[0], Math.max(current[1], claim.getLevel()), atMillis, current[3]};
+        });
+        return applied[0];
+    }
+
+    public int getLevel(Long issueId) {
+        long[] state = states.get(issueId);
+        return state == null ? 0 : (int) state[1];
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.itil.service;
+
+import com.example.itil.concurrent.AdaptiveConcurrencyLimiter;
+import com.example.itil.config.PluginConfiguration;
+
+import javax.inject.Named;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 🚦 ADMISSION: Adaptive limit on concurrent incident creations from the webhook path.
+ *
+ * How many creations Jira can run in parallel depends on index load, database latency
+ * and cluster state, so the limit follows observed creation latency instead of being
+ * fixed. Request threads that find no free permit are shed immediately; queue workers
+ * wait up to {@code incident.limit.defer.ms}, leaving the remaining alerts queued.
+ */
+@Named
+public class IncidentCreationLimiter {
+
+    // Configuration defaults
+    private static final int DEFAULT_INITIAL_LIMIT = 8;
+    private static final int DEFAULT_MIN_LIMIT = 1;
+    private static final int DEFAULT_MAX_LIMIT = 64;
+    private static final int DEFAULT_TOLERANCE_PERCENT = 150;
+    private static final long DEFAULT_BASELINE_WINDOW_SECONDS = 60;
+    private static final long DEFAULT_DEFER_MS = 30000;
+    private static final int DEFAULT_RETRY_AFTER_SECONDS = 5;
+
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final long deferMs;
+    private final int retryAfterSeconds;
+
+    public IncidentCreationLimiter() {
+        this.limiter = new AdaptiveConcurrencyLimiter("incident-create",
+            PluginConfiguration.getInt("incident.limit.initial", DEFAULT_INITIAL_LIMIT),
+            PluginConfiguration.getInt("incident.limit.min", DEFAULT_MIN_LIMIT),
+            PluginConfiguration.getInt("incident.limit.max", DEFAULT_MAX_LIMIT),
+            PluginConfiguration.getInt("incident.limit.latency.tolerance.percent", DEFAULT_TOLERANCE_PERCENT) / 100.0,
+            TimeUnit.SECONDS.toMillis(
+                PluginConfiguration.getLong("incident.limit.baseline.window.seconds", DEFAULT_BASELINE_WINDOW_SECONDS)));
+        this.deferMs = Math.max(0, PluginConfiguration.getLong("incident.limit.defer.ms", DEFAULT_DEFER_MS));
+        this.retryAfterSeconds = Math.max(1,
+            PluginConfiguration.getInt("incident.limit.retry.after.seconds", DEFAULT_RETRY_AFTER_SECONDS));
+    }
+
+    /**
+     * Permit for a creation on a request thread; false means shed the alert now.
+     */
+    public boolean tryAcquire() {
+        return limiter.tryAcquire();
+    }
+
+    /**
+     * Permit for a creation on a queue worker, waiting while the limit is saturated;
+     * false if none became free in time or the worker was interrupted.
+     */
+    public boolean acquireDeferred() {
+        try {
+            return limiter.acquire(deferMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Return the permit of a creation that started at {@code startNanos}. Only successful
+     * creations feed the latency controller.
+     */
+    public void release(long startNanos, boolean succeeded) {
+        if (succeeded) {
+            limiter.release(System.nanoTime() - startNanos);
+        } else {
+            limiter.releaseWithoutSample();
+        }
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    /**
+     * 📊 METRICS: Current limit, in-flight creations and latency estimates
+     */
+    public Map<String, Object> getMetrics() {
+        return limiter.getMetrics();
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.itil.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 🔒 SECURITY: Single-pass sanitizer for untrusted text shared by the webhook and CMDB paths.
+ *
+ * Character classes come from a precomputed ASCII lookup table instead of a regex, the
+ * input is trimmed and truncated while it is scanned, and the original instance is
+ * returned when nothing has to change, so clean input costs one scan and no allocation.
+ */
+public final class InputSanitizer {
+    private static final Logger log = LoggerFactory.getLogger(InputSanitizer.class);
+
+    /**
+     * Webhook alert fields: trim, truncate to 1000, and only if a character outside the
+     * safe set is present, strip {@code < > & " ' `}.
+     */
+    public static final InputSanitizer WEBHOOK_FIELD = new InputSanitizer(1000, "<>&\"'`", true);
+
+    /**
+     * CMDB values rendered in the CI panel: trim, always strip {@code < > " ' &},
+     * then truncate to 255.
+     */
+    public static final InputSanitizer CMDB_DISPLAY = new InputSanitizer(255, "<>\"'&", false);
+
+    // ASCII characters accepted by the webhook safe-character policy
+    private static final boolean[] SAFE = new boolean[128];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) SAFE[c] = true;
+        for (char c = 'A'; c <= 'Z'; c++) SAFE[c] = true;
+        for (char c = '0'; c <= '9'; c++) SAFE[c] = true;
+        for (char c : " \t\n\u000B\f\r-_.,!?()[]{}:;\"'@#$%^&*+=|\\/<>~`".toCharArray()) SAFE[c] = true;
+    }
+
+    private final int maxLength;
+    private final boolean[] strip = new boolean[128];
+    private final boolean stripOnlyWhenUnsafe;
+
+    /**
+     * @param stripOnlyWhenUnsafe if true, input is truncated first and stripped only when it
+     *                            contains a character outside the safe set; otherwise strip
+     *                            characters are always removed and truncation applies to the result
+     */
+    private InputSanitizer(int maxLength, String stripChars, boolean stripOnlyWhenUnsafe) {
+        this.maxLength = maxLength;
+        this.stripOnlyWhenUnsafe = stripOnlyWhenUnsafe;
+        for (char c : stripChars.toCharArray()) {
+            strip[c] = true;
+        }
+    }
+
+    /**
+     * Returns the sanitized value, {@code null} for {@code null} input. May return an empty string.
+     */
+    public String sanitize(String input) {
+        if (input == null) {
+            return null;
+        }
+
+        // Trim (same definition as String.trim)
+        int start = 0;
+        int end = input.length();
+        while (start < end && input.charAt(start) <= ' ') start++;
+        while (end > start && input.charAt(end - 1) <= ' ') end--;
+
+        return stripOnlyWhenUnsafe
+            ? sanitizeIfUnsafe(input, start, Math.min(end, start + maxLength))
+            : stripAndTruncate(input, start, end);
+    }
+
+    private String sanitizeIfUnsafe(String input, int start, int end) {
+        boolean unsafe = false;
+        int firstStrip = -1;
+        for (int i = start; i < end; i++) {
+            char c = input.charAt(i);
+            if (c >= 128 || !SAFE[c]) {
+                unsafe = true;
+            } else if (firstStrip < 0 && strip[c]) {
+                firstStrip = i;
+            }
+        }
+
+        if (!unsafe) {
+            return window(input, start, end);
+        }
+
+        log.warn("Input contains potentially dangerous characters: {}", input.substring(start, end));
+        if (firstStrip < 0) {
+            return window(input, start, end);
+        }
+        return copyWithout(input, start, firstStrip, end, Integer.MAX_VALUE);
+    }
+
+    private String stripAndTruncate(String input, int start, int end) {
+        int kept = 0;
+        for (int i = start; i < end; i++) {
+            char c = input.charAt(i);
+            if (c < 128 && strip[c]) {
+                return copyWithout(input, start, i, end, maxLength);
+            }
+            if (++kept == maxLength) {
+                return window(input, start, i + 1);
+            }
+        }
+        return window(input, start, end);
+    }
+
+    /**
+     * Copy [start, end) dropping strip characters; [start, firstStrip) is known to be clean.
+     */
+    private String copyWithout(String input, int start, int firstStrip, int end, int limit) {
+        char[] out = new char[Math.min(end - start, limit)];
+        int n = firstStrip - start;
+        input.getChars(start, firstStrip, out, 0);
+        for (int i = firstStrip; i < end && n < out.length; i++) {
+            char c = input.charAt(i);
+            if (c >= 128 || !strip[c]) {
+                out[n++] = c;
+            }
+        }
+        return new String(out, 0, n);
+    }
+
+    private static String window(String input, int start, int end) {
+        return (start == 0 && end == input.length()) ? input : input.substring(start, end);
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.itil.service;
+
+import com.atlassian.jira.bc.issue.IssueService;
+import com.atlassian.jira.component.ComponentAccessor;
+import com.atlassian.jira.issue.IssueInputParameters;
+import com.atlassian.jira.issue.MutableIssue;
+import com.atlassian.jira.user.ApplicationUser;
+import com.atlassian.jira.issue.Issue;
+import com.atlassian.jira.util.ErrorCollection;
+import com.example.itil.routing.L1Router;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import javax.inject.Inject;
+import javax.inject.Named;
+
+@Named
+public class IssueCreatorService {
+    private static final Logger log = LoggerFactory.getLogger(IssueCreatorService.class);
+    private final IssueService issueService = ComponentAccessor.getIssueService();
+    private final ItilMetadataCache metadata;
+    private final L1Router l1Router;
+
+    @Inject
+    public IssueCreatorService(ItilMetadataCache metadata, L1Router l1Router) {
+        this.metadata = metadata;
+        this.l1Router = l1Router;
+    }
+
+    // create Incident, return issue id
+    public Long createIncident(String summary, String description, String ciValue, String service) {
+        return createIncident(summary, description, ciValue, service, null, null, null);
+    }
+
+    /**
+     * 🎫 CREATE: Incident from a monitoring alert; alert context is appended to the description.
+     * The L1 assignee is resolved up front and set on creation, so an incident is one write
+     * and one reindex.
+     */
+    public Long createIncident(String summary, String description, String ciValue, String service,
+                               String severity, String environment, String source) {
+        ApplicationUser user = getAutomationUser();
+        ApplicationUser assignee = l1Router.route(service, ciValue, environment, severity, source);
+        IssueInputParameters params = incidentParameters(summary, description, ciValue, service,
+            severity, environment, source, assignee);
+
+        IssueService.CreateValidationResult validation = issueService.validateCreate(user, params);
+        if (!validation.isValid() && assignee != null && isAssigneeError(validation)) {
+            // Never lose an incident over routing: create it unassigned instead
+            log.warn("L1 assignee {} rejected for service {}, creating incident unassigned: {}",
+                assignee.getName(), service, validation.getErrorCollection());
+            params = incidentParameters(summary, description, ciValue, service, severity, environment, source, null);
+            validation = issueService.validateCreate(user, params);
+        }
+        if (!validation.isValid()) {
+            log.error("Validation errors: " + validation.getErrorCollection());
+            throw new RuntimeException("Validation failed: " + validation.getErrorCollection().toString());
+        }
+        IssueService.IssueResult res = issueService.create(user, validation);
+        if (!res.isValid()) {
+            throw new RuntimeException("Create failed");
+        }
+        return res.getIssue().getId();
+    }
+
+    private IssueInputParameters incidentParameters(String summary, String description, String ciValue, String service,
+                                                    String severity, String environment, String source,
+                                                    ApplicationUser assignee) {
+        IssueInputParameters params = issueService.newIssueInputParameters();
+        params.setProjectKey("ITSM")
+              .setIssueTypeId(getIssueTypeIdByName("Incident"))
+              .setSummary(summary)
+              .setDescription(buildAlertDescription(description, severity, environment, source));
+        if (assignee != null) {
+            params.setAssigneeId(assignee.getName());
+        }
+        // set custom field CI if exists
+        String cfId = getCustomFieldIdByName("CI");
+        if (cfId != null && ciValue!=null) {
+            params.addCustomFieldValue(cfId, ciValue);
+        }
+        if (service != null) {
+            String cfService = getCustomFieldIdByName("Service");
+            if (cfService!=null) params.addCustomFieldValue(cfService, service);
+        }
+        return params;
+    }
+
+    private static boolean isAssigneeError(IssueService.CreateValidationResult validation) {
+        ErrorCollection errors = validation.getErrorCollection();
+        return errors != null && errors.getErrors() != null && errors.getErrors().containsKey("assignee");
+    }
+
+    /**
+     * 🔑 LOOKUP: Issue key for an id, or null if the issue no longer exists
+     */
+    public String getIssueKey(Long issueId) {
+        if (issueId == null) return null;
+        MutableIssue issue = ComponentAccessor.getIssueManager().getIssueObject(issueId);
+        return issue == null ? null : issue.getKey();
+    }
+
+    /**
+     * 💬 COMMENT: Add a comment as the automation user without dispatching a notification event
+     */
+    public void addAutomationComment(Long issueId, String body) {
+        MutableIssue issue = ComponentAccessor.getIssueManager().getIssueObject(issueId);
+        if (issue == null) {
+            log.warn("Cannot comment on missing issue {}", issueId);
+            return;
+        }
+        ComponentAccessor.getCommentManager().create(issue, getAutomationUser(), body, false);
+    }
+
+    public Long createProblem(String summary, String description, String ciValue) {
+        ApplicationUser user = getAutomationUser();
+        IssueInputParameters params = issueService.newIssueInputParameters();
+        params.setProjectKey("ITSM")
+              .setIssueTypeId(getIssueTypeIdByName("Problem"))
+              .setSummary(summary)
+              .setDescription(description);
+        String cfId = getCustomFieldIdByName("CI");
+        if (cfId!=null && ciValue!=null) params.addCustomFieldValue(cfId, ciValue);
+
+        IssueService.CreateValidationResult validation = issueService.validateCreate(user, params);
+        IssueService.IssueResult res = issueService.create(user, validation);
+        return res.getIssue().getId();
+    }
+
+    public Long createChangeFromProblem(Issue problem, String plannedStart, String plannedEnd) {
+        ApplicationUser user = getAutomationUser();
+        IssueInputParameters params = issueService.newIssueInputParameters();
+        params.setProjectKey(problem.getProjectObject().getKey())
+              .setIssueTypeId(getIssueTypeIdByName("Change"))
+              .setSummary("Change for Problem " + problem.getKey())
+              .setDescription("Auto-created from Problem " + problem.getKey());
+        // copy CI custom field
+        com.atlassian.jira.issue.fields.CustomField ciField = metadata.getCustomField("CI");
+        if (ciField!=null) {
+            Object val = problem.getCustomFieldValue(ciField);
+            if (val!=null) params.addCustomFieldValue(ciField.getId(), String.valueOf(val));
+        }
+        IssueService.CreateValidationResult validation = issueService.validateCreate(user, params);
+        IssueService.IssueResult res = issueService.create(user, validation);
+        return res.getIssue().getId();
+    }
+
+    private String buildAlertDescription(String description, String severity, String environment, String source) {
+        StringBuilder sb = new StringBuilder(description == null ? "" : description);
+        if (severity != null || environment != null || source != null) {
+            if (sb.length() > 0) sb.append("\n\n");
+            if (severity != null) sb.append("Severity: ").append(severity).append('\n');
+            if (environment != null) sb.append("Environment: ").append(environment).append('\n');
+            if (source != null) sb.append("Source: ").append(source).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private String getIssueTypeIdByName(String name) {
+        String id = metadata.getIssueTypeId(name);
+        if (id == null) throw new RuntimeException("Issue type not found");
+        return id;
+    }
+
+    private String getCustomFieldIdByName(String name) {
+        return metadata.getCustomFieldId(name);
+    }
+
+    private ApplicationUser getAutomationUser() {
+        return metadata.getUser("automation"); // configure this user
+    }
+}
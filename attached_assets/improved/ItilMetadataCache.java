@@ -0,0 +1,181 @@
+package com.example.itil.service;
+
+import com.atlassian.crowd.event.user.UserCreatedEvent;
+import com.atlassian.crowd.event.user.UserDeletedEvent;
+import com.atlassian.crowd.event.user.UserEditedEvent;
+import com.atlassian.event.api.EventListener;
+import com.atlassian.event.api.EventPublisher;
+import com.atlassian.jira.component.ComponentAccessor;
+import com.atlassian.jira.event.ClearCacheEvent;
+import com.atlassian.jira.event.config.IssueTypeCreatedEvent;
+import com.atlassian.jira.event.config.IssueTypeDeletedEvent;
+import com.atlassian.jira.event.config.IssueTypeUpdatedEvent;
+import com.atlassian.jira.event.issue.field.CustomFieldCreatedEvent;
+import com.atlassian.jira.event.issue.field.CustomFieldDeletedEvent;
+import com.atlassian.jira.event.issue.field.CustomFieldUpdatedEvent;
+import com.atlassian.jira.issue.fields.CustomField;
+import com.atlassian.jira.issue.issuetype.IssueType;
+import com.atlassian.jira.user.ApplicationUser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 🗂️ CACHE: Resolved Jira metadata used on every incident creation.
+ *
+ * Issue type ids, custom fields and the automation/L1 users are looked up once and
+ * served from memory; the matching Jira configuration events drop the affected entries
+ * so the next lookup resolves them again.
+ */
+@Named
+public class ItilMetadataCache {
+    private static final Logger log = LoggerFactory.getLogger(ItilMetadataCache.class);
+
+    // Metadata the ITIL flows always need, resolved when the plugin is enabled
+    static final String[] WARM_ISSUE_TYPES = {"Incident", "Problem", "Change"};
+    static final String[] WARM_CUSTOM_FIELDS = {"CI", "Service"};
+    static final String[] WARM_USERS = {"automation", "netops", "dba", "oncall"};
+
+    private final EventPublisher eventPublisher;
+
+    // name (lower case) -> issue type id, built from a single scan of all issue types
+    private volatile Map<String, String> issueTypeIds;
+    private final Map<String, Optional<CustomField>> customFields = new ConcurrentHashMap<>();
+    private final Map<String, Optional<ApplicationUser>> users = new ConcurrentHashMap<>();
+
+    @Inject
+    public ItilMetadataCache(EventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostConstruct
+    public void init() {
+        eventPublisher.register(this);
+        warm();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        eventPublisher.unregister(this);
+    }
+
+    /**
+     * 🔥 WARM: Resolve the well-known metadata up front so the first alert pays nothing
+     */
+    public void warm() {
+        try {
+            for (String name : WARM_ISSUE_TYPES) getIssueTypeId(name);
+            for (String name : WARM_CUSTOM_FIELDS) getCustomField(name);
+            for (String name : WARM_USERS) getUser(name);
+            log.info("ITIL metadata cache warmed: {} issue types, {} custom fields, {} users",
+                issueTypeIds().size(), customFields.size(), users.size());
+        } catch (Exception e) {
+            // Jira may not be fully started yet; entries resolve lazily on first use
+            log.warn("Unable to warm ITIL metadata cache: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Issue type id for a name (case-insensitive), or null if there is no such type.
+     */
+    public String getIssueTypeId(String name) {
+        return name == null ? null : issueTypeIds().get(name.toLowerCase(Locale.ROOT));
+    }
+
+    public CustomField getCustomField(String name) {
+        if (name == null) return null;
+        return customFields.computeIfAbsent(name, n ->
+            Optional.ofNullable(ComponentAccessor.getCustomFieldManager().getCustomFieldObjectByName(n))
+        ).orElse(null);
+    }
+
+    public String getCustomFieldId(String name) {
+        CustomField cf = getCustomField(name);
+        return cf == null ? null : cf.getId();
+    }
+
+    public ApplicationUser getUser(String username) {
+        if (username == null) return null;
+        return users.computeIfAbsent(username.toLowerCase(Locale.ROOT), n ->
+            Optional.ofNullable(ComponentAccessor.getUserManager().getUserByName(username))
+        ).orElse(null);
+    }
+
+    private Map<String, String> issueTypeIds() {
+        Map<String, String> ids = issueTypeIds;
+        if (ids == null) {
+            Map<String, String> built = new HashMap<>();
+            for (IssueType type : ComponentAccessor.getConstantsManager().getAllIssueTypeObjects()) {
+                built.putIfAbsent(type.getName().toLowerCase(Locale.ROOT), type.getId());
+            }
+            ids = Collections.unmodifiableMap(built);
+            issueTypeIds = ids;
+        }
+        return ids;
+    }
+
+    // 🔔 INVALIDATION: Jira configuration events
+
+    @EventListener
+    public void onIssueTypeCreated(IssueTypeCreatedEvent event) {
+        issueTypeIds = null;
+    }
+
+    @EventListener
+    public void onIssueTypeUpdated(IssueTypeUpdatedEvent event) {
+        issueTypeIds = null;
+    }
+
+    @EventListener
+    public void onIssueTypeDeleted(IssueTypeDeletedEvent event) {
+        issueTypeIds = null;
+    }
+
+    @EventListener
+    public void onCustomFieldCreated(CustomFieldCreatedEvent event) {
+        customFields.clear();
+    }
+
+    @EventListener
+    public void onCustomFieldUpdated(CustomFieldUpdatedEvent event) {
+        customFields.clear();
+    }
+
+    @EventListener
+    public void onCustomFieldDeleted(CustomFieldDeletedEvent event) {
+        customFields.clear();
+    }
+
+    @EventListener
+    public void onUserCreated(UserCreatedEvent event) {
+        users.remove(event.getUser().getName().toLowerCase(Locale.ROOT));
+    }
+
+    @EventListener
+    public void onUserEdited(UserEditedEvent event) {
+        users.remove(event.getUser().getName().toLowerCase(Locale.ROOT));
+    }
+
+    @EventListener
+    public void onUserDeleted(UserDeletedEvent event) {
+        users.remove(event.getUsername().toLowerCase(Locale.ROOT));
+    }
+
+    @EventListener
+    public void onClearCache(ClearCacheEvent event) {
+        log.debug("Clearing ITIL metadata cache");
+        issueTypeIds = null;
+        customFields.clear();
+        users.clear();
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.itil.cluster;
+
+import com.atlassian.jira.cluster.ClusterManager;
+import com.atlassian.jira.cluster.Node;
+import com.atlassian.jira.component.ComponentAccessor;
+
+import javax.inject.Named;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 🌐 CLUSTER: Membership from Jira Data Center's node heartbeats; a single-node
+ * installation is one node that is not clustered.
+ */
+@Named
+public class JiraClusterMembership implements ClusterMembership {
+
+    private static final String STANDALONE_NODE_ID = "standalone";
+
+    @Override
+    public boolean isClustered() {
+        ClusterManager clusterManager = clusterManager();
+        return clusterManager != null && clusterManager.isClustered();
+    }
+
+    @Override
+    public String getLocalNodeId() {
+        ClusterManager clusterManager = clusterManager();
+        String nodeId = clusterManager == null ? null : clusterManager.getNodeId();
+        return nodeId == null ? STANDALONE_NODE_ID : nodeId;
+    }
+
+    @Override
+    public Set<String> getLiveNodeIds() {
+        if (!isClustered()) {
+            return Collections.singleton(getLocalNodeId());
+        }
+        Set<String> nodeIds = new HashSet<>();
+        for (Node node : clusterManager().findLiveNodes()) {
+            nodeIds.add(node.getNodeId());
+        }
+        return nodeIds;
+    }
+
+    private static ClusterManager clusterManager() {
+        return ComponentAccessor.getComponent(ClusterManager.class);
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.itil.sla;
+
+import com.atlassian.beehive.ClusterLock;
+import com.atlassian.beehive.ClusterLockService;
+import com.atlassian.jira.component.ComponentAccessor;
+import com.example.itil.config.PluginConfiguration;
+
+import javax.inject.Named;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 🎟️ SLA: Escalation claims kept in the {@link SlaEscalationProperty} and serialized by a
+ * cluster lock.
+ *
+ * Locks are striped by issue id so the cluster lock table stays a fixed size; the read
+ * and write of the property happen under the lock, so two nodes cannot both win.
+ */
+@Named
+public class JiraEscalationClaims implements EscalationClaims {
+
+    private static final String LOCK_PREFIX = "com.example.itil.sla.escalation.";
+
+    // Configuration defaults
+    private static final int DEFAULT_LOCK_STRIPES = 64;
+    private static final long DEFAULT_LOCK_TIMEOUT_MS = 10000;
+
+    private final int lockStripes;
+    private final long lockTimeoutMs;
+
+    public JiraEscalationClaims() {
+        this.lockStripes = Math.max(1, PluginConfiguration.getInt("sla.escalation.lock.stripes", DEFAULT_LOCK_STRIPES));
+        this.lockTimeoutMs = Math.max(1, PluginConfiguration.getLong("sla.escalation.lock.timeout.ms", DEFAULT_LOCK_TIMEOUT_MS));
+    }
+
+    /**
+     * @throws IllegalStateException if the lock could not be taken in time; the caller
+     *                               retries later
+     */
+    @Override
+    public Claim claim(Long issueId, int level, long atMillis, long takeoverMs) {
+        ClusterLock lock = lock(issueId);
+        try {
+            SlaEscalationProperty.State state = SlaEscalationProperty.read(issueId);
+            Claim claim = Claim.decide(state.getClaimedLevel(), state.getAppliedLevel(), state.getAt(),
+                state.getToken(), level, atMillis, takeoverMs);
+            if (claim.isWon()) {
+                SlaEscalationProperty.write(issueId, level, state.getAppliedLevel(), atMillis, claim.getToken());
+            }
+            return claim;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @throws IllegalStateException if the lock could not be taken in time
+     */
+    @Override
+    public boolean applied(Long issueId, Claim claim, long atMillis) {
+        ClusterLock lock = lock(issueId);
+        try {
+            SlaEscalationProperty.State state = SlaEscalationProperty.read(issueId);
+            if (state.getToken() != claim.getToken()) {
+                return false;
+            }
+            SlaEscalationProperty.write(issueId, state.getClaimedLevel(),
+                Math.max(state.getAppliedLevel(), claim.getLevel()), atMillis, state.getToken());
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ClusterLock lock(Long issueId) {
+        ClusterLock lock = ComponentAccessor.getComponent(ClusterLockService.class)
+            .getLockForName(LOCK_PREFIX + Math.floorMod(issueId, lockStripes));
+        try {
+            if (!lock.tryLock(lockTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("escalation lock busy for issue " + issueId);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted waiting for escalation lock of issue " + issueId);
+        }
+        return lock;
+    }
+}
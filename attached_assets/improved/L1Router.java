@@ -0,0 +1,218 @@
+package com.example.itil.routing;
+
+import com.atlassian.jira.user.ApplicationUser;
+import com.atlassian.sal.api.pluginsettings.PluginSettings;
+import com.atlassian.sal.api.pluginsettings.PluginSettingsFactory;
+import com.example.itil.config.PluginConfiguration;
+import com.example.itil.service.ItilMetadataCache;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.time.DateTimeException;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 🧭 ROUTING: Picks the L1 assignee of a new Incident from a compiled {@link L1RoutingTable}.
+ *
+ * Rules edited through {@code ConfigurationResource} are compiled (with every assignee
+ * checked) before they are saved, then swapped in atomically; routing reads one volatile
+ * reference and a few hash buckets, and looks each candidate assignee up in
+ * {@link ItilMetadataCache}, whose user entries are dropped on user events. Saved rules
+ * live in plugin settings and are re-read periodically so every cluster node picks them
+ * up. Until rules are saved the table comes from {@code routing.l1.rules}, and
+ * {@code routing.l1.default.assignee} catches anything no rule matches.
+ */
+@Named
+public class L1Router {
+    private static final Logger log = LoggerFactory.getLogger(L1Router.class);
+
+    static final String SETTINGS_KEY = "com.example.itil.routing.l1Rules";
+
+    // Configuration defaults, used until rules are saved through the configuration API
+    private static final String DEFAULT_RULES =
+        "[{\"service\":\"Network\",\"assignee\":\"netops\"},{\"service\":\"DB\",\"assignee\":\"dba\"}]";
+    private static final String DEFAULT_ASSIGNEE = "oncall";
+    private static final long DEFAULT_RELOAD_SECONDS = 60;
+
+    private final PluginSettingsFactory pluginSettingsFactory;
+    private final ItilMetadataCache metadata;
+    private final String defaultAssignee;
+    private final ZoneId zone;
+    private final long reloadNanos;
+
+    private volatile L1RoutingTable table;
+    private volatile Object loadedSetting;
+    private final AtomicLong nextReload = new AtomicLong();
+
+    // 📊 METRICS
+    private final LongAdder routedByRule = new LongAdder();
+    private final LongAdder routedByDefault = new LongAdder();
+    private final LongAdder unrouted = new LongAdder();
+
+    @Inject
+    public L1Router(PluginSettingsFactory pluginSettingsFactory, ItilMetadataCache metadata) {
+        this.pluginSettingsFactory = pluginSettingsFactory;
+        this.metadata = metadata;
+        this.defaultAssignee = PluginConfiguration.getString("routing.l1.default.assignee", DEFAULT_ASSIGNEE);
+        this.zone = configuredZone(PluginConfiguration.getString("routing.l1.timezone", ""));
+        this.reloadNanos = TimeUnit.SECONDS.toNanos(Math.max(1,
+            PluginConfiguration.getLong("routing.l1.reload.seconds", DEFAULT_RELOAD_SECONDS)));
+        this.nextReload.set(System.nanoTime());
+    }
+
+    /**
+     * 🧭 ROUTE: Assignee for an alert, falling back to the default assignee; null if
+     * neither is a known, active user.
+     */
+    public ApplicationUser route(String service, String ci, String environment, String severity, String source) {
+        L1RoutingTable current = currentTable(System.nanoTime());
+        int minuteOfDay = current.isTimeDependent() ? LocalTime.now(zone).toSecondOfDay() / 60 : 0;
+        ApplicationUser assignee = current.route(service, ci, environment, severity, source, minuteOfDay);
+        if (assignee != null) {
+            routedByRule.increment();
+            return assignee;
+        }
+        assignee = metadata.getUser(defaultAssignee);
+        if (assignee != null && assignee.isActive()) {
+            routedByDefault.increment();
+            return assignee;
+        }
+        unrouted.increment();
+        return null;
+    }
+
+    public L1RoutingTable getTable() {
+        return currentTable(System.nanoTime());
+    }
+
+    /**
+     * 🔧 CONFIG: Compile, persist and apply new rules on this node immediately; other
+     * nodes pick them up on their next reload.
+     *
+     * @throws IllegalArgumentException if a rule is malformed or names an unknown user
+     */
+    public L1RoutingTable updateRules(JSONArray rules) {
+        L1RoutingTable compiled = L1RoutingTable.compile(rules, metadata::getUser, true, new ArrayList<>());
+        String saved = compiled.getRules().toString();
+        settings().put(SETTINGS_KEY, saved);
+        loadedSetting = saved;
+        table = compiled;
+        nextReload.set(System.nanoTime() + reloadNanos);
+        log.info("L1 routing rules updated: {} rules in {} buckets", compiled.getRuleCount(), compiled.getBucketCount());
+        return compiled;
+    }
+
+    /**
+     * 🔧 CONFIG: Drop the saved rules and return to the configured defaults.
+     */
+    public L1RoutingTable resetRules() {
+        settings().remove(SETTINGS_KEY);
+        loadedSetting = null;
+        L1RoutingTable defaults = compileLenient(PluginConfiguration.getString("routing.l1.rules", DEFAULT_RULES));
+        table = defaults;
+        nextReload.set(System.nanoTime() + reloadNanos);
+        log.info("L1 routing rules reset to defaults");
+        return defaults;
+    }
+
+    /**
+     * Table as {@code {"rules": [...], "ruleCount": n, "buckets": n, "defaultAssignee": "..."}}.
+     */
+    public JSONObject toJson(L1RoutingTable routing) {
+        JSONObject json = new JSONObject();
+        json.put("rules", routing.getRules());
+        json.put("ruleCount", routing.getRuleCount());
+        json.put("buckets", routing.getBucketCount());
+        json.put("defaultAssignee", defaultAssignee);
+        return json;
+    }
+
+    /**
+     * 📊 METRICS: Table size and routing outcomes for health reporting
+     */
+    public Map<String, Object> getMetrics() {
+        L1RoutingTable current = table;
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("rules", current == null ? 0 : current.getRuleCount());
+        metrics.put("buckets", current == null ? 0 : current.getBucketCount());
+        metrics.put("routedByRule", routedByRule.sum());
+        metrics.put("routedByDefault", routedByDefault.sum());
+        metrics.put("unrouted", unrouted.sum());
+        return metrics;
+    }
+
+    private L1RoutingTable currentTable(long now) {
+        long due = nextReload.get();
+        if ((now - due >= 0 && nextReload.compareAndSet(due, now + reloadNanos)) || table == null) {
+            reloadTable();
+        }
+        return table;
+    }
+
+    /**
+     * Recompile only when the saved value changed since it was last applied.
+     */
+    private synchronized void reloadTable() {
+        try {
+            Object saved = settings().get(SETTINGS_KEY);
+            if (table != null && (saved == null ? loadedSetting == null : saved.equals(loadedSetting))) {
+                return;
+            }
+            table = compileLenient(saved == null
+                ? PluginConfiguration.getString("routing.l1.rules", DEFAULT_RULES)
+                : saved.toString());
+            loadedSetting = saved;
+        } catch (Exception e) {
+            log.warn("Unable to load L1 routing rules, keeping current rules: {}", e.getMessage());
+            if (table == null) {
+                table = L1RoutingTable.EMPTY;
+            }
+        }
+    }
+
+    /**
+     * Saved and configured rules may name users removed since; route around them.
+     */
+    private L1RoutingTable compileLenient(String rules) {
+        List<String> unknown = new ArrayList<>();
+        L1RoutingTable compiled;
+        try {
+            compiled = L1RoutingTable.compile(new JSONArray(rules), metadata::getUser, false, unknown);
+        } catch (RuntimeException e) {
+            log.error("Invalid L1 routing rules ({}), routing everything to the default assignee", e.getMessage());
+            return L1RoutingTable.EMPTY;
+        }
+        if (!unknown.isEmpty()) {
+            log.warn("L1 routing rules name unknown users, skipped until they exist: {}", unknown);
+        }
+        return compiled;
+    }
+
+    private static ZoneId configuredZone(String zoneId) {
+        if (zoneId.trim().isEmpty()) {
+            return ZoneId.systemDefault();
+        }
+        try {
+            return ZoneId.of(zoneId.trim());
+        } catch (DateTimeException e) {
+            log.error("Invalid routing.l1.timezone '{}' ({}), using {}", zoneId, e.getMessage(), ZoneId.systemDefault());
+            return ZoneId.systemDefault();
+        }
+    }
+
+    private PluginSettings settings() {
+        return pluginSettingsFactory.createGlobalSettings();
+    }
+}
@@ -0,0 +1,289 @@
+package com.example.itil.routing;
+
+import com.atlassian.jira.user.ApplicationUser;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 🧭 ROUTING: Immutable, compiled table of L1 assignment rules.
+ *
+ * A rule names an assignee and any of {@code service}, {@code ci}, {@code environment},
+ * {@code severity}, {@code source} (a value or a list of values, case-insensitive) and
+ * {@code hours} ({@code "HH:mm-HH:mm"}, may wrap past midnight); an omitted condition
+ * matches anything. Rules are bucketed by their exact (service, CI) pair and an alert is
+ * looked up in four hash buckets, most specific first:
+ *
+ * <pre>
+ *   (service, ci)  →  (service, *)  →  (*, ci)  →  (*, *)
+ * </pre>
+ *
+ * Within a bucket the first rule (in table order) whose remaining conditions match and
+ * whose assignee is active wins. Assignees are checked when the table is compiled but
+ * looked up again through the resolver on every match, so a user deactivated, reactivated
+ * or recreated after the rules were saved is routed accordingly without a recompile.
+ */
+public final class L1RoutingTable {
+
+    public static final L1RoutingTable EMPTY =
+        new L1RoutingTable(Collections.emptyList(), Collections.emptyMap(), false, name -> null);
+
+    private static final String ANY = "";
+    private static final String[] CONDITIONS = {"service", "ci", "environment", "severity", "source"};
+    private static final Pattern HOURS = Pattern.compile("(\\d{1,2}):(\\d{2})\\s*-\\s*(\\d{1,2}):(\\d{2})");
+
+    private final List<JSONObject> rules;
+    private final Map<String, Rule[]> buckets;
+    private final boolean timeDependent;
+    private final Function<String, ApplicationUser> users;
+
+    private L1RoutingTable(List<JSONObject> rules, Map<String, Rule[]> buckets, boolean timeDependent,
+                           Function<String, ApplicationUser> users) {
+        this.rules = rules;
+        this.buckets = buckets;
+        this.timeDependent = timeDependent;
+        this.users = users;
+    }
+
+    /**
+     * 🔨 COMPILE: Build a table from rule objects whose assignees are resolved with
+     * {@code users}. When {@code strict}, a rule naming an unknown user is rejected; otherwise
+     * it is kept, reported through {@code unknown}, and matches once the user exists.
+     *
+     * @throws IllegalArgumentException if a rule is malformed, or names an unknown user when strict
+     */
+    public static L1RoutingTable compile(JSONArray source, Function<String, ApplicationUser> users,
+                                         boolean strict, List<String> unknown) {
+        List<JSONObject> rules = new ArrayList<>(source.length());
+        Map<String, List<Rule>> building = new HashMap<>();
+        boolean timeDependent = false;
+        for (int i = 0; i < source.length(); i++) {
+            JSONObject json = source.optJSONObject(i);
+            if (json == null) {
+                throw new IllegalArgumentException("rule " + (i + 1) + " is not an object");
+            }
+            String assigneeName = json.optString("assignee", "").trim();
+            if (assigneeName.isEmpty()) {
+                throw new IllegalArgumentException("rule " + (i + 1) + " has no assignee");
+            }
+            for (String key : json.keySet()) {
+                if (!"assignee".equals(key) && !"hours".equals(key) && indexOf(CONDITIONS, key) < 0) {
+                    throw new IllegalArgumentException("rule " + (i + 1) + " has unknown condition '" + key + "'");
+                }
+            }
+            int[] hours = parseHours(json.optString("hours", null), i);
+            if (users.apply(assigneeName) == null) {
+                if (strict) {
+                    throw new IllegalArgumentException("rule " + (i + 1) + " assignee '" + assigneeName + "' not found");
+                }
+                unknown.add(assigneeName);
+            }
+
+            Rule rule = new Rule(assigneeName, values(json, "environment", i), values(json, "severity", i),
+                values(json, "source", i), hours == null ? -1 : hours[0], hours == null ? -1 : hours[1]);
+            timeDependent |= hours != null;
+            Set<String> services = values(json, "service", i);
+            Set<String> cis = values(json, "ci", i);
+            for (String service : services == null ? Collections.singleton(ANY) : services) {
+                for (String ci : cis == null ? Collections.singleton(ANY) : cis) {
+                    building.computeIfAbsent(key(service, ci), k -> new ArrayList<>()).add(rule);
+                }
+            }
+            rules.add(json);
+        }
+
+        Map<String, Rule[]> buckets = new HashMap<>(building.size() * 2);
+        for (Map.Entry<String, List<Rule>> bucket : building.entrySet()) {
+            buckets.put(bucket.getKey(), bucket.getValue().toArray(new Rule[0]));
+        }
+        return new L1RoutingTable(Collections.unmodifiableList(rules), buckets, timeDependent, users);
+    }
+
+    /**
+     * 🧭 ROUTE: Assignee of the first matching rule, or null if none matches.
+     *
+     * @param minuteOfDay local time of the alert in minutes since midnight
+     */
+    public ApplicationUser route(String service, String ci, String environment, String severity,
+                                 String source, int minuteOfDay) {
+        String s = normalize(service);
+        String c = normalize(ci);
+        String e = normalize(environment);
+        String sev = normalize(severity);
+        String src = normalize(source);
+        ApplicationUser assignee = null;
+        if (s != null && c != null) {
+            assignee = match(buckets.get(key(s, c)), e, sev, src, minuteOfDay);
+        }
+        if (assignee == null && s != null) {
+            assignee = match(buckets.get(key(s, ANY)), e, sev, src, minuteOfDay);
+        }
+        if (assignee == null && c != null) {
+            assignee = match(buckets.get(key(ANY, c)), e, sev, src, minuteOfDay);
+        }
+        if (assignee == null) {
+            assignee = match(buckets.get(key(ANY, ANY)), e, sev, src, minuteOfDay);
+        }
+        return assignee;
+    }
+
+    /**
+     * Whether any rule has an {@code hours} window; if not the time of day is never read.
+     */
+    public boolean isTimeDependent() {
+        return timeDependent;
+    }
+
+    public int getRuleCount() {
+        return rules.size();
+    }
+
+    public int getBucketCount() {
+        return buckets.size();
+    }
+
+    /**
+     * Rules as saved, including any whose assignee could not be resolved.
+     */
+    public JSONArray getRules() {
+        return new JSONArray(rules);
+    }
+
+    private ApplicationUser match(Rule[] bucket, String environment, String severity, String source,
+                                  int minuteOfDay) {
+        if (bucket == null) {
+            return null;
+        }
+        for (Rule rule : bucket) {
+            if (rule.matches(environment, severity, source, minuteOfDay)) {
+                ApplicationUser assignee = users.apply(rule.assigneeName);
+                if (assignee != null && assignee.isActive()) {
+                    return assignee;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Set<String> values(JSONObject json, String condition, int index) {
+        Object value = json.opt(condition);
+        if (value == null || JSONObject.NULL.equals(value)) {
+            return null;
+        }
+        Set<String> values = new HashSet<>();
+        if (value instanceof JSONArray) {
+            JSONArray array = (JSONArray) value;
+            for (int i = 0; i < array.length(); i++) {
+                addValue(values, array.opt(i), condition, index);
+            }
+        } else {
+            addValue(values, value, condition, index);
+        }
+        if (values.isEmpty()) {
+            throw new IllegalArgumentException("rule " + (index + 1) + " has an empty " + condition);
+        }
+        // "*" anywhere in the list means the condition matches anything
+        return values.contains("*") ? null : values;
+    }
+
+    private static void addValue(Set<String> values, Object value, String condition, int index) {
+        if (!(value instanceof String) || ((String) value).trim().isEmpty()) {
+            throw new IllegalArgumentException("rule " + (index + 1) + " has an invalid " + condition + " value");
+        }
+        values.add(((String) value).trim().toLowerCase(Locale.ROOT));
+    }
+
+    private static int[] parseHours(String hours, int index) {
+        if (hours == null || hours.trim().isEmpty()) {
+            return null;
+        }
+        Matcher matcher = HOURS.matcher(hours.trim());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("rule " + (index + 1) + " hours must look like 08:00-18:00");
+        }
+        int from = minuteOfDay(matcher.group(1), matcher.group(2), index);
+        int to = minuteOfDay(matcher.group(3), matcher.group(4), index);
+        if (from == to) {
+            throw new IllegalArgumentException("rule " + (index + 1) + " hours window is empty");
+        }
+        return new int[]{from, to};
+    }
+
+    private static int minuteOfDay(String hour, String minute, int index) {
+        int h = Integer.parseInt(hour);
+        int m = Integer.parseInt(minute);
+        if (h > 24 || m > 59 || (h == 24 && m != 0)) {
+            throw new IllegalArgumentException("rule " + (index + 1) + " has an invalid time " + hour + ":" + minute);
+        }
+        return h * 60 + m;
+    }
+
+    private static String normalize(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed.toLowerCase(Locale.ROOT);
+    }
+
+    private static String key(String service, String ci) {
+        return service + '\u0000' + ci;
+    }
+
+    private static int indexOf(String[] values, String value) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i].equals(value)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static final class Rule {
+        private final String assigneeName;
+        private final Set<String> environments;
+        private final Set<String> severities;
+        private final Set<String> sources;
+        private final int fromMinute;
+        private final int toMinute;
+
+        Rule(String assigneeName, Set<String> environments, Set<String> severities,
+             Set<String> sources, int fromMinute, int toMinute) {
+            this.assigneeName = assigneeName;
+            this.environments = environments;
+            this.severities = severities;
+            this.sources = sources;
+            this.fromMinute = fromMinute;
+            this.toMinute = toMinute;
+        }
+
+        boolean matches(String environment, String severity, String source, int minuteOfDay) {
+            return matches(environments, environment) && matches(severities, severity)
+                && matches(sources, source) && inWindow(minuteOfDay);
+        }
+
+        private static boolean matches(Set<String> allowed, String value) {
+            return allowed == null || (value != null && allowed.contains(value));
+        }
+
+        private boolean inWindow(int minuteOfDay) {
+            if (fromMinute < 0) {
+                return true;
+            }
+            return fromMinute < toMinute
+                ? minuteOfDay >= fromMinute && minuteOfDay < toMinute
+                : minuteOfDay >= fromMinute || minuteOfDay < toMinute;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.itil.service;
+
+import com.atlassian.jira.bc.issue.search.SearchService;
+import com.atlassian.jira.component.ComponentAccessor;
+import com.atlassian.jira.issue.Issue;
+import com.atlassian.jira.issue.fields.CustomField;
+import com.atlassian.jira.issue.link.IssueLinkType;
+import com.atlassian.jira.issue.search.SearchException;
+import com.atlassian.jira.user.ApplicationUser;
+import com.atlassian.jira.web.bean.PagerFilter;
+import com.example.itil.config.PluginConfiguration;
+import com.example.itil.topology.CiTopologyIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 🔗 LINKING: Links new Incidents to the open Problem they most likely belong to.
+ *
+ * A Problem on the Incident's own CI wins; otherwise the blast radius is searched —
+ * CIs within {@code linking.topology.max.hops} upstream or downstream in the
+ * {@link CiTopologyIndex} — and the Problem on the nearest related CI is used.
+ * Candidates are looked up in the {@link OpenProblemIndex}; only while that index is
+ * still being built at startup do all candidate CIs go into a single search.
+ */
+@Named
+public class LinkingService {
+    private static final Logger log = LoggerFactory.getLogger(LinkingService.class);
+
+    // Preferred link type (Problem "causes" Incident), then the built-in fallback
+    private static final String PROBLEM_INCIDENT_LINK_TYPE = "Problem/Incident";
+    private static final String RELATES_LINK_TYPE = "Relates";
+
+    // Configuration defaults
+    private static final int DEFAULT_MAX_HOPS = 2;
+    private static final int DEFAULT_MAX_RELATED_CIS = 50;
+    private static final int MAX_CANDIDATE_PROBLEMS = 100;
+
+    private final SearchService searchService = ComponentAccessor.getComponent(SearchService.class);
+    private final ItilMetadataCache metadata;
+    private final CiTopologyIndex topology;
+    private final OpenProblemIndex problemIndex;
+    private final int maxHops;
+    private final int maxRelatedCis;
+
+    @Inject
+    public LinkingService(ItilMetadataCache metadata, CiTopologyIndex topology, OpenProblemIndex problemIndex) {
+        this.metadata = metadata;
+        this.topology = topology;
+        this.problemIndex = problemIndex;
+        this.maxHops = Math.max(0, PluginConfiguration.getInt("linking.topology.max.hops", DEFAULT_MAX_HOPS));
+        this.maxRelatedCis = Math.max(0, PluginConfiguration.getInt("linking.topology.max.cis", DEFAULT_MAX_RELATED_CIS));
+    }
+
+    /**
+     * 🔗 LINK: Link an Incident to the open Problem on its CI or the nearest related CI.
+     *
+     * @return the linked Problem's id, or null if no open Problem was found
+     */
+    public Long linkIncidentToProblem(Long incidentId, String ciId) {
+        if (incidentId == null || ciId == null || ciId.trim().isEmpty()) {
+            return null;
+        }
+        String ci = ciId.trim();
+
+        // Candidates in preference order: the CI itself, then related CIs nearest first
+        List<String> candidates = new ArrayList<>();
+        candidates.add(ci);
+        if (maxHops > 0 && maxRelatedCis > 0) {
+            candidates.addAll(topology.neighborhood(ci, maxHops, maxRelatedCis));
+        }
+
+        Long problemId = problemIndex.isReady()
+            ? lookupNearestOpenProblem(candidates)
+            : searchNearestOpenProblem(candidates);
+        if (problemId == null) {
+            return null;
+        }
+        return linkProblemToIncident(problemId, incidentId) ? problemId : null;
+    }
+
+    /**
+     * 🗂️ INDEX: First candidate CI with an open Problem; no search involved.
+     */
+    private Long lookupNearestOpenProblem(List<String> candidates) {
+        for (String candidate : candidates) {
+            Long problemId = problemIndex.findOpenProblem(candidate);
+            if (problemId != null) {
+                return problemId;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 🔍 SEARCH: One query for open Problems on any candidate CI. Text search on the CI
+     * field can over-match, so results are checked against the exact CI value and the
+     * Problem on the earliest candidate wins.
+     */
+    private Long searchNearestOpenProblem(List<String> candidates) {
+        CustomField ciField = metadata.getCustomField("CI");
+        ApplicationUser user = metadata.getUser("automation");
+        if (ciField == null || searchService == null) {
+            log.warn("Cannot search for Problems: CI field or search service unavailable");
+            return null;
+        }
+
+        Map<String, Integer> rank = new HashMap<>();
+        StringBuilder jql = new StringBuilder("project = ITSM AND issuetype = Problem AND statusCategory != Done AND (");
+        for (String candidate : candidates) {
+            if (rank.putIfAbsent(candidate, rank.size()) != null) continue;
+            if (rank.size() > 1) jql.append(" OR ");
+            jql.append("cf[").append(ciField.getIdAsLong()).append("] ~ \"").append(escapeJql(candidate)).append('"');
+        }
+        jql.append(") ORDER BY created DESC");
+
+        SearchService.ParseResult parsed = searchService.parseQuery(user, jql.toString());
+        if (!parsed.isValid()) {
+            log.error("Invalid Problem search: {}", parsed.getErrors());
+            return null;
+        }
+
+        try {
+            List<Issue> problems = searchService.search(user, parsed.getQuery(),
+                PagerFilter.newPageAlignedFilter(0, MAX_CANDIDATE_PROBLEMS)).getResults();
+            Issue best = null;
+            int bestRank = Integer.MAX_VALUE;
+            for (Issue problem : problems) {
+                Object value = problem.getCustomFieldValue(ciField);
+                Integer problemRank = value == null ? null : rank.get(String.valueOf(value).trim());
+                if (problemRank != null && problemRank < bestRank) {
+                    best = problem;
+                    bestRank = problemRank;
+                }
+            }
+            if (best != null && bestRank > 0) {
+                log.debug("No open Problem on CI {}; using {} on related CI {}",
+                    candidates.get(0), best.getKey(), best.getCustomFieldValue(ciField));
+            }
+            return best == null ? null : best.getId();
+        } catch (SearchException e) {
+            log.error("Problem search failed: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private boolean linkProblemToIncident(Long problemId, Long incidentId) {
+        IssueLinkType linkType = findIssueLinkType(PROBLEM_INCIDENT_LINK_TYPE);
+        if (linkType == null) {
+            linkType = findIssueLinkType(RELATES_LINK_TYPE);
+        }
+        if (linkType == null) {
+            log.warn("No suitable issue link type found (tried {} and {})",
+                PROBLEM_INCIDENT_LINK_TYPE, RELATES_LINK_TYPE);
+            return false;
+        }
+
+        try {
+            // Problem -> Incident (outward "causes")
+            ComponentAccessor.getIssueLinkManager().createIssueLink(
+                problemId, incidentId, linkType.getId(), 1L, metadata.getUser("automation"));
+            return true;
+        } catch (Exception e) {
+            log.error("Error linking incident {} to problem {}: {}", incidentId, problemId, e.getMessage(), e);
+            return false;
+        }
+    }
+
+    private IssueLinkType findIssueLinkType(String linkTypeName) {
+        return ComponentAccessor.getIssueLinkTypeManager()
+            .getIssueLinkTypesByName(linkTypeName)
+            .stream()
+            .findFirst()
+            .orElse(null);
+    }
+
+    private static String escapeJql(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
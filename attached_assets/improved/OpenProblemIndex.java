@@ -0,0 +1,371 @@
+package com.example.itil.service;
+
+import com.atlassian.jira.bc.issue.search.SearchService;
+import com.atlassian.jira.component.ComponentAccessor;
+import com.atlassian.jira.issue.Issue;
+import com.atlassian.jira.issue.fields.CustomField;
+import com.atlassian.jira.issue.status.Status;
+import com.atlassian.jira.issue.status.category.StatusCategory;
+import com.atlassian.jira.user.ApplicationUser;
+import com.atlassian.jira.util.thread.JiraThreadLocalUtil;
+import com.atlassian.jira.web.bean.PagerFilter;
+import com.example.itil.cluster.ClusterMembership;
+import com.example.itil.concurrent.NamedThreadFactory;
+import com.example.itil.config.PluginConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 🗂️ INDEX: Open Problems by CI, so incident linking needs no search.
+ *
+ * Maintained from issue events by {@code ITILIssueEventListener} and rebuilt from one
+ * paginated search when the plugin starts. Until that rebuild has finished the index
+ * reports not ready and callers fall back to searching. Issues touched by events while
+ * the rebuild runs are skipped by it, so a page read before a Problem was resolved
+ * cannot bring it back.
+ *
+ * Issue events only fire on the node where the change happened, so in a cluster the
+ * search is repeated every {@code problem.index.resync.minutes} to pick up Problems
+ * created or resolved on other nodes. Between resyncs a lookup re-reads the Problem it
+ * is about to return and drops it if it has been resolved or moved to another CI.
+ */
+@Named
+public class OpenProblemIndex {
+    private static final Logger log = LoggerFactory.getLogger(OpenProblemIndex.class);
+
+    private static final String PROJECT_KEY = "ITSM";
+    private static final String REBUILD_JQL =
+        "project = ITSM AND issuetype = Problem AND statusCategory != Done ORDER BY key ASC";
+    private static final long[] NONE = new long[0];
+
+    // Configuration defaults
+    private static final int DEFAULT_PAGE_SIZE = 1000;
+    private static final long DEFAULT_RETRY_SECONDS = 60;
+    private static final long DEFAULT_CLUSTER_RESYNC_MINUTES = 10;
+
+    private final ItilMetadataCache metadata;
+    private final ClusterMembership membership;
+    private final JiraThreadLocalUtil threadLocalUtil;
+    private final int pageSize;
+    private final long retrySeconds;
+    private final long resyncMinutes;
+    private final ScheduledExecutorService rebuildExecutor =
+        Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("itil-problem-index"));
+
+    // CI -> ascending open Problem ids (copy-on-write), and the reverse mapping
+    private final Map<String, long[]> problemsByCi = new ConcurrentHashMap<>();
+    private final Map<Long, String> ciByProblem = new ConcurrentHashMap<>();
+
+    // Issue ids changed by events while a rebuild is running
+    private volatile Set<Long> touchedDuringRebuild;
+    private volatile boolean ready;
+
+    // 📊 METRICS
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder eventsApplied = new LongAdder();
+    private final LongAdder staleDropped = new LongAdder();
+    private final LongAdder rebuildFailures = new LongAdder();
+    private final LongAdder resyncs = new LongAdder();
+    private volatile long lastRebuildMs;
+    private volatile long lastRebuildAt;
+
+    @Inject
+    public OpenProblemIndex(ItilMetadataCache metadata, ClusterMembership membership,
+                            JiraThreadLocalUtil threadLocalUtil) {
+        this.metadata = metadata;
+        this.membership = membership;
+        this.threadLocalUtil = threadLocalUtil;
+        this.pageSize = Math.max(1, PluginConfiguration.getInt("problem.index.rebuild.page.size", DEFAULT_PAGE_SIZE));
+        this.retrySeconds = Math.max(1, PluginConfiguration.getLong("problem.index.rebuild.retry.seconds", DEFAULT_RETRY_SECONDS));
+        this.resyncMinutes = Math.max(0, PluginConfiguration.getLong("problem.index.resync.minutes", DEFAULT_CLUSTER_RESYNC_MINUTES));
+    }
+
+    @PostConstruct
+    public void init() {
+        rebuildExecutor.execute(this::rebuildOrRetry);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 🔍 LOOKUP: Newest open Problem on a CI, or null. Only meaningful once {@link #isReady()}.
+     *
+     * The candidate is re-read before it is returned; one that was resolved, deleted or
+     * moved to another CI since it was indexed is corrected and the next newest is tried.
+     */
+    public Long findOpenProblem(String ciId) {
+        lookups.increment();
+        String ci = ciId == null ? null : ciId.trim();
+        if (ci == null) {
+            return null;
+        }
+        long[] ids;
+        while ((ids = problemsByCi.get(ci)) != null && ids.length > 0) {
+            Long problemId = ids[ids.length - 1];
+            Issue problem = ComponentAccessor.getIssueManager().getIssueObject(problemId);
+            String current = problem == null ? null : openProblemCi(problem);
+            if (ci.equals(current)) {
+                hits.increment();
+                return problemId;
+            }
+            staleDropped.increment();
+            synchronized (this) {
+                markTouched(problemId);
+                if (current == null) {
+                    unindex(problemId);
+                } else {
+                    index(problemId, current);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 🔄 EVENT: Re-evaluate an issue after it was created, edited or transitioned.
+     */
+    public void update(Issue issue) {
+        if (issue == null || issue.getId() == null) {
+            return;
+        }
+        eventsApplied.increment();
+        String ci = openProblemCi(issue);
+        synchronized (this) {
+            markTouched(issue.getId());
+            if (ci == null) {
+                unindex(issue.getId());
+            } else {
+                index(issue.getId(), ci);
+            }
+        }
+    }
+
+    /**
+     * 🔄 EVENT: Drop an issue that was deleted.
+     */
+    public void remove(Long issueId) {
+        if (issueId == null) {
+            return;
+        }
+        eventsApplied.increment();
+        synchronized (this) {
+            markTouched(issueId);
+            unindex(issueId);
+        }
+    }
+
+    /**
+     * 📊 METRICS: Index size, hit rate and rebuild state for health reporting
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        long lookupCount = lookups.sum();
+        metrics.put("ready", ready);
+        metrics.put("cis", problemsByCi.size());
+        metrics.put("openProblems", ciByProblem.size());
+        metrics.put("lookups", lookupCount);
+        metrics.put("hits", hits.sum());
+        metrics.put("hitRatio", lookupCount == 0 ? 0.0 : (double) hits.sum() / lookupCount);
+        metrics.put("eventsApplied", eventsApplied.sum());
+        metrics.put("staleDropped", staleDropped.sum());
+        metrics.put("rebuildFailures", rebuildFailures.sum());
+        metrics.put("resyncs", resyncs.sum());
+        metrics.put("lastRebuildMs", lastRebuildMs);
+        metrics.put("lastRebuildAt", lastRebuildAt);
+        return metrics;
+    }
+
+    private void rebuildOrRetry() {
+        try {
+            rebuild();
+            if (resyncMinutes > 0 && membership.isClustered()) {
+                rebuildExecutor.scheduleWithFixedDelay(this::resync, resyncMinutes, resyncMinutes, TimeUnit.MINUTES);
+            }
+        } catch (Exception e) {
+            // Jira may still be starting; keep serving searches and try again later
+            rebuildFailures.increment();
+            log.warn("Open Problem index rebuild failed, retrying in {} seconds: {}", retrySeconds, e.getMessage());
+            rebuildExecutor.schedule(this::rebuildOrRetry, retrySeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    private void resync() {
+        try {
+            rebuild();
+            resyncs.increment();
+        } catch (Exception e) {
+            rebuildFailures.increment();
+            log.warn("Open Problem index resync failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * The rebuild thread has no Jira request context of its own; open one per rebuild.
+     */
+    private void rebuild() throws Exception {
+        threadLocalUtil.preCall();
+        try {
+            searchAndIndex();
+        } finally {
+            threadLocalUtil.postCall(log);
+        }
+    }
+
+    /**
+     * 🔥 REBUILD: Page through every open Problem once; events arriving meanwhile win.
+     * Indexed Problems the search no longer returns were resolved or deleted elsewhere.
+     */
+    private void searchAndIndex() throws Exception {
+        SearchService searchService = ComponentAccessor.getComponent(SearchService.class);
+        ApplicationUser user = metadata.getUser("automation");
+        if (searchService == null || metadata.getCustomField("CI") == null) {
+            throw new IllegalStateException("search service or CI field unavailable");
+        }
+        SearchService.ParseResult parsed = searchService.parseQuery(user, REBUILD_JQL);
+        if (!parsed.isValid()) {
+            throw new IllegalStateException("invalid rebuild query: " + parsed.getErrors());
+        }
+
+        long start = System.nanoTime();
+        Set<Long> touched = ConcurrentHashMap.newKeySet();
+        touchedDuringRebuild = touched;
+        try {
+            Set<Long> seen = new HashSet<>();
+            int offset = 0;
+            List<Issue> page;
+            do {
+                page = searchService.search(user, parsed.getQuery(),
+                    PagerFilter.newPageAlignedFilter(offset, pageSize)).getResults();
+                for (Issue issue : page) {
+                    String ci = openProblemCi(issue);
+                    if (ci == null) {
+                        continue;
+                    }
+                    seen.add(issue.getId());
+                    indexUnlessTouched(touched, issue.getId(), ci);
+                }
+                offset += page.size();
+            } while (page.size() == pageSize);
+
+            synchronized (this) {
+                for (Long issueId : new ArrayList<>(ciByProblem.keySet())) {
+                    if (!seen.contains(issueId) && !touched.contains(issueId)) {
+                        unindex(issueId);
+                    }
+                }
+            }
+
+            ready = true;
+            lastRebuildMs = (System.nanoTime() - start) / 1_000_000;
+            lastRebuildAt = System.currentTimeMillis();
+            log.info("Open Problem index rebuilt: {} Problems on {} CIs in {} ms",
+                seen.size(), problemsByCi.size(), lastRebuildMs);
+        } finally {
+            touchedDuringRebuild = null;
+        }
+    }
+
+    private synchronized void indexUnlessTouched(Set<Long> touched, Long issueId, String ci) {
+        if (!touched.contains(issueId)) {
+            index(issueId, ci);
+        }
+    }
+
+    // Writers hold the monitor so an event and the rebuild never interleave on one issue
+
+    private void markTouched(Long issueId) {
+        Set<Long> touched = touchedDuringRebuild;
+        if (touched != null) {
+            touched.add(issueId);
+        }
+    }
+
+    /**
+     * CI value if the issue is an open ITSM Problem with a CI, otherwise null.
+     */
+    private String openProblemCi(Issue issue) {
+        if (issue.getProjectObject() == null || !PROJECT_KEY.equals(issue.getProjectObject().getKey())) {
+            return null;
+        }
+        String problemTypeId = metadata.getIssueTypeId("Problem");
+        if (problemTypeId == null || issue.getIssueType() == null
+                || !problemTypeId.equals(issue.getIssueType().getId())) {
+            return null;
+        }
+        Status status = issue.getStatus();
+        if (status != null && status.getStatusCategory() != null
+                && StatusCategory.COMPLETE.equals(status.getStatusCategory().getKey())) {
+            return null;
+        }
+        CustomField ciField = metadata.getCustomField("CI");
+        Object value = ciField == null ? null : issue.getCustomFieldValue(ciField);
+        String ci = value == null ? null : String.valueOf(value).trim();
+        return ci == null || ci.isEmpty() ? null : ci;
+    }
+
+    private void index(Long issueId, String ci) {
+        String previous = ciByProblem.put(issueId, ci);
+        if (ci.equals(previous)) {
+            return;
+        }
+        if (previous != null) {
+            removeFromCi(previous, issueId);
+        }
+        long id = issueId;
+        problemsByCi.compute(ci, (key, ids) -> {
+            long[] current = ids == null ? NONE : ids;
+            int at = Arrays.binarySearch(current, id);
+            if (at >= 0) return current;
+            int insert = -at - 1;
+            long[] grown = new long[current.length + 1];
+            System.arraycopy(current, 0, grown, 0, insert);
+            grown[insert] = id;
+            System.arraycopy(current, insert, grown, insert + 1, current.length - insert);
+            return grown;
+        });
+    }
+
+    private void unindex(Long issueId) {
+        String previous = ciByProblem.remove(issueId);
+        if (previous != null) {
+            removeFromCi(previous, issueId);
+        }
+    }
+
+    private void removeFromCi(String ci, long issueId) {
+        problemsByCi.computeIfPresent(ci, (key, ids) -> {
+            int at = Arrays.binarySearch(ids, issueId);
+            if (at < 0) return ids;
+            if (ids.length == 1) return null;
+            long[] shrunk = new long[ids.length - 1];
+            System.arraycopy(ids, 0, shrunk, 0, at);
+            System.arraycopy(ids, at + 1, shrunk, at, ids.length - at - 1);
+            return shrunk;
+        });
+    }
+}
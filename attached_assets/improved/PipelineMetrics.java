@@ -0,0 +1,175 @@
+package com.example.itil.metrics;
+
+import org.HdrHistogram.Histogram;
+
+import javax.inject.Named;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * 📊 METRICS: Per-stage latency and outcome counters for the alert pipeline and CMDB lookups.
+ *
+ * Every stage has a {@link StageTimer}; outcomes are counted per webhook source and per
+ * CMDB lookup result. Exposed by {@code HealthCheckResource} as JSON percentiles and in
+ * the Prometheus text format. Source labels are limited to
+ * {@value #MAX_SOURCES} distinct well-formed names; the rest count as {@code other}.
+ */
+@Named
+public class PipelineMetrics {
+
+    static final int MAX_SOURCES = 200;
+    private static final String PREFIX = "itil_";
+    private static final Pattern LABEL_VALUE = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+    // Upper bounds of the exported Prometheus histogram buckets, in seconds
+    private static final double[] BUCKET_SECONDS =
+        {0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30};
+
+    /**
+     * Timed stages. The webhook stages split one request; {@code WEBHOOK_TOTAL} is the
+     * whole synchronous request.
+     */
+    public enum Stage {
+        WEBHOOK_VALIDATE("webhook_validate", "Header, source, IP allowlist and rate limit checks"),
+        WEBHOOK_PARSE("webhook_parse", "Reading and parsing the alert body"),
+        WEBHOOK_AUTH("webhook_auth", "Bearer token and HMAC signature verification"),
+        WEBHOOK_DEDUP("webhook_dedup", "Deduplication, including waiting for the first alert's incident"),
+        INCIDENT_CREATE("incident_create", "IssueCreatorService.createIncident"),
+        INCIDENT_LINK("incident_link", "Linking the incident to an open Problem for its CI"),
+        INCIDENT_KEY("incident_key", "Looking up the created incident's key"),
+        WEBHOOK_TOTAL("webhook_total", "Whole synchronous alert request"),
+        CMDB_FETCH("cmdb_fetch", "Waiting for a CMDB fetch on a cache and snapshot miss"),
+        CMDB_CONTEXT("cmdb_context", "CI panel enrichment in CIContextProvider");
+
+        private final String metricName;
+        private final String help;
+
+        Stage(String metricName, String help) {
+            this.metricName = metricName;
+            this.help = help;
+        }
+    }
+
+    private final Map<Stage, StageTimer> timers = new EnumMap<>(Stage.class);
+    private final Map<String, Map<String, LongAdder>> outcomesBySource = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> cmdbLookups = new ConcurrentHashMap<>();
+
+    public PipelineMetrics() {
+        for (Stage stage : Stage.values()) {
+            timers.put(stage, new StageTimer(stage.metricName, stage.help));
+        }
+    }
+
+    public StageTimer timer(Stage stage) {
+        return timers.get(stage);
+    }
+
+    /**
+     * Record the time since {@code startNanos} against a stage; returns it.
+     */
+    public long recordSince(Stage stage, long startNanos) {
+        return timers.get(stage).recordSince(startNanos);
+    }
+
+    /**
+     * Count a webhook request outcome (e.g. {@code created}, {@code unauthorized}) for a source.
+     */
+    public void countOutcome(String source, String outcome) {
+        String label = source == null ? "none" : LABEL_VALUE.matcher(source).matches()
+            ? source.toLowerCase(Locale.ROOT) : "invalid";
+        Map<String, LongAdder> outcomes = outcomesBySource.get(label);
+        if (outcomes == null) {
+            if (outcomesBySource.size() >= MAX_SOURCES) {
+                label = "other";
+            }
+            outcomes = outcomesBySource.computeIfAbsent(label, s -> new ConcurrentHashMap<>());
+        }
+        outcomes.computeIfAbsent(outcome, o -> new LongAdder()).increment();
+    }
+
+    /**
+     * Count how a CI panel lookup was answered (e.g. {@code fresh}, {@code fetched}, {@code timeout}).
+     */
+    public void countCmdbLookup(String result) {
+        cmdbLookups.computeIfAbsent(result, r -> new LongAdder()).increment();
+    }
+
+    /**
+     * 📊 METRICS: Stage percentiles and outcome counts for health reporting
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> stages = new LinkedHashMap<>();
+        for (StageTimer timer : timers.values()) {
+            stages.put(timer.getName(), timer.getMetrics());
+        }
+        Map<String, Object> outcomes = new TreeMap<>();
+        outcomesBySource.forEach((source, counts) -> outcomes.put(source, sums(counts)));
+
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("stages", stages);
+        metrics.put("webhookOutcomes", outcomes);
+        metrics.put("cmdbLookups", sums(cmdbLookups));
+        return metrics;
+    }
+
+    /**
+     * 📈 PROMETHEUS: Stage histograms and counters in text exposition format 0.0.4,
+     * followed by {@code gauges} (metric name without prefix to value).
+     */
+    public String toPrometheus(Map<String, Number> gauges) {
+        StringBuilder out = new StringBuilder(8192);
+        String latency = PREFIX + "stage_duration_seconds";
+        header(out, latency, "histogram", "Alert pipeline and CMDB stage latency");
+        for (StageTimer timer : timers.values()) {
+            Histogram histogram = timer.snapshot();
+            String stage = "stage=\"" + timer.getName() + "\"";
+            for (double bound : BUCKET_SECONDS) {
+                long upTo = histogram.getCountBetweenValues(0, (long) (bound * TimeUnit.SECONDS.toNanos(1)));
+                out.append(latency).append("_bucket{").append(stage).append(",le=\"").append(bound).append("\"} ")
+                   .append(upTo).append('\n');
+            }
+            out.append(latency).append("_bucket{").append(stage).append(",le=\"+Inf\"} ")
+               .append(histogram.getTotalCount()).append('\n');
+            out.append(latency).append("_sum{").append(stage).append("} ")
+               .append(timer.getTotalNanos() / 1e9).append('\n');
+            out.append(latency).append("_count{").append(stage).append("} ")
+               .append(histogram.getTotalCount()).append('\n');
+        }
+
+        String requests = PREFIX + "webhook_requests_total";
+        header(out, requests, "counter", "Webhook alert requests by source and outcome");
+        new TreeMap<>(outcomesBySource).forEach((source, counts) ->
+            new TreeMap<>(counts).forEach((outcome, count) ->
+                out.append(requests).append("{source=\"").append(source).append("\",outcome=\"").append(outcome)
+                   .append("\"} ").append(count.sum()).append('\n')));
+
+        String lookups = PREFIX + "cmdb_lookups_total";
+        header(out, lookups, "counter", "CI panel CMDB lookups by how they were answered");
+        new TreeMap<>(cmdbLookups).forEach((result, count) ->
+            out.append(lookups).append("{result=\"").append(result).append("\"} ").append(count.sum()).append('\n'));
+
+        gauges.forEach((name, value) -> {
+            header(out, PREFIX + name, "gauge", name.replace('_', ' '));
+            out.append(PREFIX).append(name).append(' ').append(value).append('\n');
+        });
+        return out.toString();
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static Map<String, Long> sums(Map<String, LongAdder> counters) {
+        Map<String, Long> sums = new TreeMap<>();
+        counters.forEach((key, count) -> sums.put(key, count.sum()));
+        return sums;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.itil.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 🔧 CONFIG: Shared plugin configuration lookup.
+ *
+ * Resolution order matches {@code CIContextProvider}: system property
+ * {@code jira.itil.plugin.<key>} first, then the environment variable derived
+ * from the key (upper case, dots replaced by underscores).
+ */
+public final class PluginConfiguration {
+    private static final Logger log = LoggerFactory.getLogger(PluginConfiguration.class);
+
+    private static final String PROPERTY_PREFIX = "jira.itil.plugin.";
+
+    private PluginConfiguration() {
+    }
+
+    public static String getString(String key, String defaultValue) {
+        try {
+            String value = System.getProperty(PROPERTY_PREFIX + key);
+            if (value != null && !value.trim().isEmpty()) {
+                return value.trim();
+            }
+
+            value = System.getenv(key.toUpperCase().replace(".", "_"));
+            return (value != null && !value.trim().isEmpty()) ? value.trim() : defaultValue;
+
+        } catch (Exception e) {
+            log.warn("Error reading configuration for key {}: {}", key, e.getMessage());
+            return defaultValue;
+        }
+    }
+
+    public static int getInt(String key, int defaultValue) {
+        String value = getString(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            log.warn("Invalid integer for configuration key {}: {}", key, value);
+            return defaultValue;
+        }
+    }
+
+    public static long getLong(String key, long defaultValue) {
+        String value = getString(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            log.warn("Invalid number for configuration key {}: {}", key, value);
+            return defaultValue;
+        }
+    }
+
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        String value = getString(key, null);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+}
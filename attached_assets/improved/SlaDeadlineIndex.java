@@ -0,0 +1,445 @@
+package com.example.itil.sla;
+
+import com.atlassian.jira.bc.issue.search.SearchService;
+import com.atlassian.jira.component.ComponentAccessor;
+import com.atlassian.jira.issue.Issue;
+import com.atlassian.jira.issue.status.Status;
+import com.atlassian.jira.issue.status.category.StatusCategory;
+import com.atlassian.jira.user.ApplicationUser;
+import com.atlassian.jira.util.thread.JiraThreadLocalUtil;
+import com.atlassian.jira.web.bean.PagerFilter;
+import com.example.itil.cluster.ClusterMembership;
+import com.example.itil.concurrent.NamedThreadFactory;
+import com.example.itil.config.PluginConfiguration;
+import com.example.itil.service.ItilMetadataCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ⏱️ SLA: Next escalation deadline of every open Incident, in a min-heap by due time.
+ *
+ * Maintained from issue events by {@code ITILIssueEventListener} and rebuilt from one
+ * paginated search when the plugin starts, reading each Incident's creation time and the
+ * escalation level recorded in its {@link SlaEscalationProperty}. The escalation job
+ * only takes entries off the top of the heap, so each run costs time proportional to
+ * the Incidents that are due, not to all open ones.
+ *
+ * Every tracked Incident points at its one live heap entry; entries left behind by
+ * resolved, deleted or re-tracked Incidents are skipped when they reach the top and
+ * purged when they outnumber live ones.
+ *
+ * Issue events only fire on the node where the change happened, so in a cluster the
+ * search is repeated every {@code sla.index.resync.minutes} to pick up Incidents created,
+ * resolved or escalated on other nodes.
+ */
+@Named
+public class SlaDeadlineIndex {
+    private static final Logger log = LoggerFactory.getLogger(SlaDeadlineIndex.class);
+
+    private static final String PROJECT_KEY = "ITSM";
+    private static final String REBUILD_JQL =
+        "project = ITSM AND issuetype = Incident AND statusCategory != Done ORDER BY key ASC";
+    private static final int MIN_COMPACT_SIZE = 1024;
+
+    // Configuration defaults
+    private static final int DEFAULT_PAGE_SIZE = 1000;
+    private static final long DEFAULT_RETRY_SECONDS = 60;
+    private static final long DEFAULT_CLUSTER_RESYNC_MINUTES = 10;
+
+    private final ItilMetadataCache metadata;
+    private final ClusterMembership membership;
+    private final JiraThreadLocalUtil threadLocalUtil;
+    private final SlaPolicy policy;
+    private final int pageSize;
+    private final long retrySeconds;
+    private final long resyncMinutes;
+    private final ScheduledExecutorService rebuildExecutor =
+        Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("itil-sla-index"));
+
+    // Guarded by this
+    private final PriorityQueue<Deadline> deadlines = new PriorityQueue<>();
+    private final Map<Long, Tracked> tracked = new HashMap<>();
+
+    // Issue ids changed by events while a rebuild is running
+    private volatile Set<Long> touchedDuringRebuild;
+    private volatile boolean ready;
+
+    // 📊 METRICS
+    private final LongAdder eventsApplied = new LongAdder();
+    private final LongAdder deadlinesDue = new LongAdder();
+    private final LongAdder staleSkipped = new LongAdder();
+    private final LongAdder rebuildFailures = new LongAdder();
+    private final LongAdder resyncs = new LongAdder();
+    private volatile long lastRebuildMs;
+    private volatile long lastRebuildAt;
+
+    @Inject
+    public SlaDeadlineIndex(ItilMetadataCache metadata, ClusterMembership membership,
+                            JiraThreadLocalUtil threadLocalUtil) {
+        this.metadata = metadata;
+        this.membership = membership;
+        this.threadLocalUtil = threadLocalUtil;
+        this.policy = SlaPolicy.fromConfiguration();
+        this.pageSize = Math.max(1, PluginConfiguration.getInt("sla.index.rebuild.page.size", DEFAULT_PAGE_SIZE));
+        this.retrySeconds = Math.max(1, PluginConfiguration.getLong("sla.index.rebuild.retry.seconds", DEFAULT_RETRY_SECONDS));
+        this.resyncMinutes = Math.max(0, PluginConfiguration.getLong("sla.index.resync.minutes", DEFAULT_CLUSTER_RESYNC_MINUTES));
+    }
+
+    @PostConstruct
+    public void init() {
+        if (policy.getLevelCount() == 0) {
+            log.info("No SLA escalation levels configured, deadline index disabled");
+            return;
+        }
+        rebuildExecutor.execute(this::rebuildOrRetry);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public SlaPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * 🔄 EVENT: Start tracking an Incident that is open, stop tracking one that is not.
+     */
+    public void update(Issue issue) {
+        if (issue == null || issue.getId() == null || policy.getLevelCount() == 0) {
+            return;
+        }
+        eventsApplied.increment();
+        Long issueId = issue.getId();
+        if (!isOpenIncident(issue)) {
+            synchronized (this) {
+                markTouched(issueId);
+                tracked.remove(issueId);
+            }
+            return;
+        }
+        synchronized (this) {
+            markTouched(issueId);
+            if (tracked.containsKey(issueId)) {
+                return; // creation time never changes, so neither do its deadlines
+            }
+        }
+        long created = issue.getCreated().getTime();
+        int level = recordedLevel(issueId, created);
+        synchronized (this) {
+            if (!tracked.containsKey(issueId)) {
+                track(issueId, created, level);
+            }
+        }
+    }
+
+    /**
+     * 🔄 EVENT: Drop an issue that was deleted.
+     */
+    public void remove(Long issueId) {
+        if (issueId == null) {
+            return;
+        }
+        eventsApplied.increment();
+        synchronized (this) {
+            markTouched(issueId);
+            tracked.remove(issueId);
+        }
+    }
+
+    /**
+     * ⏰ DUE: Take up to {@code max} deadlines that have passed. Each must be followed by
+     * {@link #escalated}, {@link #retryAt} or {@link #remove} for its issue; until then
+     * the issue has no live deadline.
+     */
+    public synchronized List<Deadline> pollDue(long nowMillis, int max) {
+        List<Deadline> due = Collections.emptyList();
+        while (due.size() < max && !deadlines.isEmpty() && deadlines.peek().dueAt <= nowMillis) {
+            Deadline deadline = deadlines.poll();
+            Tracked issue = tracked.get(deadline.issueId);
+            if (issue == null || issue.deadline != deadline) {
+                staleSkipped.increment();
+                continue;
+            }
+            issue.deadline = null;
+            if (due.isEmpty()) {
+                due = new ArrayList<>();
+            }
+            due.add(deadline);
+        }
+        deadlinesDue.add(due.size());
+        compactIfMostlyStale();
+        return due;
+    }
+
+    /**
+     * The issue has reached {@code level}; schedule the next level if there is one.
+     */
+    public synchronized void escalated(Long issueId, int level) {
+        Tracked issue = tracked.get(issueId);
+        if (issue != null) {
+            issue.level = Math.max(issue.level, level);
+            schedule(issueId, issue);
+        }
+    }
+
+    /**
+     * Escalating failed or was deferred; try the same level again at {@code retryAtMillis}.
+     */
+    public synchronized void retryAt(Deadline deadline, long retryAtMillis) {
+        Tracked issue = tracked.get(deadline.issueId);
+        if (issue != null && issue.deadline == null) {
+            issue.deadline = new Deadline(retryAtMillis, deadline.issueId, deadline.level);
+            deadlines.add(issue.deadline);
+        }
+    }
+
+    /**
+     * Whether an issue is an ITSM Incident that is not done.
+     */
+    public boolean isOpenIncident(Issue issue) {
+        if (issue.getProjectObject() == null || !PROJECT_KEY.equals(issue.getProjectObject().getKey())) {
+            return false;
+        }
+        String incidentTypeId = metadata.getIssueTypeId("Incident");
+        if (incidentTypeId == null || issue.getIssueType() == null
+                || !incidentTypeId.equals(issue.getIssueType().getId())) {
+            return false;
+        }
+        Status status = issue.getStatus();
+        return issue.getCreated() != null && (status == null || status.getStatusCategory() == null
+            || !StatusCategory.COMPLETE.equals(status.getStatusCategory().getKey()));
+    }
+
+    /**
+     * 📊 METRICS: Tracked Incidents, next deadline and rebuild state for health reporting
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("ready", ready);
+        metrics.put("levels", policy.getLevelCount());
+        synchronized (this) {
+            metrics.put("trackedIncidents", tracked.size());
+            metrics.put("heapEntries", deadlines.size());
+            Deadline next = deadlines.peek();
+            metrics.put("nextDueAt", next == null ? null : next.dueAt);
+        }
+        metrics.put("deadlinesDue", deadlinesDue.sum());
+        metrics.put("staleSkipped", staleSkipped.sum());
+        metrics.put("eventsApplied", eventsApplied.sum());
+        metrics.put("rebuildFailures", rebuildFailures.sum());
+        metrics.put("resyncs", resyncs.sum());
+        metrics.put("lastRebuildMs", lastRebuildMs);
+        metrics.put("lastRebuildAt", lastRebuildAt);
+        return metrics;
+    }
+
+    private void rebuildOrRetry() {
+        try {
+            rebuild();
+            if (resyncMinutes > 0 && membership.isClustered()) {
+                rebuildExecutor.scheduleWithFixedDelay(this::resync, resyncMinutes, resyncMinutes, TimeUnit.MINUTES);
+            }
+        } catch (Exception e) {
+            // Jira may still be starting; events keep the index partly current meanwhile
+            rebuildFailures.increment();
+            log.warn("SLA deadline index rebuild failed, retrying in {} seconds: {}", retrySeconds, e.getMessage());
+            rebuildExecutor.schedule(this::rebuildOrRetry, retrySeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    private void resync() {
+        try {
+            rebuild();
+            resyncs.increment();
+        } catch (Exception e) {
+            rebuildFailures.increment();
+            log.warn("SLA deadline index resync failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Runs on the index thread, which is not a request thread, so Jira's thread-locals
+     * are set up for the searches and cleaned afterwards.
+     */
+    private void rebuild() throws Exception {
+        threadLocalUtil.preCall();
+        try {
+            searchAndIndex();
+        } finally {
+            threadLocalUtil.postCall(log);
+        }
+    }
+
+    /**
+     * 🔥 REBUILD: Page through every open Incident once; events arriving meanwhile win.
+     * Tracked Incidents the search no longer returns were resolved or deleted elsewhere.
+     */
+    private void searchAndIndex() throws Exception {
+        SearchService searchService = ComponentAccessor.getComponent(SearchService.class);
+        ApplicationUser user = metadata.getUser("automation");
+        if (searchService == null) {
+            throw new IllegalStateException("search service unavailable");
+        }
+        SearchService.ParseResult parsed = searchService.parseQuery(user, REBUILD_JQL);
+        if (!parsed.isValid()) {
+            throw new IllegalStateException("invalid rebuild query: " + parsed.getErrors());
+        }
+
+        long start = System.nanoTime();
+        Set<Long> touched = ConcurrentHashMap.newKeySet();
+        touchedDuringRebuild = touched;
+        try {
+            Set<Long> seen = new HashSet<>();
+            int indexed = 0;
+            int offset = 0;
+            List<Issue> page;
+            do {
+                page = searchService.search(user, parsed.getQuery(),
+                    PagerFilter.newPageAlignedFilter(offset, pageSize)).getResults();
+                for (Issue issue : page) {
+                    if (!isOpenIncident(issue) || touched.contains(issue.getId())) {
+                        continue;
+                    }
+                    seen.add(issue.getId());
+                    long created = issue.getCreated().getTime();
+                    if (trackUnlessTouched(touched, issue.getId(), created, recordedLevel(issue.getId(), created))) {
+                        indexed++;
+                    }
+                }
+                offset += page.size();
+            } while (page.size() == pageSize);
+
+            synchronized (this) {
+                tracked.keySet().removeIf(issueId -> !seen.contains(issueId) && !touched.contains(issueId));
+            }
+
+            ready = true;
+            lastRebuildMs = (System.nanoTime() - start) / 1_000_000;
+            lastRebuildAt = System.currentTimeMillis();
+            log.info("SLA deadline index rebuilt: {} open Incidents ({} changed) in {} ms",
+                seen.size(), indexed, lastRebuildMs);
+        } finally {
+            touchedDuringRebuild = null;
+        }
+    }
+
+    private synchronized boolean trackUnlessTouched(Set<Long> touched, Long issueId, long created, int level) {
+        Tracked existing = tracked.get(issueId);
+        if (touched.contains(issueId) || (existing != null && existing.level >= level)) {
+            return false;
+        }
+        track(issueId, created, level);
+        return true;
+    }
+
+    /**
+     * Escalation level already applied; the property is only read once the first level
+     * could have fired, so young Incidents cost no lookup.
+     */
+    private int recordedLevel(Long issueId, long created) {
+        return policy.nextDueAt(created, 0) > System.currentTimeMillis() ? 0 : SlaEscalationProperty.getLevel(issueId);
+    }
+
+    // Writers hold the monitor
+
+    private void markTouched(Long issueId) {
+        Set<Long> touched = touchedDuringRebuild;
+        if (touched != null) {
+            touched.add(issueId);
+        }
+    }
+
+    private void track(Long issueId, long created, int level) {
+        Tracked issue = new Tracked(created, level);
+        tracked.put(issueId, issue);
+        schedule(issueId, issue);
+    }
+
+    private void schedule(Long issueId, Tracked issue) {
+        long dueAt = policy.nextDueAt(issue.created, issue.level);
+        issue.deadline = dueAt < 0 ? null : new Deadline(dueAt, issueId, issue.level + 1);
+        if (issue.deadline != null) {
+            deadlines.add(issue.deadline);
+        }
+    }
+
+    private void compactIfMostlyStale() {
+        if (deadlines.size() < MIN_COMPACT_SIZE || deadlines.size() < 2 * tracked.size()) {
+            return;
+        }
+        deadlines.clear();
+        for (Tracked issue : tracked.values()) {
+            if (issue.deadline != null) {
+                deadlines.add(issue.deadline);
+            }
+        }
+    }
+
+    /**
+     * An escalation level falling due for one issue.
+     */
+    public static final class Deadline implements Comparable<Deadline> {
+        private final long dueAt;
+        private final Long issueId;
+        private final int level;
+
+        Deadline(long dueAt, Long issueId, int level) {
+            this.dueAt = dueAt;
+            this.issueId = issueId;
+            this.level = level;
+        }
+
+        public long getDueAt() {
+            return dueAt;
+        }
+
+        public Long getIssueId() {
+            return issueId;
+        }
+
+        public int getLevel() {
+            return level;
+        }
+
+        @Override
+        public int compareTo(Deadline other) {
+            return Long.compare(dueAt, other.dueAt);
+        }
+    }
+
+    private static final class Tracked {
+        private final long created;
+        private int level;
+        private Deadline deadline;
+
+        Tracked(long created, int level) {
+            this.created = created;
+            this.level = level;
+        }
+    }
+}
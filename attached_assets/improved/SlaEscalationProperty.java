@@ -0,0 +1,96 @@
+package com.example.itil.sla;
+
+import com.atlassian.jira.component.ComponentAccessor;
+import com.atlassian.jira.entity.property.EntityProperty;
+import com.atlassian.jira.entity.property.JsonEntityPropertyManager;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 💾 SLA: Highest escalation level claimed for and applied to an issue, kept as an issue
+ * property so the deadline index can be rebuilt after a restart without escalating
+ * anything twice.
+ *
+ * Stored under {@code itil.sla.escalation} as
+ * {@code {"level": <claimed>, "applied": <applied>, "at": <epoch ms>, "token": <claim>}};
+ * a record without {@code applied} predates pending claims and counts as fully applied.
+ */
+final class SlaEscalationProperty {
+    private static final Logger log = LoggerFactory.getLogger(SlaEscalationProperty.class);
+
+    static final String ENTITY_NAME = "IssueProperty";
+    static final String KEY = "itil.sla.escalation";
+
+    private SlaEscalationProperty() {
+    }
+
+    /**
+     * Level applied to the issue, 0 if it was never escalated or could not be read. A
+     * level still pending is not counted, so its deadline comes due again.
+     */
+    static int getLevel(Long issueId) {
+        try {
+            return read(issueId).getAppliedLevel();
+        } catch (Exception e) {
+            log.warn("Unable to read SLA escalation state of issue {}: {}", issueId, e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Recorded state of the issue, all zero if it was never escalated; failures propagate.
+     */
+    static State read(Long issueId) {
+        EntityProperty property = manager().get(ENTITY_NAME, issueId, KEY);
+        if (property == null) {
+            return new State(0, 0, 0, 0);
+        }
+        JSONObject json = new JSONObject(property.getValue());
+        int level = json.optInt("level", 0);
+        return new State(level, json.optInt("applied", level), json.optLong("at", 0), json.optLong("token", 0));
+    }
+
+    static void write(Long issueId, int claimedLevel, int appliedLevel, long atMillis, long token) {
+        JSONObject json = new JSONObject();
+        json.put("level", claimedLevel);
+        json.put("applied", appliedLevel);
+        json.put("at", atMillis);
+        json.put("token", token);
+        manager().put(ENTITY_NAME, issueId, KEY, json.toString());
+    }
+
+    private static JsonEntityPropertyManager manager() {
+        return ComponentAccessor.getComponent(JsonEntityPropertyManager.class);
+    }
+
+    static final class State {
+        private final int claimedLevel;
+        private final int appliedLevel;
+        private final long at;
+        private final long token;
+
+        State(int claimedLevel, int appliedLevel, long at, long token) {
+            this.claimedLevel = claimedLevel;
+            this.appliedLevel = appliedLevel;
+            this.at = at;
+            this.token = token;
+        }
+
+        int getClaimedLevel() {
+            return claimedLevel;
+        }
+
+        int getAppliedLevel() {
+            return appliedLevel;
+        }
+
+        long getAt() {
+            return at;
+        }
+
+        long getToken() {
+            return token;
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.example.itil.sla;
+
+import com.atlassian.jira.component.ComponentAccessor;
+import com.atlassian.jira.event.type.EventDispatchOption;
+import com.atlassian.jira.issue.IssueManager;
+import com.atlassian.jira.issue.MutableIssue;
+import com.atlassian.jira.user.ApplicationUser;
+import com.atlassian.scheduler.JobRunner;
+import com.atlassian.scheduler.JobRunnerRequest;
+import com.atlassian.scheduler.JobRunnerResponse;
+import com.atlassian.scheduler.SchedulerService;
+import com.atlassian.scheduler.SchedulerServiceException;
+import com.atlassian.scheduler.config.JobConfig;
+import com.atlassian.scheduler.config.JobId;
+import com.atlassian.scheduler.config.JobRunnerKey;
+import com.atlassian.scheduler.config.RunMode;
+import com.atlassian.scheduler.config.Schedule;
+import com.example.itil.cluster.ClusterMembership;
+import com.example.itil.cluster.ClusterShards;
+import com.example.itil.config.PluginConfiguration;
+import com.example.itil.service.IssueCreatorService;
+import com.example.itil.service.ItilMetadataCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ⏱️ SLA: Escalates open Incidents as their {@link SlaPolicy} levels fall due.
+ *
+ * Runs every few seconds and only takes due deadlines off the {@link SlaDeadlineIndex},
+ * so a breach is acted on within one interval and a quiet run costs a heap peek. An
+ * escalation reassigns the Incident to the level's user and comments on it; an Incident
+ * that is several levels overdue (e.g. after downtime) jumps straight to the highest one.
+ *
+ * The job runs locally on every node. In a Data Center cluster each node only escalates
+ * the Incidents it owns on a consistent-hash ring of the live nodes, which is re-read on
+ * every run so ownership moves within one interval when a node joins or leaves. Due
+ * Incidents owned elsewhere are rechecked after {@code sla.escalation.cluster.recheck.seconds}
+ * in case their owner goes away.
+ *
+ * A level is applied only after winning its {@link EscalationClaims claim}, which records
+ * it as pending before anything else is changed. The reassignment is skipped when the
+ * Incident already has the level's assignee, so redoing it is harmless; the level is then
+ * recorded as applied, fenced by the claim's token, and only a node that recorded it
+ * comments. If applying fails part-way, the pending claim can be won again after
+ * {@code sla.escalation.retry.seconds} and the retry finishes the job; a node that stalled
+ * past that time loses the fence and leaves the comment to the node that took over.
+ */
+@Named
+public class SlaEscalationScheduler implements JobRunner {
+    private static final Logger log = LoggerFactory.getLogger(SlaEscalationScheduler.class);
+
+    static final JobRunnerKey JOB_RUNNER_KEY = JobRunnerKey.of("itil-sla-escalation-key");
+    static final JobId JOB_ID = JobId.of("itil-sla-escalation-job");
+
+    // Configuration defaults
+    private static final long DEFAULT_INTERVAL_SECONDS = 5;
+    private static final int DEFAULT_MAX_PER_RUN = 200;
+    private static final long DEFAULT_RETRY_SECONDS = 60;
+    private static final long DEFAULT_CLUSTER_RECHECK_SECONDS = 30;
+    private static final int DEFAULT_VIRTUAL_NODES = 128;
+
+    private final SchedulerService schedulerService;
+    private final SlaDeadlineIndex deadlineIndex;
+    private final IssueCreatorService issueCreator;
+    private final ItilMetadataCache metadata;
+    private final EscalationClaims claims;
+    private final ClusterShards shards;
+    private final SlaPolicy policy;
+    private final long intervalMs;
+    private final int maxPerRun;
+    private final long retryMs;
+    private final long recheckMs;
+
+    // 📊 METRICS
+    private final LongAdder escalations = new LongAdder();
+    private final LongAdder alreadyEscalated = new LongAdder();
+    private final LongAdder pendingElsewhere = new LongAdder();
+    private final LongAdder takenOver = new LongAdder();
+    private final LongAdder closedBeforeEscalation = new LongAdder();
+    private final LongAdder ownedElsewhere = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private volatile long lastRunAt;
+
+    @Inject
+    public SlaEscalationScheduler(SchedulerService schedulerService, SlaDeadlineIndex deadlineIndex,
+                                  IssueCreatorService issueCreator, ItilMetadataCache metadata,
+                                  ClusterMembership membership, EscalationClaims claims) {
+        this.schedulerService = schedulerService;
+        this.deadlineIndex = deadlineIndex;
+        this.issueCreator = issueCreator;
+        this.metadata = metadata;
+        this.claims = claims;
+        this.shards = new ClusterShards("SLA escalation", membership,
+            PluginConfiguration.getInt("sla.escalation.cluster.virtual.nodes", DEFAULT_VIRTUAL_NODES));
+        this.policy = deadlineIndex.getPolicy();
+        this.intervalMs = TimeUnit.SECONDS.toMillis(Math.max(1,
+            PluginConfiguration.getLong("sla.escalation.interval.seconds", DEFAULT_INTERVAL_SECONDS)));
+        this.maxPerRun = Math.max(1, PluginConfiguration.getInt("sla.escalation.max.per.run", DEFAULT_MAX_PER_RUN));
+        this.retryMs = TimeUnit.SECONDS.toMillis(Math.max(1,
+            PluginConfiguration.getLong("sla.escalation.retry.seconds", DEFAULT_RETRY_SECONDS)));
+        this.recheckMs = TimeUnit.SECONDS.toMillis(Math.max(1,
+            PluginConfiguration.getLong("sla.escalation.cluster.recheck.seconds", DEFAULT_CLUSTER_RECHECK_SECONDS)));
+    }
+
+    @PostConstruct
+    public void init() {
+        if (policy.getLevelCount() == 0) {
+            return;
+        }
+        schedulerService.registerJobRunner(JOB_RUNNER_KEY, this);
+        try {
+            schedulerService.scheduleJob(JOB_ID, JobConfig.forJobRunnerKey(JOB_RUNNER_KEY)
+                .withRunMode(RunMode.RUN_LOCALLY)
+                .withSchedule(Schedule.forInterval(intervalMs, new Date())));
+            log.info("SLA escalation scheduled every {} seconds for {} levels",
+                TimeUnit.MILLISECONDS.toSeconds(intervalMs), policy.getLevelCount());
+        } catch (SchedulerServiceException e) {
+            log.error("Unable to schedule SLA escalation: {}", e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (policy.getLevelCount() == 0) {
+            return;
+        }
+        schedulerService.unscheduleJob(JOB_ID);
+        schedulerService.unregisterJobRunner(JOB_RUNNER_KEY);
+    }
+
+    @Override
+    public JobRunnerResponse runJob(JobRunnerRequest request) {
+        long now = System.currentTimeMillis();
+        lastRunAt = now;
+        try {
+            shards.refresh();
+        } catch (Exception e) {
+            return JobRunnerResponse.failed("Cluster membership unavailable: " + e.getMessage());
+        }
+        List<SlaDeadlineIndex.Deadline> due = deadlineIndex.pollDue(now, maxPerRun);
+        int escalated = 0;
+        for (SlaDeadlineIndex.Deadline deadline : due) {
+            if (request.isCancellationRequested()) {
+                // Hand the rest back untouched for the next run
+                deadlineIndex.retryAt(deadline, now);
+                continue;
+            }
+            if (!shards.isLocal(deadline.getIssueId())) {
+                ownedElsewhere.increment();
+                deadlineIndex.retryAt(deadline, now + recheckMs);
+                continue;
+            }
+            try {
+                if (escalate(deadline, now)) {
+                    escalated++;
+                }
+            } catch (Exception e) {
+                failures.increment();
+                log.warn("SLA escalation of issue {} to level {} failed, retrying in {} seconds: {}",
+                    deadline.getIssueId(), deadline.getLevel(), TimeUnit.MILLISECONDS.toSeconds(retryMs), e.getMessage());
+                deadlineIndex.retryAt(deadline, now + retryMs);
+            }
+        }
+        return JobRunnerResponse.success(escalated + " of " + due.size() + " due Incidents escalated");
+    }
+
+    /**
+     * 🚨 ESCALATE: Apply the highest level that is due, unless the Incident was closed or
+     * already escalated that far.
+     */
+    private boolean escalate(SlaDeadlineIndex.Deadline deadline, long now) {
+        Long issueId = deadline.getIssueId();
+        IssueManager issueManager = ComponentAccessor.getIssueManager();
+        MutableIssue issue = issueManager.getIssueObject(issueId);
+        if (issue == null || !deadlineIndex.isOpenIncident(issue)) {
+            closedBeforeEscalation.increment();
+            deadlineIndex.remove(issueId);
+            return false;
+        }
+
+        long created = issue.getCreated().getTime();
+        int target = deadline.getLevel();
+        while (target < policy.getLevelCount() && policy.nextDueAt(created, target) <= now) {
+            target++;
+        }
+        EscalationClaims.Claim claim = claims.claim(issueId, target, now, retryMs);
+        if (claim.isReached()) {
+            alreadyEscalated.increment();
+            deadlineIndex.escalated(issueId, claim.getAppliedLevel());
+            return false;
+        }
+        if (claim.isPending()) {
+            // Another node is applying it; look again once its claim could be taken over
+            pendingElsewhere.increment();
+            deadlineIndex.retryAt(deadline, claim.getRetryAt());
+            return false;
+        }
+        SlaPolicy.Level level = policy.getLevel(target);
+
+        ApplicationUser assignee = metadata.getUser(level.getAssignee());
+        if (assignee == null) {
+            log.warn("SLA escalation user {} for level {} not found; {} not reassigned",
+                level.getAssignee(), target, issue.getKey());
+        } else if (!assignee.equals(issue.getAssignee())) {
+            issue.setAssignee(assignee);
+            issueManager.updateIssue(metadata.getUser("automation"), issue, EventDispatchOption.ISSUE_UPDATED, false);
+        }
+        if (!claims.applied(issueId, claim, now)) {
+            // Stalled past the retry time and another node took the level over
+            takenOver.increment();
+            log.warn("SLA level {} of {} was taken over by another node; not commenting", target, issue.getKey());
+            deadlineIndex.retryAt(deadline, now + recheckMs);
+            return false;
+        }
+        issueCreator.addAutomationComment(issueId, String.format(
+            "⏱️ SLA breached: open for more than %d minutes. Escalated to level %d%s.",
+            level.getAfterMinutes(), target,
+            assignee == null ? "" : " and reassigned to " + assignee.getDisplayName()));
+
+        deadlineIndex.escalated(issueId, target);
+        escalations.increment();
+        log.info("Escalated {} to SLA level {}", issue.getKey(), target);
+        return true;
+    }
+
+    /**
+     * 📊 METRICS: Escalation outcomes for health reporting
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("escalations", escalations.sum());
+        metrics.put("alreadyEscalated", alreadyEscalated.sum());
+        metrics.put("pendingElsewhere", pendingElsewhere.sum());
+        metrics.put("takenOver", takenOver.sum());
+        metrics.put("closedBeforeEscalation", closedBeforeEscalation.sum());
+        metrics.put("ownedElsewhere", ownedElsewhere.sum());
+        metrics.put("failures", failures.sum());
+        metrics.put("lastRunAt", lastRunAt);
+        metrics.put("cluster", shards.getMetrics());
+        metrics.put("index", deadlineIndex.getMetrics());
+        return metrics;
+    }
+}
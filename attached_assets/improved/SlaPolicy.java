@@ -0,0 +1,114 @@
+package com.example.itil.sla;
+
+import com.example.itil.config.PluginConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ⏱️ SLA: Escalation levels for open Incidents, measured from creation.
+ *
+ * Configured as {@code sla.escalation.levels}, a comma-separated list of
+ * {@code <minutes>:<username>} in ascending order; level n (1-based) is due once an
+ * Incident has been open for its minutes and reassigns it to its user. The default
+ * escalates to L2 after two hours and to the incident manager after four.
+ */
+public final class SlaPolicy {
+    private static final Logger log = LoggerFactory.getLogger(SlaPolicy.class);
+
+    private static final String DEFAULT_LEVELS = "120:l2-oncall,240:incident-manager";
+
+    private final List<Level> levels;
+
+    SlaPolicy(List<Level> levels) {
+        this.levels = Collections.unmodifiableList(new ArrayList<>(levels));
+    }
+
+    public static SlaPolicy fromConfiguration() {
+        String configured = PluginConfiguration.getString("sla.escalation.levels", DEFAULT_LEVELS);
+        try {
+            return parse(configured);
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid sla.escalation.levels '{}' ({}), using {}", configured, e.getMessage(), DEFAULT_LEVELS);
+            return parse(DEFAULT_LEVELS);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if an entry is malformed or levels are not ascending
+     */
+    static SlaPolicy parse(String value) {
+        List<Level> levels = new ArrayList<>();
+        long previousMinutes = 0;
+        for (String entry : value.split(",")) {
+            if (entry.trim().isEmpty()) {
+                continue;
+            }
+            int colon = entry.indexOf(':');
+            if (colon < 0) {
+                throw new IllegalArgumentException("expected <minutes>:<username> in '" + entry.trim() + "'");
+            }
+            long minutes;
+            try {
+                minutes = Long.parseLong(entry.substring(0, colon).trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("invalid minutes in '" + entry.trim() + "'");
+            }
+            String assignee = entry.substring(colon + 1).trim();
+            if (minutes <= previousMinutes || assignee.isEmpty()) {
+                throw new IllegalArgumentException("levels must have ascending minutes and a user");
+            }
+            levels.add(new Level(levels.size() + 1, minutes, assignee));
+            previousMinutes = minutes;
+        }
+        return new SlaPolicy(levels);
+    }
+
+    public int getLevelCount() {
+        return levels.size();
+    }
+
+    /**
+     * Level by number, 1-based.
+     */
+    public Level getLevel(int level) {
+        return levels.get(level - 1);
+    }
+
+    /**
+     * When the level after {@code escalatedLevel} falls due, or -1 if none is left.
+     */
+    public long nextDueAt(long createdMillis, int escalatedLevel) {
+        return escalatedLevel >= levels.size() ? -1 : createdMillis + levels.get(escalatedLevel).afterMillis;
+    }
+
+    public static final class Level {
+        private final int number;
+        private final long afterMinutes;
+        private final long afterMillis;
+        private final String assignee;
+
+        Level(int number, long afterMinutes, String assignee) {
+            this.number = number;
+            this.afterMinutes = afterMinutes;
+            this.afterMillis = TimeUnit.MINUTES.toMillis(afterMinutes);
+            this.assignee = assignee;
+        }
+
+        public int getNumber() {
+            return number;
+        }
+
+        public long getAfterMinutes() {
+            return afterMinutes;
+        }
+
+        public String getAssignee() {
+            return assignee;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.itil.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ⏱️ METRICS: Latency distribution of one pipeline stage, in nanoseconds.
+ *
+ * Recording goes into an HdrHistogram {@link Recorder}, which is wait-free for writers, so
+ * request threads never contend on a timer. Readers fold the recorder's interval histogram
+ * into a cumulative one under this timer's lock; values are kept to 2 significant digits
+ * and anything above an hour is recorded as an hour.
+ */
+public final class StageTimer {
+
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.HOURS.toNanos(1);
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    private final String name;
+    private final String help;
+    private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+    private final LongAdder totalNanos = new LongAdder();
+
+    // Guarded by this
+    private final Histogram cumulative = new Histogram(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+    private Histogram interval;
+
+    StageTimer(String name, String help) {
+        this.name = name;
+        this.help = help;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getHelp() {
+        return help;
+    }
+
+    /**
+     * Record the time since {@code startNanos} (from {@link System#nanoTime()}); returns it.
+     */
+    public long recordSince(long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        record(elapsed);
+        return elapsed;
+    }
+
+    public void record(long nanos) {
+        long value = Math.max(0, Math.min(nanos, HIGHEST_TRACKABLE_NANOS));
+        recorder.recordValue(value);
+        totalNanos.add(value);
+    }
+
+    /**
+     * Copy of everything recorded so far.
+     */
+    public synchronized Histogram snapshot() {
+        interval = recorder.getIntervalHistogram(interval);
+        cumulative.add(interval);
+        return cumulative.copy();
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    /**
+     * 📊 METRICS: Count and percentiles in milliseconds for health reporting
+     */
+    public Map<String, Object> getMetrics() {
+        Histogram histogram = snapshot();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("count", histogram.getTotalCount());
+        metrics.put("meanMs", millis(histogram.getTotalCount() == 0 ? 0 : (long) histogram.getMean()));
+        metrics.put("p50Ms", millis(histogram.getValueAtPercentile(50)));
+        metrics.put("p90Ms", millis(histogram.getValueAtPercentile(90)));
+        metrics.put("p99Ms", millis(histogram.getValueAtPercentile(99)));
+        metrics.put("p999Ms", millis(histogram.getValueAtPercentile(99.9)));
+        metrics.put("maxMs", millis(histogram.getMaxValue()));
+        return metrics;
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.itil.workflow;
+
+import com.atlassian.event.api.EventListener;
+import com.atlassian.event.api.EventPublisher;
+import com.atlassian.jira.component.ComponentAccessor;
+import com.atlassian.jira.event.ClearCacheEvent;
+import com.atlassian.jira.event.workflow.WorkflowDeletedEvent;
+import com.atlassian.jira.event.workflow.WorkflowRenamedEvent;
+import com.atlassian.jira.event.workflow.WorkflowUpdatedEvent;
+import com.atlassian.jira.issue.Issue;
+import com.atlassian.jira.issue.status.Status;
+import com.atlassian.jira.workflow.JiraWorkflow;
+import com.atlassian.jira.workflow.WorkflowManager;
+import com.example.itil.config.PluginConfiguration;
+import com.opensymphony.workflow.loader.ActionDescriptor;
+import com.opensymphony.workflow.loader.ResultDescriptor;
+import com.opensymphony.workflow.loader.StepDescriptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 🗂️ CACHE: Workflow action ids that move an issue to a named status.
+ *
+ * Keyed by (workflow name, current status id, target status name), so walking a workflow
+ * descriptor happens once per distinct transition rather than once per issue; "no such
+ * transition" is cached too. Publishing, renaming or deleting a workflow drops the whole
+ * cache. Those events only fire on the node where the change was made, so in a cluster
+ * entries also expire after {@code workflow.transition.cache.ttl.minutes}.
+ */
+@Named
+public class TransitionResolver {
+    private static final Logger log = LoggerFactory.getLogger(TransitionResolver.class);
+
+    // Configuration defaults
+    private static final long DEFAULT_TTL_MINUTES = 10;
+
+    private final EventPublisher eventPublisher;
+    private final long ttlMs;
+
+    // Replaced, never cleared, so a lookup racing an invalidation can only fill a discarded map
+    private volatile Generation cache = new Generation();
+
+    // 📊 METRICS
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    @Inject
+    public TransitionResolver(EventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+        this.ttlMs = TimeUnit.MINUTES.toMillis(Math.max(1,
+            PluginConfiguration.getLong("workflow.transition.cache.ttl.minutes", DEFAULT_TTL_MINUTES)));
+    }
+
+    @PostConstruct
+    public void init() {
+        eventPublisher.register(this);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        eventPublisher.unregister(this);
+    }
+
+    /**
+     * Action id of a transition from the issue's current status to {@code targetStatus}
+     * (case-insensitive), or null if its workflow has none.
+     */
+    public Integer getActionId(Issue issue, String targetStatus) {
+        Status status = issue.getStatus();
+        if (status == null || targetStatus == null) {
+            return null;
+        }
+        // Read the generation before the workflow: a publish seen here is already in the map's past
+        Generation generation = currentGeneration();
+        JiraWorkflow workflow = workflowManager().getWorkflow(issue);
+        if (workflow == null) {
+            return null;
+        }
+        String key = workflow.getName() + '\u0000' + status.getId() + '\u0000' + targetStatus.toLowerCase(Locale.ROOT);
+        Optional<Integer> actionId = generation.actionIds.get(key);
+        if (actionId != null) {
+            hits.increment();
+            return actionId.orElse(null);
+        }
+        misses.increment();
+        return generation.actionIds.computeIfAbsent(key, k ->
+            Optional.ofNullable(findActionId(workflow, status, targetStatus))
+        ).orElse(null);
+    }
+
+    public void invalidate() {
+        cache = new Generation();
+        invalidations.increment();
+    }
+
+    /**
+     * 📊 METRICS: Hit ratio and size for health reporting
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("entries", cache.actionIds.size());
+        metrics.put("hits", hits.sum());
+        metrics.put("misses", misses.sum());
+        metrics.put("invalidations", invalidations.sum());
+        return metrics;
+    }
+
+    private Generation currentGeneration() {
+        Generation generation = cache;
+        if (System.currentTimeMillis() - generation.createdAt > ttlMs) {
+            invalidate();
+            generation = cache;
+        }
+        return generation;
+    }
+
+    /**
+     * Walk the current step's actions, then the global ones, for one whose unconditional
+     * result is a step linked to the target status.
+     */
+    private static Integer findActionId(JiraWorkflow workflow, Status status, String targetStatus) {
+        StepDescriptor current = workflow.getLinkedStep(status);
+        if (current == null) {
+            return null;
+        }
+        List<Object> actions = new ArrayList<>(current.getActions());
+        actions.addAll(workflow.getDescriptor().getGlobalActions());
+        for (Object candidate : actions) {
+            ActionDescriptor action = (ActionDescriptor) candidate;
+            ResultDescriptor result = action.getUnconditionalResult();
+            StepDescriptor step = result == null ? null : workflow.getDescriptor().getStep(result.getStep());
+            Status target = step == null ? null : workflow.getLinkedStatusObject(step);
+            if (target != null && targetStatus.equalsIgnoreCase(target.getName())) {
+                return action.getId();
+            }
+        }
+        return null;
+    }
+
+    private static WorkflowManager workflowManager() {
+        return ComponentAccessor.getWorkflowManager();
+    }
+
+    // 🔔 INVALIDATION: Jira workflow events
+
+    @EventListener
+    public void onWorkflowUpdated(WorkflowUpdatedEvent event) {
+        log.debug("Workflow published, clearing transition cache");
+        invalidate();
+    }
+
+    @EventListener
+    public void onWorkflowRenamed(WorkflowRenamedEvent event) {
+        invalidate();
+    }
+
+    @EventListener
+    public void onWorkflowDeleted(WorkflowDeletedEvent event) {
+        invalidate();
+    }
+
+    @EventListener
+    public void onClearCache(ClearCacheEvent event) {
+        invalidate();
+    }
+
+    private static final class Generation {
+        private final long createdAt = System.currentTimeMillis();
+        private final Map<String, Optional<Integer>> actionIds = new ConcurrentHashMap<>();
+    }
+}
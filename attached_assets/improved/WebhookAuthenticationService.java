@@ -0,0 +1,373 @@
+package com.example.itil.security;
+
+import com.atlassian.sal.api.pluginsettings.PluginSettings;
+import com.atlassian.sal.api.pluginsettings.PluginSettingsFactory;
+import com.example.itil.config.PluginConfiguration;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 🔒 SECURITY: Webhook authentication — a bearer token and an HMAC-SHA256 signature of the
+ * raw request body, both per source.
+ *
+ * Each signing secret keeps an initialized {@link Mac} per thread, so a verification is
+ * one pass of the MAC over the body bytes with no key setup or allocation, and the result
+ * is compared with the {@code X-Webhook-Signature} hex in constant time.
+ *
+ * A source may have several secrets so keys can be rotated: save the new secret alongside
+ * the old one, move the sender over, then drop the old one. Credentials are an immutable
+ * map replaced on change, so verification never takes a lock. They are stored in plugin
+ * settings (edited through {@code ConfigurationResource}) and re-read periodically so
+ * every cluster node picks up changes.
+ */
+@Named
+public class WebhookAuthenticationService {
+    private static final Logger log = LoggerFactory.getLogger(WebhookAuthenticationService.class);
+
+    static final String SETTINGS_KEY = "com.example.itil.webhook.credentials";
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MAC_LENGTH = 32;
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final String SIGNATURE_PREFIX = "sha256=";
+    private static final long DEFAULT_RELOAD_SECONDS = 60;
+
+    // Scratch buffer for MAC results, one per request thread
+    private static final ThreadLocal<byte[]> MAC_BUFFER = ThreadLocal.withInitial(() -> new byte[MAC_LENGTH]);
+
+    private final PluginSettingsFactory pluginSettingsFactory;
+    private final Credentials fallback;
+    private final long reloadNanos;
+
+    private volatile Map<String, Credentials> credentials = Collections.emptyMap();
+    private volatile Object loadedSetting;
+    private final AtomicLong nextReload = new AtomicLong();
+
+    // 📊 METRICS
+    private final LongAdder authenticated = new LongAdder();
+    private final LongAdder previousSecretUsed = new LongAdder();
+    private final LongAdder unknownSource = new LongAdder();
+    private final LongAdder invalidToken = new LongAdder();
+    private final LongAdder invalidSignature = new LongAdder();
+
+    @Inject
+    public WebhookAuthenticationService(PluginSettingsFactory pluginSettingsFactory) {
+        this.pluginSettingsFactory = pluginSettingsFactory;
+        this.fallback = defaultCredentials(PluginConfiguration.getString("webhook.auth.token", null),
+            PluginConfiguration.getString("webhook.auth.secret", null));
+        this.reloadNanos = TimeUnit.SECONDS.toNanos(Math.max(1,
+            PluginConfiguration.getLong("webhook.auth.reload.seconds", DEFAULT_RELOAD_SECONDS)));
+        this.nextReload.set(System.nanoTime());
+    }
+
+    /**
+     * 🔒 AUTHENTICATE: Check the token and signature of a webhook whose body is a string.
+     */
+    public boolean authenticateWebhook(String authHeader, String signature, String body, String source) {
+        byte[] bytes = body == null ? new byte[0] : body.getBytes(StandardCharsets.UTF_8);
+        return authenticateWebhook(authHeader, signature, bytes, bytes.length, source);
+    }
+
+    /**
+     * 🔒 AUTHENTICATE: Check the bearer token and the body signature against the source's
+     * credentials; sources without saved credentials use {@code webhook.auth.token} and
+     * {@code webhook.auth.secret}, and are rejected if those are not set either.
+     *
+     * @param body   raw request bytes as received; only the first {@code length} are signed
+     */
+    public boolean authenticateWebhook(String authHeader, String signature, byte[] body, int length, String source) {
+        Credentials sourceCredentials = source == null ? null : currentCredentials(System.nanoTime()).get(source);
+        if (sourceCredentials == null) {
+            sourceCredentials = fallback;
+        }
+        if (sourceCredentials == null) {
+            unknownSource.increment();
+            log.debug("No webhook credentials for source {}", source);
+            return false;
+        }
+
+        if (sourceCredentials.token != null && !tokenMatches(sourceCredentials.token, authHeader)) {
+            invalidToken.increment();
+            return false;
+        }
+
+        if (!sourceCredentials.secrets.isEmpty()) {
+            int matched = matchingSecret(sourceCredentials.secrets, signature, body, length);
+            if (matched < 0) {
+                invalidSignature.increment();
+                return false;
+            }
+            if (matched > 0) {
+                previousSecretUsed.increment();
+            }
+        }
+        authenticated.increment();
+        return true;
+    }
+
+    /**
+     * Sources with saved credentials and how many secrets each has; nothing secret.
+     */
+    public Map<String, Object> describeCredentials() {
+        Map<String, Object> sources = new LinkedHashMap<>();
+        currentCredentials(System.nanoTime()).forEach((source, creds) -> {
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("token", creds.token != null);
+            summary.put("secrets", creds.secrets.size());
+            sources.put(source, summary);
+        });
+        return sources;
+    }
+
+    /**
+     * 🔧 CONFIG: Replace one source's credentials. List the new secret first and keep the
+     * old one until the sender has switched over.
+     *
+     * @throws IllegalArgumentException if neither a token nor a secret is given
+     */
+    public synchronized void updateCredentials(String source, String token, List<String> secrets) {
+        Credentials updated = new Credentials(token, secrets);
+        if (updated.token == null && updated.secrets.isEmpty()) {
+            throw new IllegalArgumentException("A token or at least one secret is required");
+        }
+        Map<String, Credentials> copy = new LinkedHashMap<>(currentCredentials(System.nanoTime()));
+        copy.put(source, updated);
+        save(copy);
+        log.info("Webhook credentials for source {} updated ({} secrets)", source, updated.secrets.size());
+    }
+
+    /**
+     * 🔧 CONFIG: Remove one source's saved credentials.
+     *
+     * @return false if the source had none
+     */
+    public synchronized boolean removeCredentials(String source) {
+        Map<String, Credentials> copy = new LinkedHashMap<>(currentCredentials(System.nanoTime()));
+        if (copy.remove(source) == null) {
+            return false;
+        }
+        save(copy);
+        log.info("Webhook credentials for source {} removed", source);
+        return true;
+    }
+
+    /**
+     * 📊 METRICS: Authentication outcomes; previousSecretUsed shows whether an old
+     * secret can be dropped yet
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("authenticated", authenticated.sum());
+        metrics.put("previousSecretUsed", previousSecretUsed.sum());
+        metrics.put("unknownSource", unknownSource.sum());
+        metrics.put("invalidToken", invalidToken.sum());
+        metrics.put("invalidSignature", invalidSignature.sum());
+        metrics.put("sources", credentials.size());
+        metrics.put("fallbackConfigured", fallback != null);
+        return metrics;
+    }
+
+    /**
+     * Index of the first secret whose MAC of the body equals the signature, or -1.
+     */
+    private static int matchingSecret(List<SigningKey> secrets, String signature, byte[] body, int length) {
+        if (signature == null) {
+            return -1;
+        }
+        int from = signature.startsWith(SIGNATURE_PREFIX) ? SIGNATURE_PREFIX.length() : 0;
+        if (signature.length() - from != MAC_LENGTH * 2) {
+            return -1;
+        }
+        byte[] computed = MAC_BUFFER.get();
+        for (int i = 0; i < secrets.size(); i++) {
+            if (secrets.get(i).sign(body, length, computed) && hexEquals(computed, signature, from)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Constant-time comparison of {@code expected} with the hex text at {@code from}.
+     */
+    private static boolean hexEquals(byte[] expected, String hex, int from) {
+        int diff = 0;
+        for (int i = 0; i < expected.length; i++) {
+            int high = Character.digit(hex.charAt(from + 2 * i), 16);
+            int low = Character.digit(hex.charAt(from + 2 * i + 1), 16);
+            diff |= (high | low) >>> 31; // -1 for a non-hex character
+            diff |= (expected[i] & 0xff) ^ ((high << 4 | low) & 0xff);
+        }
+        return diff == 0;
+    }
+
+    /**
+     * Constant-time check of {@code Authorization: Bearer <token>}; the time taken depends
+     * only on the expected token's length.
+     */
+    private static boolean tokenMatches(String expected, String authHeader) {
+        if (authHeader == null || !authHeader.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            return false;
+        }
+        int from = BEARER_PREFIX.length();
+        int presented = authHeader.length() - from;
+        int diff = presented ^ expected.length();
+        for (int i = 0; i < expected.length(); i++) {
+            diff |= expected.charAt(i) ^ (i < presented ? authHeader.charAt(from + i) : 0);
+        }
+        return diff == 0;
+    }
+
+    private Map<String, Credentials> currentCredentials(long now) {
+        long due = nextReload.get();
+        if (now - due >= 0 && nextReload.compareAndSet(due, now + reloadNanos)) {
+            reloadCredentials();
+        }
+        return credentials;
+    }
+
+    /**
+     * Rebuild only when the saved value changed, so threads keep their initialized Macs.
+     */
+    private void reloadCredentials() {
+        try {
+            Object saved = settings().get(SETTINGS_KEY);
+            if (saved == null ? loadedSetting == null : saved.equals(loadedSetting)) {
+                return;
+            }
+            credentials = saved == null ? Collections.emptyMap() : fromJson(new JSONObject(saved.toString()));
+            loadedSetting = saved;
+        } catch (Exception e) {
+            log.warn("Unable to load webhook credentials, keeping current ones: {}", e.getMessage());
+        }
+    }
+
+    private void save(Map<String, Credentials> updated) {
+        JSONObject json = new JSONObject();
+        updated.forEach((source, creds) -> json.put(source, creds.toJson()));
+        String saved = json.toString();
+        settings().put(SETTINGS_KEY, saved);
+        loadedSetting = saved;
+        credentials = Collections.unmodifiableMap(updated);
+        nextReload.set(System.nanoTime() + reloadNanos);
+    }
+
+    private static Map<String, Credentials> fromJson(JSONObject json) {
+        Map<String, Credentials> parsed = new LinkedHashMap<>();
+        for (String source : json.keySet()) {
+            JSONObject entry = json.getJSONObject(source);
+            parsed.put(source, new Credentials(entry.optString("token", null), toList(entry.optJSONArray("secrets"))));
+        }
+        return Collections.unmodifiableMap(parsed);
+    }
+
+    private static List<String> toList(JSONArray array) {
+        List<String> values = new ArrayList<>();
+        if (array != null) {
+            for (int i = 0; i < array.length(); i++) {
+                values.add(array.getString(i));
+            }
+        }
+        return values;
+    }
+
+    private static Credentials defaultCredentials(String token, String secret) {
+        if (token == null && secret == null) {
+            log.warn("No webhook.auth.token or webhook.auth.secret configured; "
+                + "only sources with saved credentials can authenticate");
+            return null;
+        }
+        return new Credentials(token, secret == null ? Collections.emptyList() : Collections.singletonList(secret));
+    }
+
+    private PluginSettings settings() {
+        return pluginSettingsFactory.createGlobalSettings();
+    }
+
+    /**
+     * One source's bearer token (optional) and signing secrets, current first.
+     */
+    private static final class Credentials {
+        private final String token;
+        private final List<SigningKey> secrets;
+        private final List<String> rawSecrets;
+
+        Credentials(String token, List<String> secrets) {
+            this.token = token == null || token.isEmpty() ? null : token;
+            List<SigningKey> keys = new ArrayList<>();
+            List<String> raw = new ArrayList<>();
+            for (String secret : secrets) {
+                if (secret != null && !secret.isEmpty()) {
+                    keys.add(new SigningKey(secret));
+                    raw.add(secret);
+                }
+            }
+            this.secrets = Collections.unmodifiableList(keys);
+            this.rawSecrets = Collections.unmodifiableList(raw);
+        }
+
+        JSONObject toJson() {
+            JSONObject json = new JSONObject();
+            if (token != null) {
+                json.put("token", token);
+            }
+            json.put("secrets", new JSONArray(rawSecrets));
+            return json;
+        }
+    }
+
+    /**
+     * One HMAC secret with an initialized {@link Mac} per thread; a rotated-out key and
+     * its Macs become garbage once no credentials refer to it.
+     */
+    private static final class SigningKey {
+        private final ThreadLocal<Mac> mac;
+
+        SigningKey(String secret) {
+            SecretKeySpec key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+            newMac(key); // fail on an unusable key now rather than on the first request
+            this.mac = ThreadLocal.withInitial(() -> newMac(key));
+        }
+
+        boolean sign(byte[] body, int length, byte[] out) {
+            Mac threadMac = mac.get();
+            try {
+                threadMac.update(body, 0, length);
+                threadMac.doFinal(out, 0);
+                return true;
+            } catch (ShortBufferException | IllegalStateException e) {
+                threadMac.reset();
+                log.error("HMAC computation failed: {}", e.getMessage());
+                return false;
+            }
+        }
+
+        private static Mac newMac(SecretKeySpec key) {
+            try {
+                Mac created = Mac.getInstance(ALGORITHM);
+                created.init(key);
+                return created;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalArgumentException("Unusable webhook secret: " + e.getMessage(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,349 @@
+package com.example.itil.security;
+
+import com.atlassian.sal.api.pluginsettings.PluginSettings;
+import com.atlassian.sal.api.pluginsettings.PluginSettingsFactory;
+import com.example.itil.config.PluginConfiguration;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 🚦 RATE LIMIT: Per-source and per-client-IP token buckets for the webhook endpoints.
+ *
+ * Each bucket is a single {@link AtomicLong} holding its theoretical arrival time
+ * (the GCRA form of a token bucket): a request advances it by one emission interval
+ * and is allowed while it stays within {@code burst} intervals of now. Admission is one
+ * CAS on the caller's own bucket, so unrelated senders never contend.
+ *
+ * Limits are stored in plugin settings (edited through {@code ConfigurationResource})
+ * and re-read periodically so every cluster node picks up changes.
+ *
+ * Each map holds at most {@code webhook.ratelimit.max.keys} buckets. Once it is full and
+ * purging idle buckets frees nothing, new sources or IPs share one overflow bucket, so
+ * rotating names throttle each other instead of growing the map. Rejection counts are
+ * kept for {@value #MAX_REPORTED_SOURCES} sources; the rest count as {@code other}.
+ */
+@Named
+public class WebhookRateLimiter {
+    private static final Logger log = LoggerFactory.getLogger(WebhookRateLimiter.class);
+
+    static final String SETTINGS_KEY = "com.example.itil.webhook.rateLimits";
+
+    // Configuration defaults, used until limits are saved through the configuration API
+    private static final int DEFAULT_SOURCE_PER_SECOND = 50;
+    private static final int DEFAULT_SOURCE_BURST = 100;
+    private static final int DEFAULT_IP_PER_SECOND = 20;
+    private static final int DEFAULT_IP_BURST = 40;
+    private static final int DEFAULT_MAX_TRACKED_KEYS = 10000;
+    private static final long DEFAULT_RELOAD_SECONDS = 60;
+    private static final long PURGE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final int MAX_REPORTED_SOURCES = 200;
+    // Not a valid source name or IP, so it cannot collide with a real key
+    private static final String OVERFLOW_KEY = "*overflow*";
+
+    private final PluginSettingsFactory pluginSettingsFactory;
+    private final Limits defaults;
+    private final int maxTrackedKeys;
+    private final long reloadNanos;
+
+    private volatile Limits limits;
+    private final AtomicLong nextReload = new AtomicLong();
+    private final Buckets sourceBuckets = new Buckets();
+    private final Buckets ipBuckets = new Buckets();
+
+    // 📊 METRICS
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder sourceRejections = new LongAdder();
+    private final LongAdder ipRejections = new LongAdder();
+    private final Map<String, LongAdder> rejectionsBySource = new ConcurrentHashMap<>();
+
+    @Inject
+    public WebhookRateLimiter(PluginSettingsFactory pluginSettingsFactory) {
+        this.pluginSettingsFactory = pluginSettingsFactory;
+        this.defaults = new Limits(
+            new Limit(PluginConfiguration.getInt("webhook.ratelimit.source.per.second", DEFAULT_SOURCE_PER_SECOND),
+                PluginConfiguration.getInt("webhook.ratelimit.source.burst", DEFAULT_SOURCE_BURST)),
+            new Limit(PluginConfiguration.getInt("webhook.ratelimit.ip.per.second", DEFAULT_IP_PER_SECOND),
+                PluginConfiguration.getInt("webhook.ratelimit.ip.burst", DEFAULT_IP_BURST)),
+            Collections.emptyMap());
+        this.maxTrackedKeys = Math.max(1, PluginConfiguration.getInt("webhook.ratelimit.max.keys", DEFAULT_MAX_TRACKED_KEYS));
+        this.reloadNanos = TimeUnit.SECONDS.toNanos(Math.max(1,
+            PluginConfiguration.getLong("webhook.ratelimit.reload.seconds", DEFAULT_RELOAD_SECONDS)));
+        this.limits = defaults;
+        this.nextReload.set(System.nanoTime());
+    }
+
+    /**
+     * 🚦 ADMIT: Take one token from the source's and the client IP's bucket.
+     *
+     * @return 0 if the request may proceed, otherwise nanoseconds until it would be allowed
+     */
+    public long tryAcquire(String source, String clientIp) {
+        long now = System.nanoTime();
+        Limits current = currentLimits(now);
+        Limit sourceLimit = current.forSource(source);
+
+        AtomicLong sourceBucket = bucket(sourceBuckets, source, sourceLimit, now);
+        long wait = acquire(sourceBucket, sourceLimit, now);
+        if (wait > 0) {
+            sourceRejections.increment();
+            recordRejection(source);
+            return wait;
+        }
+        wait = acquire(bucket(ipBuckets, clientIp, current.ip, now), current.ip, now);
+        if (wait > 0) {
+            // One flooding IP must not use up the budget of everyone sharing its source
+            refund(sourceBucket, sourceLimit);
+            ipRejections.increment();
+            recordRejection(source);
+            return wait;
+        }
+        allowed.increment();
+        return 0;
+    }
+
+    /**
+     * Whole seconds for a {@code Retry-After} header, at least 1.
+     */
+    public static long retryAfterSeconds(long waitNanos) {
+        return Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    public Limits getLimits() {
+        return currentLimits(System.nanoTime());
+    }
+
+    /**
+     * 🔧 CONFIG: Persist new limits and apply them on this node immediately; other nodes
+     * pick them up on their next reload.
+     */
+    public void updateLimits(Limits updated) {
+        settings().put(SETTINGS_KEY, updated.toJson().toString());
+        limits = updated;
+        nextReload.set(System.nanoTime() + reloadNanos);
+        log.info("Webhook rate limits updated: {}", updated.toJson());
+    }
+
+    /**
+     * 🔧 CONFIG: Drop saved limits and return to the configured defaults.
+     */
+    public void resetLimits() {
+        settings().remove(SETTINGS_KEY);
+        limits = defaults;
+        nextReload.set(System.nanoTime() + reloadNanos);
+        log.info("Webhook rate limits reset to defaults");
+    }
+
+    /**
+     * 📊 METRICS: Admission counts and rejections per source for health reporting
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("allowed", allowed.sum());
+        metrics.put("sourceRejections", sourceRejections.sum());
+        metrics.put("ipRejections", ipRejections.sum());
+        metrics.put("trackedSources", sourceBuckets.byKey.size());
+        metrics.put("trackedIps", ipBuckets.byKey.size());
+        Map<String, Object> bySource = new LinkedHashMap<>();
+        rejectionsBySource.forEach((source, count) -> bySource.put(source, count.sum()));
+        metrics.put("rejectionsBySource", bySource);
+        metrics.put("limits", limits.toJson().toMap());
+        return metrics;
+    }
+
+    /**
+     * Bucket for a key, or null if the key is not limited; past the cap a new key gets
+     * the overflow bucket.
+     */
+    private AtomicLong bucket(Buckets buckets, String key, Limit limit, long now) {
+        if (key == null || limit.isUnlimited()) {
+            return null;
+        }
+        AtomicLong bucket = buckets.byKey.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.byKey.size() >= maxTrackedKeys) {
+            purgeIdle(buckets, now);
+        }
+        String tracked = buckets.byKey.size() < maxTrackedKeys ? key : OVERFLOW_KEY;
+        return buckets.byKey.computeIfAbsent(tracked, k -> new AtomicLong(now));
+    }
+
+    private long acquire(AtomicLong bucket, Limit limit, long now) {
+        if (bucket == null) {
+            return 0;
+        }
+        for (;;) {
+            long arrival = bucket.get();
+            long next = Math.max(arrival, now) + limit.intervalNanos;
+            long excess = next - now - limit.toleranceNanos;
+            if (excess > 0) {
+                return excess;
+            }
+            if (bucket.compareAndSet(arrival, next)) {
+                return 0;
+            }
+        }
+    }
+
+    private void refund(AtomicLong bucket, Limit limit) {
+        if (bucket != null) {
+            bucket.addAndGet(-limit.intervalNanos);
+        }
+    }
+
+    /**
+     * A bucket whose arrival time has passed is full again and indistinguishable from a
+     * new one, so it can be dropped; done at most once per second per map.
+     */
+    private void purgeIdle(Buckets buckets, long now) {
+        long last = buckets.lastPurge.get();
+        if (now - last < PURGE_INTERVAL_NANOS || !buckets.lastPurge.compareAndSet(last, now)) {
+            return;
+        }
+        buckets.byKey.values().removeIf(bucket -> bucket.get() - now <= 0);
+    }
+
+    private void recordRejection(String source) {
+        if (source == null) {
+            return;
+        }
+        LongAdder count = rejectionsBySource.get(source);
+        if (count == null) {
+            String label = rejectionsBySource.size() >= MAX_REPORTED_SOURCES ? "other" : source;
+            count = rejectionsBySource.computeIfAbsent(label, s -> new LongAdder());
+        }
+        count.increment();
+    }
+
+    private Limits currentLimits(long now) {
+        long due = nextReload.get();
+        if (now - due >= 0 && nextReload.compareAndSet(due, now + reloadNanos)) {
+            limits = loadLimits();
+        }
+        return limits;
+    }
+
+    private Limits loadLimits() {
+        try {
+            Object saved = settings().get(SETTINGS_KEY);
+            return saved == null ? defaults : Limits.fromJson(new JSONObject(saved.toString()), defaults);
+        } catch (Exception e) {
+            log.warn("Unable to load webhook rate limits, keeping current limits: {}", e.getMessage());
+            return limits;
+        }
+    }
+
+    private PluginSettings settings() {
+        return pluginSettingsFactory.createGlobalSettings();
+    }
+
+    private static final class Buckets {
+        final Map<String, AtomicLong> byKey = new ConcurrentHashMap<>();
+        final AtomicLong lastPurge = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Sustained rate and burst size for one bucket; a rate of 0 disables the limit.
+     */
+    public static final class Limit {
+        private final double perSecond;
+        private final int burst;
+        private final long intervalNanos;
+        private final long toleranceNanos;
+
+        public Limit(double perSecond, int burst) {
+            if (perSecond < 0 || burst < 1) {
+                throw new IllegalArgumentException("perSecond must be >= 0 and burst >= 1");
+            }
+            this.perSecond = perSecond;
+            this.burst = burst;
+            this.intervalNanos = perSecond == 0 ? 0 : Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / perSecond));
+            this.toleranceNanos = intervalNanos * burst;
+        }
+
+        public boolean isUnlimited() {
+            return perSecond == 0;
+        }
+
+        JSONObject toJson() {
+            JSONObject json = new JSONObject();
+            json.put("perSecond", perSecond);
+            json.put("burst", burst);
+            return json;
+        }
+
+        static Limit fromJson(JSONObject json, Limit fallback) {
+            if (json == null) {
+                return fallback;
+            }
+            return new Limit(json.optDouble("perSecond", fallback.perSecond), json.optInt("burst", fallback.burst));
+        }
+    }
+
+    /**
+     * Complete limit configuration: defaults per source and per IP, plus per-source overrides.
+     */
+    public static final class Limits {
+        private final Limit source;
+        private final Limit ip;
+        private final Map<String, Limit> sources;
+
+        public Limits(Limit source, Limit ip, Map<String, Limit> sources) {
+            this.source = source;
+            this.ip = ip;
+            this.sources = Collections.unmodifiableMap(new LinkedHashMap<>(sources));
+        }
+
+        Limit forSource(String name) {
+            Limit override = name == null ? null : sources.get(name);
+            return override != null ? override : source;
+        }
+
+        public JSONObject toJson() {
+            JSONObject json = new JSONObject();
+            json.put("source", source.toJson());
+            json.put("ip", ip.toJson());
+            JSONObject overrides = new JSONObject();
+            sources.forEach((name, limit) -> overrides.put(name, limit.toJson()));
+            json.put("sources", overrides);
+            return json;
+        }
+
+        /**
+         * Parse {@code {"source": {...}, "ip": {...}, "sources": {"name": {...}}}}; missing
+         * parts keep the values of {@code base}.
+         *
+         * @throws IllegalArgumentException if a value is malformed or out of range
+         */
+        public static Limits fromJson(JSONObject json, Limits base) {
+            try {
+                Map<String, Limit> overrides = new LinkedHashMap<>();
+                JSONObject named = json.optJSONObject("sources");
+                if (named == null) {
+                    overrides.putAll(base.sources);
+                } else {
+                    for (String name : named.keySet()) {
+                        overrides.put(name, Limit.fromJson(named.getJSONObject(name), base.source));
+                    }
+                }
+                return new Limits(Limit.fromJson(json.optJSONObject("source"), base.source),
+                    Limit.fromJson(json.optJSONObject("ip"), base.ip), overrides);
+            } catch (JSONException e) {
+                throw new IllegalArgumentException("Invalid rate limit configuration: " + e.getMessage(), e);
+            }
+        }
+    }
+}
@@ -7,8 +7,13 @@ import javax.annotation.security.RolesAllowed;
 import javax.inject.Inject;
 import javax.inject.Named;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+
+import org.json.JSONArray;
 import org.json.JSONObject;
-import org.json.JSONException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -17,14 +22,30 @@ import com.atlassian.jira.user.ApplicationUser;
 import com.atlassian.sal.api.user.UserManager;
 import com.atlassian.sal.api.user.UserProfile;
 
+import com.example.itil.metrics.PipelineMetrics;
+import com.example.itil.metrics.PipelineMetrics.Stage;
+import com.example.itil.service.AlertDeduplicator;
+import com.example.itil.service.AlertIngestionQueue;
+import com.example.itil.service.IdempotencyStore;
+import com.example.itil.service.IncidentCreationLimiter;
 import com.example.itil.service.IssueCreatorService;
 import com.example.itil.service.LinkingService;
+import com.example.itil.security.InputSanitizer;
 import com.example.itil.security.WebhookAuthenticationService;
+import com.example.itil.security.WebhookRateLimiter;
 import com.example.itil.validation.WebhookValidator;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.regex.Pattern;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Path("/webhook")
 @Consumes(MediaType.APPLICATION_JSON)
@@ -40,11 +61,25 @@ public class WebhookResource {
     private final WebhookValidator validator;
     private final UserManager userManager;
     private final JiraAuthenticationContext jiraAuthContext;
+    private final AlertIngestionQueue ingestionQueue;
+    private final AlertDeduplicator deduplicator;
+    private final WebhookRateLimiter rateLimiter;
+    private final IncidentCreationLimiter creationLimiter;
+    private final IdempotencyStore idempotencyStore;
+    private final PipelineMetrics pipelineMetrics;
     
     // Security constants
     private static final int MAX_PAYLOAD_SIZE = 1024 * 1024; // 1MB
-    private static final Pattern SAFE_STRING_PATTERN = Pattern.compile("^[a-zA-Z0-9\\s\\-_.,!?()\\[\\]{}:;\"'@#$%^&*+=|\\\\/<>~`]*$");
-    private static final int MAX_STRING_LENGTH = 1000;
+    private static final int MAX_BATCH_PAYLOAD_SIZE = 10 * 1024 * 1024; // 10MB
+    private static final int MAX_BATCH_ITEMS = 500;
+    private static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+    private static final long DEDUP_WAIT_MS = 10000;
+    // The request stream belongs to the container; the parser must not close it before drain()
+    private static final JsonFactory JSON_FACTORY = new JsonFactory().disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+    private static final int QUEUE_FULL_RETRY_AFTER_SECONDS = 5;
+    private static final int TOO_MANY_REQUESTS = 429;
+    private static final int UNPROCESSABLE_ENTITY = 422;
+    private static final long IDEMPOTENCY_WAIT_MS = 10000;
     
     @Inject
     public WebhookResource(
@@ -53,22 +88,230 @@ public class WebhookResource {
             WebhookAuthenticationService authService,
             WebhookValidator validator,
             UserManager userManager,
-            JiraAuthenticationContext jiraAuthContext) {
+            JiraAuthenticationContext jiraAuthContext,
+            AlertIngestionQueue ingestionQueue,
+            AlertDeduplicator deduplicator,
+            WebhookRateLimiter rateLimiter,
+            IncidentCreationLimiter creationLimiter,
+            IdempotencyStore idempotencyStore,
+            PipelineMetrics pipelineMetrics) {
         this.issueCreator = issueCreator;
         this.linkingService = linkingService;
         this.authService = authService;
         this.validator = validator;
         this.userManager = userManager;
         this.jiraAuthContext = jiraAuthContext;
+        this.ingestionQueue = ingestionQueue;
+        this.deduplicator = deduplicator;
+        this.rateLimiter = rateLimiter;
+        this.creationLimiter = creationLimiter;
+        this.idempotencyStore = idempotencyStore;
+        this.pipelineMetrics = pipelineMetrics;
     }
 
     /**
-     * 🔒 SECURE: Webhook endpoint with authentication and validation
+     * 🔒 SECURE: Webhook endpoint with authentication and validation. A retry carrying the
+     * same {@code Idempotency-Key} (or, without one, the same body) gets the original
+     * response back without touching Jira.
      */
     @POST
     @Path("/alert")
     public Response receiveAlert(
-            String body,
+            InputStream body,
+            @Context HttpServletRequest request,
+            @HeaderParam("Authorization") String authHeader,
+            @HeaderParam("X-Webhook-Source") String source,
+            @HeaderParam("X-Webhook-Signature") String signature,
+            @HeaderParam("Idempotency-Key") String idempotencyKey) {
+        
+        long startTime = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+        String clientIp = getClientIpAddress(request);
+        
+        try {
+            if (idempotencyKey != null && !IdempotencyStore.isValidKey(idempotencyKey)) {
+                pipelineMetrics.countOutcome(source, "invalid");
+                return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(createErrorResponse("Invalid request: Idempotency-Key must be 1-"
+                        + IdempotencyStore.MAX_KEY_LENGTH + " printable ASCII characters"))
+                    .build();
+            }
+            
+            AlertAdmission admission = admitAlert(body, request, authHeader, source, signature, clientIp,
+                idempotencyStore.isEnabled());
+            if (admission.rejection != null) {
+                return admission.rejection;
+            }
+            
+            // 🔑 IDEMPOTENCY: Replay or wait for an earlier request with the same key
+            IdempotencyStore.Claim claim = null;
+            for (int attempt = 0; attempt < 2 && admission.payloadDigest != null; attempt++) {
+                claim = idempotencyStore.claim(source, idempotencyKey, admission.payloadDigest);
+                if (claim == null || claim.isOwner()) {
+                    break;
+                }
+                Response replay = replayIdempotent(claim, clientIp, source, startTime);
+                if (replay != null) {
+                    return replay;
+                }
+                // The original failed and released the key; try to take it over
+                claim = null;
+            }
+            
+            // 🎯 PROCESS: Create incident with proper error handling
+            IncidentCreationResult result;
+            Map<String, Object> fields;
+            try {
+                result = processAlert(admission.payload, clientIp, source, false);
+                fields = toResultMap(result);
+            } catch (Throwable e) {
+                // Errors too, or the key would stay in flight and every retry get 409
+                if (claim != null) {
+                    idempotencyStore.abandon(claim, e);
+                }
+                throw e;
+            }
+            if (claim != null) {
+                idempotencyStore.complete(claim, fields);
+            }
+            pipelineMetrics.countOutcome(source, result.deduplicated ? "deduplicated" : "created");
+            
+            // 📝 AUDIT: Log successful processing
+            long processingTime = System.currentTimeMillis() - startTime;
+            log.info("Successfully processed alert from {} in {}ms, created incident: {}", 
+                    clientIp, processingTime, result.incidentKey);
+            
+            // 📤 RESPONSE: Return success response
+            JSONObject response = new JSONObject(fields);
+            response.put("success", true);
+            response.put("processingTimeMs", processingTime);
+            
+            return Response.ok(response.toString()).build();
+            
+        } catch (Exception e) {
+            return handleProcessingError(e, clientIp, source);
+        } finally {
+            pipelineMetrics.recordSince(Stage.WEBHOOK_TOTAL, startNanos);
+        }
+    }
+    
+    /**
+     * 📥 ASYNC: Validate, authenticate and enqueue; incident creation happens on the worker pool
+     */
+    @POST
+    @Path("/alert/async")
+    public Response receiveAlertAsync(
+            InputStream body,
+            @Context HttpServletRequest request,
+            @Context UriInfo uriInfo,
+            @HeaderParam("Authorization") String authHeader,
+            @HeaderParam("X-Webhook-Source") String source,
+            @HeaderParam("X-Webhook-Signature") String signature) {
+        
+        String clientIp = getClientIpAddress(request);
+        
+        try {
+            AlertAdmission admission = admitAlert(body, request, authHeader, source, signature, clientIp, false);
+            if (admission.rejection != null) {
+                return admission.rejection;
+            }
+            
+            AlertPayload alertData = admission.payload;
+            AlertIngestionQueue.IngestionStatus status = ingestionQueue.submit(source,
+                () -> toResultMap(processAlert(alertData, clientIp, source, true)));
+            
+            // 🚦 BACKPRESSURE: Queue full, ask the sender to retry later
+            if (status == null) {
+                pipelineMetrics.countOutcome(source, "queue_full");
+                return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .header("Retry-After", QUEUE_FULL_RETRY_AFTER_SECONDS)
+                    .entity(createErrorResponse("Alert queue full"))
+                    .build();
+            }
+            
+            URI statusUri = uriInfo.getBaseUriBuilder()
+                .path(WebhookResource.class)
+                .path("alert/status")
+                .path(status.getTrackingId())
+                .build();
+            
+            log.debug("Queued alert from {} with tracking id {}", clientIp, status.getTrackingId());
+            pipelineMetrics.countOutcome(source, "queued");
+            
+            JSONObject response = new JSONObject();
+            response.put("success", true);
+            response.put("trackingId", status.getTrackingId());
+            response.put("status", status.getState().name());
+            response.put("statusUrl", statusUri.toString());
+            
+            return Response.status(Response.Status.ACCEPTED)
+                .location(statusUri)
+                .entity(response.toString())
+                .build();
+            
+        } catch (Exception e) {
+            return handleProcessingError(e, clientIp, source);
+        }
+    }
+    
+    /**
+     * 🔍 STATUS: Poll the outcome of an alert accepted by the async endpoint
+     */
+    @GET
+    @Path("/alert/status/{trackingId}")
+    public Response getAlertStatus(
+            @PathParam("trackingId") String trackingId,
+            @Context HttpServletRequest request) {
+        
+        String clientIp = getClientIpAddress(request);
+        
+        // 🔒 SECURITY: Tracking ids are unguessable, but still restrict to known senders
+        if (!validator.isIpWhitelisted(clientIp)) {
+            log.warn("Status lookup from non-whitelisted IP {}", clientIp);
+            return Response.status(Response.Status.FORBIDDEN)
+                .entity(createErrorResponse("Access denied"))
+                .build();
+        }
+        
+        AlertIngestionQueue.IngestionStatus status = ingestionQueue.getStatus(trackingId);
+        if (status == null) {
+            return Response.status(Response.Status.NOT_FOUND)
+                .entity(createErrorResponse("Unknown or expired tracking id"))
+                .build();
+        }
+        
+        JSONObject response = new JSONObject();
+        response.put("success", true);
+        response.put("trackingId", status.getTrackingId());
+        response.put("status", status.getState().name());
+        response.put("acceptedAt", status.getAcceptedAt());
+        
+        if (status.getFinishedAt() > 0) {
+            response.put("finishedAt", status.getFinishedAt());
+        }
+        
+        Map<String, Object> result = status.getResult();
+        if (result != null) {
+            result.forEach(response::put);
+        }
+        
+        if (status.getState() == AlertIngestionQueue.State.FAILED) {
+            response.put("error", "Failed to process alert");
+        }
+        
+        return Response.ok(response.toString()).build();
+    }
+    
+    /**
+     * 📦 BATCH: Grouped alerts as a JSON array or newline-delimited JSON.
+     * Authentication and signature checks run once for the whole request; items are
+     * parsed and processed one at a time and reported individually.
+     */
+    @POST
+    @Path("/alerts")
+    @Consumes({MediaType.APPLICATION_JSON, NDJSON_MEDIA_TYPE, MediaType.TEXT_PLAIN})
+    public Response receiveAlerts(
+            InputStream body,
             @Context HttpServletRequest request,
             @HeaderParam("Authorization") String authHeader,
             @HeaderParam("X-Webhook-Source") String source,
@@ -78,88 +321,412 @@ public class WebhookResource {
         String clientIp = getClientIpAddress(request);
         
         try {
-            // 🔒 SECURITY: Input validation
-            ValidationResult validation = validateRequest(body, authHeader, source, signature, clientIp);
+            // 🔒 SECURITY: Input validation, once per request
+            ValidationResult validation = validateRequest(authHeader, source, signature, clientIp);
             if (!validation.isValid) {
-                log.warn("Invalid webhook request from {}: {}", clientIp, validation.error);
+                log.warn("Invalid batch webhook request from {}: {}", clientIp, validation.error);
+                pipelineMetrics.countOutcome(source, "invalid");
                 return Response.status(Response.Status.BAD_REQUEST)
                     .entity(createErrorResponse("Invalid request: " + validation.error))
                     .build();
             }
             
-            // 🔒 AUTHENTICATION: Verify webhook authentication
-            if (!authService.authenticateWebhook(authHeader, signature, body, source)) {
-                log.warn("Unauthorized webhook request from {} with source {}", clientIp, source);
+            // 🚦 RATE LIMIT: Before the body is read or the signature computed; this token
+            // pays for the first item, every further item takes its own
+            long waitNanos = rateLimiter.tryAcquire(source, clientIp);
+            if (waitNanos > 0) {
+                log.warn("Rate limited batch webhook request from {} with source {}", clientIp, source);
+                pipelineMetrics.countOutcome(source, "rate_limited");
+                return tooManyRequests(waitNanos);
+            }
+            
+            // 📏 READ: The signature covers the whole batch, so it is read (bounded) before any item runs
+            BoundedCaptureInputStream in = new BoundedCaptureInputStream(
+                body, MAX_BATCH_PAYLOAD_SIZE, request.getContentLengthLong());
+            try {
+                in.drain();
+            } catch (BoundedCaptureInputStream.PayloadTooLargeException e) {
+                log.warn("Invalid batch webhook request from {}: Payload too large", clientIp);
+                pipelineMetrics.countOutcome(source, "invalid");
+                return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(createErrorResponse("Invalid request: Payload too large"))
+                    .build();
+            }
+            
+            if (in.size() == 0) {
+                pipelineMetrics.countOutcome(source, "invalid");
+                return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(createErrorResponse("Invalid request: Empty payload"))
+                    .build();
+            }
+            
+            // 🔒 AUTHENTICATION: Signature covers the whole batch body
+            if (!authService.authenticateWebhook(authHeader, signature, in.bytes(), in.size(), source)) {
+                log.warn("Unauthorized batch webhook request from {} with source {}", clientIp, source);
+                pipelineMetrics.countOutcome(source, "unauthorized");
                 return Response.status(Response.Status.UNAUTHORIZED)
                     .entity(createErrorResponse("Unauthorized"))
                     .build();
             }
             
-            // 📊 PARSE: Parse and validate JSON payload
-            AlertPayload alertData = parseAlertPayload(body);
-            if (alertData == null) {
-                log.error("Failed to parse alert payload from {}", clientIp);
+            BatchResult batch = new BatchResult();
+            batch.prepaidTokens = 1;
+            byte[] bytes = in.bytes();
+            int length = in.size();
+            int first = firstNonWhitespace(bytes, 0, length);
+            
+            if (first < length && bytes[first] == '[') {
+                processJsonArray(bytes, length, batch, clientIp, source);
+            } else if (first < length && bytes[first] == '{') {
+                processNdjson(bytes, length, batch, clientIp, source);
+            } else {
+                pipelineMetrics.countOutcome(source, "invalid");
                 return Response.status(Response.Status.BAD_REQUEST)
-                    .entity(createErrorResponse("Invalid JSON payload"))
+                    .entity(createErrorResponse("Expected JSON array or newline-delimited JSON objects"))
                     .build();
             }
             
-            // 🎯 PROCESS: Create incident with proper error handling
-            IncidentCreationResult result = processAlert(alertData, clientIp, source);
-            
-            // 📝 AUDIT: Log successful processing
+            // 📝 AUDIT: Log batch outcome
             long processingTime = System.currentTimeMillis() - startTime;
-            log.info("Successfully processed alert from {} in {}ms, created incident: {}", 
-                    clientIp, processingTime, result.incidentKey);
+            log.info("Processed alert batch from {} in {}ms: {} received, {} succeeded, {} failed", 
+                    clientIp, processingTime, batch.received, batch.succeeded, batch.failed);
             
-            // 📤 RESPONSE: Return success response
             JSONObject response = new JSONObject();
-            response.put("success", true);
-            response.put("incidentId", result.incidentId);
-            response.put("incidentKey", result.incidentKey);
+            response.put("success", batch.failed == 0 && !batch.truncated);
+            response.put("received", batch.received);
+            response.put("succeeded", batch.succeeded);
+            response.put("failed", batch.failed);
+            response.put("truncated", batch.truncated);
+            response.put("rateLimited", batch.rateLimitedNanos > 0);
             response.put("processingTimeMs", processingTime);
+            response.put("results", batch.results);
             
-            if (result.linkedProblemId != null) {
-                response.put("linkedProblemId", result.linkedProblemId);
+            Response.ResponseBuilder builder = Response.ok(response.toString());
+            if (batch.rateLimitedNanos > 0) {
+                // Items from the first rate-limited one on were not processed and can be resent
+                builder.header("Retry-After", WebhookRateLimiter.retryAfterSeconds(batch.rateLimitedNanos));
             }
+            return builder.build();
             
-            return Response.ok(response.toString()).build();
+        } catch (Exception e) {
+            return handleProcessingError(e, clientIp, source);
+        }
+    }
+    
+    /**
+     * 📦 BATCH: Stream array elements with a single parser; each element is processed as it is read
+     */
+    private void processJsonArray(byte[] bytes, int length, BatchResult batch, String clientIp, String source)
+            throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(bytes, 0, length)) {
+            parser.nextToken(); // START_ARRAY
+            
+            while (true) {
+                JsonToken token;
+                try {
+                    token = parser.nextToken();
+                } catch (JsonProcessingException e) {
+                    // Array framing is lost after a syntax error, nothing further can be read safely
+                    log.warn("Malformed JSON in alert batch from {} at item {}: {}", clientIp, batch.received, e.getOriginalMessage());
+                    batch.recordFailure("Malformed JSON");
+                    batch.truncated = true;
+                    return;
+                }
+                
+                if (token == JsonToken.END_ARRAY) {
+                    return;
+                }
+                if (token == null) {
+                    log.warn("Unterminated JSON array in alert batch from {} after item {}", clientIp, batch.received);
+                    batch.truncated = true;
+                    return;
+                }
+                if (batch.received >= MAX_BATCH_ITEMS) {
+                    batch.truncated = true;
+                    return;
+                }
+                
+                AlertPayload alertData;
+                try {
+                    if (token != JsonToken.START_OBJECT) {
+                        parser.skipChildren();
+                        batch.recordFailure("Alert must be a JSON object");
+                        continue;
+                    }
+                    alertData = readAlertPayload(parser);
+                } catch (JsonProcessingException e) {
+                    log.warn("Malformed JSON in alert batch from {} at item {}: {}", clientIp, batch.received, e.getOriginalMessage());
+                    batch.recordFailure("Malformed JSON");
+                    batch.truncated = true;
+                    return;
+                }
+                
+                processBatchItem(alertData, batch, clientIp, source);
+            }
+        }
+    }
+    
+    /**
+     * 📦 BATCH: One JSON object per line; a bad line fails only that item
+     */
+    private void processNdjson(byte[] bytes, int length, BatchResult batch, String clientIp, String source)
+            throws IOException {
+        int lineStart = 0;
+        
+        while (lineStart < length) {
+            int lineEnd = lineStart;
+            while (lineEnd < length && bytes[lineEnd] != '\n') {
+                lineEnd++;
+            }
+            
+            int start = firstNonWhitespace(bytes, lineStart, lineEnd);
+            int next = lineEnd + 1;
+            if (start == lineEnd) {
+                lineStart = next;
+                continue;
+            }
+            
+            if (batch.received >= MAX_BATCH_ITEMS) {
+                batch.truncated = true;
+                return;
+            }
             
-        } catch (SecurityException e) {
+            AlertPayload alertData;
+            try (JsonParser parser = JSON_FACTORY.createParser(bytes, start, lineEnd - start)) {
+                if (parser.nextToken() != JsonToken.START_OBJECT) {
+                    batch.recordFailure("Alert must be a JSON object");
+                    lineStart = next;
+                    continue;
+                }
+                alertData = readAlertPayload(parser);
+            } catch (JsonProcessingException e) {
+                log.warn("Malformed JSON line in alert batch from {} at item {}: {}", clientIp, batch.received, e.getOriginalMessage());
+                batch.recordFailure("Malformed JSON");
+                lineStart = next;
+                continue;
+            }
+            
+            processBatchItem(alertData, batch, clientIp, source);
+            lineStart = next;
+        }
+    }
+    
+    /**
+     * 🎯 BATCH: Process a single parsed item, recording its outcome
+     */
+    private void processBatchItem(AlertPayload alertData, BatchResult batch, String clientIp, String source) {
+        if (alertData == null) {
+            pipelineMetrics.countOutcome(source, "invalid");
+            batch.recordFailure("Invalid alert payload");
+            return;
+        }
+        
+        // 🚦 RATE LIMIT: One token per alert; once a bucket is empty the rest of the batch is rejected
+        if (batch.rateLimitedNanos == 0 && batch.prepaidTokens > 0) {
+            batch.prepaidTokens--;
+        } else if (batch.rateLimitedNanos == 0) {
+            batch.rateLimitedNanos = rateLimiter.tryAcquire(source, clientIp);
+        }
+        if (batch.rateLimitedNanos > 0) {
+            pipelineMetrics.countOutcome(source, "rate_limited");
+            batch.recordFailure("Rate limit exceeded");
+            return;
+        }
+        
+        try {
+            IncidentCreationResult result = processAlert(alertData, clientIp, source, false);
+            pipelineMetrics.countOutcome(source, result.deduplicated ? "deduplicated" : "created");
+            batch.recordSuccess(toResultMap(result));
+        } catch (CreationShedException e) {
+            pipelineMetrics.countOutcome(source, "shed");
+            batch.recordFailure("Overloaded, retry later");
+        } catch (Exception e) {
+            pipelineMetrics.countOutcome(source, "error");
+            batch.recordFailure("Failed to create incident");
+        }
+    }
+    
+    private static int firstNonWhitespace(byte[] bytes, int from, int to) {
+        int i = from;
+        while (i < to && (bytes[i] == ' ' || bytes[i] == '\t' || bytes[i] == '\r' || bytes[i] == '\n')) {
+            i++;
+        }
+        return i;
+    }
+    
+    /**
+     * 🔒 ADMISSION: Validation, authentication and parsing shared by the sync and async endpoints.
+     * Each stage is timed once it passes; a request rejected within a stage is only counted.
+     */
+    private AlertAdmission admitAlert(InputStream body, HttpServletRequest request, String authHeader,
+                                      String source, String signature, String clientIp,
+                                      boolean digestPayload) throws IOException {
+        
+        // 🔒 SECURITY: Input validation
+        long stageStart = System.nanoTime();
+        ValidationResult validation = validateRequest(authHeader, source, signature, clientIp);
+        if (!validation.isValid) {
+            log.warn("Invalid webhook request from {}: {}", clientIp, validation.error);
+            pipelineMetrics.countOutcome(source, "invalid");
+            return AlertAdmission.rejected(Response.status(Response.Status.BAD_REQUEST)
+                .entity(createErrorResponse("Invalid request: " + validation.error))
+                .build());
+        }
+        
+        // 🚦 RATE LIMIT: Before the body is read or the signature computed
+        long waitNanos = rateLimiter.tryAcquire(source, clientIp);
+        if (waitNanos > 0) {
+            log.warn("Rate limited webhook request from {} with source {}", clientIp, source);
+            pipelineMetrics.countOutcome(source, "rate_limited");
+            return AlertAdmission.rejected(tooManyRequests(waitNanos));
+        }
+        stageStart += pipelineMetrics.recordSince(Stage.WEBHOOK_VALIDATE, stageStart);
+        
+        // 📊 PARSE: Stream the body through the size limit, keeping the raw bytes for the signature
+        BoundedCaptureInputStream in = new BoundedCaptureInputStream(
+            body, MAX_PAYLOAD_SIZE, request.getContentLengthLong());
+        AlertPayload alertData = null;
+        String parseError = null;
+        try {
+            try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+                if (parser.nextToken() == JsonToken.START_OBJECT) {
+                    alertData = readAlertPayload(parser);
+                }
+            } catch (JsonProcessingException e) {
+                // Not authenticated yet: anyone could post garbage, so only report it below once signed
+                parseError = e.getOriginalMessage();
+                log.debug("Invalid JSON in alert payload from {}: {}", clientIp, parseError);
+            }
+            in.drain();
+        } catch (BoundedCaptureInputStream.PayloadTooLargeException e) {
+            log.warn("Invalid webhook request from {}: Payload too large", clientIp);
+            pipelineMetrics.countOutcome(source, "invalid");
+            return AlertAdmission.rejected(Response.status(Response.Status.BAD_REQUEST)
+                .entity(createErrorResponse("Invalid request: Payload too large"))
+                .build());
+        }
+        stageStart += pipelineMetrics.recordSince(Stage.WEBHOOK_PARSE, stageStart);
+        
+        if (in.size() == 0) {
+            log.warn("Invalid webhook request from {}: Empty payload", clientIp);
+            pipelineMetrics.countOutcome(source, "invalid");
+            return AlertAdmission.rejected(Response.status(Response.Status.BAD_REQUEST)
+                .entity(createErrorResponse("Invalid request: Empty payload"))
+                .build());
+        }
+        
+        // 🔒 AUTHENTICATION: Verify webhook authentication over the captured raw bytes
+        if (!authService.authenticateWebhook(authHeader, signature, in.bytes(), in.size(), source)) {
+            log.warn("Unauthorized webhook request from {} with source {}", clientIp, source);
+            pipelineMetrics.countOutcome(source, "unauthorized");
+            return AlertAdmission.rejected(Response.status(Response.Status.UNAUTHORIZED)
+                .entity(createErrorResponse("Unauthorized"))
+                .build());
+        }
+        pipelineMetrics.recordSince(Stage.WEBHOOK_AUTH, stageStart);
+        
+        if (alertData == null) {
+            log.error("Failed to parse alert payload from {}: {}", clientIp,
+                parseError != null ? parseError : "not a JSON object");
+            pipelineMetrics.countOutcome(source, "invalid");
+            return AlertAdmission.rejected(Response.status(Response.Status.BAD_REQUEST)
+                .entity(createErrorResponse("Invalid JSON payload"))
+                .build());
+        }
+        
+        return AlertAdmission.accepted(alertData, digestPayload ? IdempotencyStore.digest(in.bytes(), in.size()) : null);
+    }
+    
+    /**
+     * 🔑 IDEMPOTENCY: Response for a request whose key is already known, or null if the
+     * original failed and this request should be processed after all
+     */
+    private Response replayIdempotent(IdempotencyStore.Claim claim, String clientIp, String source, long startTime)
+            throws InterruptedException {
+        if (claim.isConflict()) {
+            log.warn("Idempotency-Key from {} reused with a different payload", clientIp);
+            pipelineMetrics.countOutcome(source, "idempotency_conflict");
+            return Response.status(UNPROCESSABLE_ENTITY)
+                .entity(createErrorResponse("Idempotency-Key was already used with a different payload"))
+                .build();
+        }
+        
+        Map<String, Object> original;
+        try {
+            // The original may still be creating its incident
+            original = claim.getResult().get(IDEMPOTENCY_WAIT_MS, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            return null;
+        } catch (TimeoutException e) {
+            pipelineMetrics.countOutcome(source, "idempotency_in_progress");
+            return Response.status(Response.Status.CONFLICT)
+                .header("Retry-After", 1)
+                .entity(createErrorResponse("A request with this Idempotency-Key is still being processed"))
+                .build();
+        }
+        
+        log.debug("Replayed idempotent alert response from {} for incident {}", clientIp, original.get("incidentKey"));
+        pipelineMetrics.countOutcome(source, "replayed");
+        
+        JSONObject response = new JSONObject(original);
+        response.put("success", true);
+        response.put("idempotentReplay", true);
+        response.put("processingTimeMs", System.currentTimeMillis() - startTime);
+        return Response.ok(response.toString()).header("Idempotent-Replayed", "true").build();
+    }
+    
+    /**
+     * 🚦 RATE LIMIT: 429 with the time until the sender's bucket has a token again
+     */
+    private Response tooManyRequests(long waitNanos) {
+        return Response.status(TOO_MANY_REQUESTS)
+            .header("Retry-After", WebhookRateLimiter.retryAfterSeconds(waitNanos))
+            .entity(createErrorResponse("Rate limit exceeded"))
+            .build();
+    }
+    
+    /**
+     * ⚠️ ERRORS: Map processing exceptions to HTTP responses, counting each by error class
+     */
+    private Response handleProcessingError(Exception e, String clientIp, String source) {
+        if (e instanceof CreationShedException) {
+            log.warn("Shed alert from {}: {}", clientIp, e.getMessage());
+            pipelineMetrics.countOutcome(source, "shed");
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .header("Retry-After", creationLimiter.getRetryAfterSeconds())
+                .entity(createErrorResponse("Overloaded, retry later"))
+                .build();
+        }
+        
+        if (e instanceof SecurityException) {
             log.warn("Security violation in webhook from {}: {}", clientIp, e.getMessage());
+            pipelineMetrics.countOutcome(source, "forbidden");
             return Response.status(Response.Status.FORBIDDEN)
                 .entity(createErrorResponse("Access denied"))
                 .build();
-                
-        } catch (IllegalArgumentException e) {
+        }
+        
+        if (e instanceof IllegalArgumentException) {
             log.warn("Invalid argument in webhook from {}: {}", clientIp, e.getMessage());
+            pipelineMetrics.countOutcome(source, "invalid");
             return Response.status(Response.Status.BAD_REQUEST)
                 .entity(createErrorResponse("Invalid input: " + e.getMessage()))
                 .build();
-                
-        } catch (Exception e) {
-            log.error("Unexpected error processing webhook from {}: {}", clientIp, e.getMessage(), e);
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                .entity(createErrorResponse("Internal server error"))
-                .build();
         }
+        
+        log.error("Unexpected error processing webhook from {}: {}", clientIp, e.getMessage(), e);
+        pipelineMetrics.countOutcome(source, "error");
+        return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+            .entity(createErrorResponse("Internal server error"))
+            .build();
     }
     
     /**
      * 🔒 VALIDATION: Comprehensive request validation
      */
-    private ValidationResult validateRequest(String body, String authHeader, String source, 
+    private ValidationResult validateRequest(String authHeader, String source, 
                                            String signature, String clientIp) {
         
-        // Check payload size
-        if (body == null || body.isEmpty()) {
-            return new ValidationResult(false, "Empty payload");
-        }
-        
-        if (body.length() > MAX_PAYLOAD_SIZE) {
-            return new ValidationResult(false, "Payload too large");
-        }
-        
         // Check required headers
         if (authHeader == null || authHeader.trim().isEmpty()) {
             return new ValidationResult(false, "Missing Authorization header");
@@ -183,74 +750,163 @@ public class WebhookResource {
     }
     
     /**
-     * 📊 PARSING: Safe JSON parsing with validation
+     * 📊 PARSING: Streaming extraction of the known alert fields. The parser must be
+     * positioned on START_OBJECT; unknown members and nested values are skipped
+     * without being materialized. Returns null if the alert has no usable summary.
      */
-    private AlertPayload parseAlertPayload(String body) {
-        try {
-            JSONObject json = new JSONObject(body);
-            
-            // 🔒 SANITIZE: Extract and sanitize required fields
-            String summary = sanitizeString(json.optString("summary", "Alert from monitoring"));
-            String description = sanitizeString(json.optString("description", ""));
-            String ciId = sanitizeString(json.optString("ciId", null));
-            String service = sanitizeString(json.optString("service", null));
-            String severity = sanitizeString(json.optString("severity", "Medium"));
-            String alertType = sanitizeString(json.optString("alertType", "Incident"));
-            
-            // Validate required fields
-            if (summary.isEmpty()) {
-                log.warn("Alert payload missing required 'summary' field");
-                return null;
-            }
-            
-            // Create validated payload object
-            AlertPayload payload = new AlertPayload();
-            payload.summary = summary;
-            payload.description = description;
-            payload.ciId = ciId;
-            payload.service = service;
-            payload.severity = severity;
-            payload.alertType = alertType;
-            
-            // Optional fields
-            payload.environment = sanitizeString(json.optString("environment", ""));
-            payload.component = sanitizeString(json.optString("component", ""));
-            payload.tags = json.optJSONArray("tags");
-            
-            return payload;
+    private AlertPayload readAlertPayload(JsonParser parser) throws IOException {
+        String summary = null;
+        String description = null;
+        String ciId = null;
+        String service = null;
+        String severity = null;
+        String alertType = null;
+        String environment = null;
+        String component = null;
+        List<String> tags = null;
+        
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
             
-        } catch (JSONException e) {
-            log.error("Invalid JSON in alert payload: {}", e.getMessage());
+            switch (field) {
+                case "summary":     summary = scalarText(parser, value); break;
+                case "description": description = scalarText(parser, value); break;
+                case "ciId":        ciId = scalarText(parser, value); break;
+                case "service":     service = scalarText(parser, value); break;
+                case "severity":    severity = scalarText(parser, value); break;
+                case "alertType":   alertType = scalarText(parser, value); break;
+                case "environment": environment = scalarText(parser, value); break;
+                case "component":   component = scalarText(parser, value); break;
+                case "tags":        tags = readTags(parser, value); break;
+                default:            parser.skipChildren(); break;
+            }
+        }
+        
+        // 🔒 SANITIZE: Apply defaults, then sanitize
+        summary = sanitizeString(summary != null ? summary : "Alert from monitoring");
+        
+        // Validate required fields
+        if (summary == null || summary.isEmpty()) {
+            log.warn("Alert payload missing required 'summary' field");
             return null;
-        } catch (Exception e) {
-            log.error("Error parsing alert payload: {}", e.getMessage());
+        }
+        
+        // Create validated payload object
+        AlertPayload payload = new AlertPayload();
+        payload.summary = summary;
+        payload.description = sanitizeString(description != null ? description : "");
+        payload.ciId = sanitizeString(ciId);
+        payload.service = sanitizeString(service);
+        payload.severity = sanitizeString(severity != null ? severity : "Medium");
+        payload.alertType = sanitizeString(alertType != null ? alertType : "Incident");
+        
+        // Optional fields
+        payload.environment = sanitizeString(environment != null ? environment : "");
+        payload.component = sanitizeString(component != null ? component : "");
+        payload.tags = tags;
+        
+        return payload;
+    }
+    
+    /**
+     * 📊 PARSING: Text of a scalar value; null for JSON null, objects and arrays (which are skipped)
+     */
+    private static String scalarText(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.START_OBJECT || value == JsonToken.START_ARRAY) {
+            parser.skipChildren();
             return null;
         }
+        return value == JsonToken.VALUE_NULL ? null : parser.getText();
+    }
+    
+    private List<String> readTags(JsonParser parser, JsonToken value) throws IOException {
+        if (value != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return null;
+        }
+        
+        List<String> tags = new ArrayList<>();
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+            String tag = sanitizeString(scalarText(parser, token));
+            if (tag != null) {
+                tags.add(tag);
+            }
+        }
+        return tags;
     }
     
     /**
      * 🎯 PROCESSING: Process alert and create incident
      */
-    private IncidentCreationResult processAlert(AlertPayload alertData, String clientIp, String source) {
+    private IncidentCreationResult processAlert(AlertPayload alertData, String clientIp, String source,
+                                                boolean deferrable) {
         try {
+            // 🔁 DEDUP: Fold repeats of a recent alert into its incident
+            long dedupStart = System.nanoTime();
+            long fingerprint = AlertDeduplicator.fingerprint(
+                alertData.ciId, alertData.service, alertData.alertType, alertData.summary);
+            long dedupDeadline = dedupStart + TimeUnit.MILLISECONDS.toNanos(DEDUP_WAIT_MS);
+            AlertDeduplicator.Registration dedup;
+            IncidentCreationResult folded = null;
+            // An owner that failed or was shed drops its window; registering again makes one
+            // waiter the new owner and folds the rest into its incident
+            do {
+                dedup = deduplicator.register(fingerprint);
+                if (dedup != null && dedup.isDuplicate()) {
+                    folded = foldDuplicate(dedup, clientIp, dedupDeadline);
+                }
+            } while (dedup != null && dedup.isDuplicate() && folded == null);
+            pipelineMetrics.recordSince(Stage.WEBHOOK_DEDUP, dedupStart);
+            if (folded != null) {
+                return folded;
+            }
+            
             // 🎫 CREATE: Create incident with proper error handling
-            Long incidentId = issueCreator.createIncident(
-                alertData.summary,
-                alertData.description,
-                alertData.ciId,
-                alertData.service,
-                alertData.severity,
-                alertData.environment,
-                source
-            );
-            
-            if (incidentId == null) {
-                throw new RuntimeException("Failed to create incident - null ID returned");
+            Long incidentId;
+            try {
+                // 🚦 ADMISSION: Adaptive creation limit; request threads shed, queue workers wait
+                boolean admitted = deferrable ? creationLimiter.acquireDeferred() : creationLimiter.tryAcquire();
+                if (!admitted) {
+                    throw new CreationShedException();
+                }
+                long creationStart = System.nanoTime();
+                incidentId = null;
+                try {
+                    incidentId = issueCreator.createIncident(
+                        alertData.summary,
+                        alertData.description,
+                        alertData.ciId,
+                        alertData.service,
+                        alertData.severity,
+                        alertData.environment,
+                        source
+                    );
+                } finally {
+                    pipelineMetrics.recordSince(Stage.INCIDENT_CREATE, creationStart);
+                    creationLimiter.release(creationStart, incidentId != null);
+                }
+                
+                if (incidentId == null) {
+                    throw new RuntimeException("Failed to create incident - null ID returned");
+                }
+            } catch (Throwable e) {
+                // Errors too, so waiting duplicates are never left blocked on this window
+                if (dedup != null) {
+                    deduplicator.abandon(dedup, e);
+                }
+                throw e;
+            }
+            
+            if (dedup != null) {
+                deduplicator.complete(dedup, incidentId);
             }
             
             // 🔗 LINK: Link to existing problem if CI is provided
             Long linkedProblemId = null;
             if (alertData.ciId != null && !alertData.ciId.isEmpty()) {
+                long linkStart = System.nanoTime();
                 try {
                     linkedProblemId = linkingService.linkIncidentToProblem(incidentId, alertData.ciId);
                     if (linkedProblemId != null) {
@@ -262,13 +918,22 @@ public class WebhookResource {
                             incidentId, alertData.ciId, e.getMessage());
                     // Don't fail the whole operation if linking fails
                 }
+                pipelineMetrics.recordSince(Stage.INCIDENT_LINK, linkStart);
             }
             
             // Get incident key for response
+            long keyStart = System.nanoTime();
             String incidentKey = issueCreator.getIssueKey(incidentId);
+            pipelineMetrics.recordSince(Stage.INCIDENT_KEY, keyStart);
             
             return new IncidentCreationResult(incidentId, incidentKey, linkedProblemId);
             
+        } catch (CreationShedException e) {
+            throw e;
+        } catch (InterruptedException e) {
+            // Keep the interrupt for the caller, e.g. a queue worker being shut down
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted waiting for a repeated alert's incident", e);
         } catch (Exception e) {
             log.error("Error processing alert from {}: {}", clientIp, e.getMessage(), e);
             throw new RuntimeException("Failed to process alert: " + e.getMessage(), e);
@@ -276,31 +941,63 @@ public class WebhookResource {
     }
     
     /**
-     * 🔒 SECURITY: Sanitize string input
+     * 🔁 DEDUP: Attach a repeat to the window owner's incident. Returns null if the owner
+     * failed, so the caller registers again; sheds the alert if the owner is still creating
+     * its incident at {@code deadlineNanos}.
      */
-    private String sanitizeString(String input) {
-        if (input == null) {
+    private IncidentCreationResult foldDuplicate(AlertDeduplicator.Registration dedup, String clientIp,
+                                                 long deadlineNanos) throws InterruptedException {
+        Long incidentId;
+        try {
+            // The first alert may still be creating its incident
+            incidentId = dedup.getIncident().get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
             return null;
+        } catch (TimeoutException e) {
+            throw new CreationShedException("Repeated alert timed out waiting for the first one's incident");
         }
         
-        String trimmed = input.trim();
-        if (trimmed.isEmpty()) {
-            return null;
+        int occurrences = dedup.getOccurrences();
+        int repeats = deduplicator.takeRepeatsToReport(dedup);
+        if (repeats > 0) {
+            try {
+                issueCreator.addAutomationComment(incidentId, AlertDeduplicator.repeatComment(repeats, occurrences));
+            } catch (Exception e) {
+                log.warn("Failed to record repeated alert on incident {}: {}", incidentId, e.getMessage());
+            }
         }
         
-        // Limit length
-        if (trimmed.length() > MAX_STRING_LENGTH) {
-            trimmed = trimmed.substring(0, MAX_STRING_LENGTH);
-        }
+        log.debug("Folded repeated alert from {} into incident {} ({} occurrences)", clientIp, incidentId, occurrences);
         
-        // Check for safe characters
-        if (!SAFE_STRING_PATTERN.matcher(trimmed).matches()) {
-            log.warn("Input contains potentially dangerous characters: {}", trimmed);
-            // Remove dangerous characters
-            trimmed = trimmed.replaceAll("[<>&\"'`]", "");
+        IncidentCreationResult result = new IncidentCreationResult(incidentId, issueCreator.getIssueKey(incidentId), null);
+        result.deduplicated = true;
+        result.occurrences = occurrences;
+        return result;
+    }
+    
+    /**
+     * 📤 RESPONSE: Result fields shared by the sync response and the async status
+     */
+    private Map<String, Object> toResultMap(IncidentCreationResult result) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("incidentId", result.incidentId);
+        map.put("incidentKey", result.incidentKey);
+        if (result.linkedProblemId != null) {
+            map.put("linkedProblemId", result.linkedProblemId);
         }
-        
-        return trimmed.isEmpty() ? null : trimmed;
+        if (result.deduplicated) {
+            map.put("deduplicated", true);
+            map.put("occurrences", result.occurrences);
+        }
+        return map;
+    }
+    
+    /**
+     * 🔒 SECURITY: Sanitize string input
+     */
+    private String sanitizeString(String input) {
+        String sanitized = InputSanitizer.WEBHOOK_FIELD.sanitize(input);
+        return (sanitized == null || sanitized.isEmpty()) ? null : sanitized;
     }
     
     /**
@@ -342,6 +1039,53 @@ public class WebhookResource {
         }
     }
     
+    private static class BatchResult {
+        final JSONArray results = new JSONArray();
+        int received;
+        int succeeded;
+        int failed;
+        boolean truncated;
+        int prepaidTokens;
+        long rateLimitedNanos;
+        
+        void recordSuccess(Map<String, Object> fields) {
+            JSONObject item = new JSONObject(fields);
+            item.put("index", received++);
+            item.put("success", true);
+            results.put(item);
+            succeeded++;
+        }
+        
+        void recordFailure(String error) {
+            JSONObject item = new JSONObject();
+            item.put("index", received++);
+            item.put("success", false);
+            item.put("error", error);
+            results.put(item);
+            failed++;
+        }
+    }
+    
+    private static class AlertAdmission {
+        final AlertPayload payload;
+        final String payloadDigest;
+        final Response rejection;
+        
+        private AlertAdmission(AlertPayload payload, String payloadDigest, Response rejection) {
+            this.payload = payload;
+            this.payloadDigest = payloadDigest;
+            this.rejection = rejection;
+        }
+        
+        static AlertAdmission accepted(AlertPayload payload, String payloadDigest) {
+            return new AlertAdmission(payload, payloadDigest, null);
+        }
+        
+        static AlertAdmission rejected(Response rejection) {
+            return new AlertAdmission(null, null, rejection);
+        }
+    }
+    
     private static class AlertPayload {
         String summary;
         String description;
@@ -351,13 +1095,28 @@ public class WebhookResource {
         String alertType;
         String environment;
         String component;
-        org.json.JSONArray tags;
+        List<String> tags;
+    }
+    
+    /**
+     * 🚦 ADMISSION: No creation permit was available; the alert was not processed
+     */
+    private static class CreationShedException extends RuntimeException {
+        CreationShedException() {
+            this("Incident creation at its concurrency limit");
+        }
+        
+        CreationShedException(String message) {
+            super(message, null, false, false);
+        }
     }
     
     private static class IncidentCreationResult {
         final Long incidentId;
         final String incidentKey;
         final Long linkedProblemId;
+        boolean deduplicated;
+        int occurrences;
         
         IncidentCreationResult(Long incidentId, String incidentKey, Long linkedProblemId) {
             this.incidentId = incidentId;
@@ -0,0 +1,212 @@
+package com.example.itil.validation;
+
+import com.atlassian.sal.api.pluginsettings.PluginSettings;
+import com.atlassian.sal.api.pluginsettings.PluginSettingsFactory;
+import com.example.itil.config.PluginConfiguration;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * 🔒 SECURITY: Validation of webhook senders — source names and the client IP allowlist.
+ *
+ * The allowlist is a set of IPv4/IPv6 CIDR ranges compiled into a {@link CidrTrie}, so a
+ * check costs the same for ten ranges or ten thousand. Edits made through
+ * {@code ConfigurationResource} are compiled first and then swapped in atomically;
+ * saved ranges live in plugin settings and are re-read periodically so every cluster
+ * node picks them up.
+ */
+@Named
+public class WebhookValidator {
+    private static final Logger log = LoggerFactory.getLogger(WebhookValidator.class);
+
+    static final String SETTINGS_KEY = "com.example.itil.webhook.ipAllowlist";
+
+    // Configuration defaults, used until an allowlist is saved through the configuration API
+    private static final String DEFAULT_IP_ALLOWLIST =
+        "10.0.0.0/8,172.16.0.0/12,192.168.0.0/16,127.0.0.0/8,::1/128,fc00::/7";
+    private static final long DEFAULT_RELOAD_SECONDS = 60;
+    private static final Pattern SOURCE_NAME = Pattern.compile("[A-Za-z0-9][A-Za-z0-9._-]{0,63}");
+
+    private final PluginSettingsFactory pluginSettingsFactory;
+    private final CidrTrie defaults;
+    private final Set<String> allowedSources;
+    private final long reloadNanos;
+
+    private volatile CidrTrie allowlist;
+    private volatile Object loadedSetting;
+    private final AtomicLong nextReload = new AtomicLong();
+
+    // 📊 METRICS
+    private final LongAdder allowedIps = new LongAdder();
+    private final LongAdder deniedIps = new LongAdder();
+    private final LongAdder invalidSources = new LongAdder();
+
+    @Inject
+    public WebhookValidator(PluginSettingsFactory pluginSettingsFactory) {
+        this.pluginSettingsFactory = pluginSettingsFactory;
+        this.defaults = compileConfigured(PluginConfiguration.getString("webhook.ip.allowlist", DEFAULT_IP_ALLOWLIST));
+        this.allowedSources = parseSources(PluginConfiguration.getString("webhook.allowed.sources", ""));
+        this.reloadNanos = TimeUnit.SECONDS.toNanos(Math.max(1,
+            PluginConfiguration.getLong("webhook.ip.allowlist.reload.seconds", DEFAULT_RELOAD_SECONDS)));
+        this.allowlist = defaults;
+        this.nextReload.set(System.nanoTime());
+    }
+
+    /**
+     * A well-formed source name, and one of {@code webhook.allowed.sources} if that is set.
+     */
+    public boolean isValidWebhookSource(String source) {
+        boolean valid = source != null && SOURCE_NAME.matcher(source).matches()
+            && (allowedSources.isEmpty() || allowedSources.contains(source.toLowerCase(Locale.ROOT)));
+        if (!valid) {
+            invalidSources.increment();
+        }
+        return valid;
+    }
+
+    /**
+     * 🌐 ALLOWLIST: Whether the client address lies in an allowed range.
+     */
+    public boolean isIpWhitelisted(String clientIp) {
+        if (currentAllowlist(System.nanoTime()).contains(clientIp)) {
+            allowedIps.increment();
+            return true;
+        }
+        deniedIps.increment();
+        return false;
+    }
+
+    public CidrTrie getAllowlist() {
+        return currentAllowlist(System.nanoTime());
+    }
+
+    /**
+     * 🔧 CONFIG: Compile, persist and apply a new allowlist on this node immediately;
+     * other nodes pick it up on their next reload.
+     *
+     * @throws IllegalArgumentException if any entry is not a valid address or range
+     */
+    public CidrTrie updateAllowlist(List<String> ranges) {
+        CidrTrie compiled = CidrTrie.compile(ranges);
+        String saved = toJson(compiled).toString();
+        settings().put(SETTINGS_KEY, saved);
+        loadedSetting = saved;
+        allowlist = compiled;
+        nextReload.set(System.nanoTime() + reloadNanos);
+        log.info("Webhook IP allowlist updated: {} IPv4 and {} IPv6 ranges",
+            compiled.getIpv4RangeCount(), compiled.getIpv6RangeCount());
+        return compiled;
+    }
+
+    /**
+     * 🔧 CONFIG: Drop the saved allowlist and return to the configured default ranges.
+     */
+    public CidrTrie resetAllowlist() {
+        settings().remove(SETTINGS_KEY);
+        loadedSetting = null;
+        allowlist = defaults;
+        nextReload.set(System.nanoTime() + reloadNanos);
+        log.info("Webhook IP allowlist reset to defaults");
+        return defaults;
+    }
+
+    /**
+     * Allowlist as {@code {"ranges": [...], "ipv4Ranges": n, "ipv6Ranges": n}}.
+     */
+    public static JSONObject toJson(CidrTrie trie) {
+        JSONObject json = new JSONObject();
+        json.put("ranges", new JSONArray(trie.getRanges()));
+        json.put("ipv4Ranges", trie.getIpv4RangeCount());
+        json.put("ipv6Ranges", trie.getIpv6RangeCount());
+        return json;
+    }
+
+    /**
+     * 📊 METRICS: Allowlist size and validation outcomes for health reporting
+     */
+    public Map<String, Object> getMetrics() {
+        CidrTrie current = allowlist;
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("ipv4Ranges", current.getIpv4RangeCount());
+        metrics.put("ipv6Ranges", current.getIpv6RangeCount());
+        metrics.put("trieNodes", current.getNodeCount());
+        metrics.put("allowedIps", allowedIps.sum());
+        metrics.put("deniedIps", deniedIps.sum());
+        metrics.put("invalidSources", invalidSources.sum());
+        return metrics;
+    }
+
+    private CidrTrie currentAllowlist(long now) {
+        long due = nextReload.get();
+        if (now - due >= 0 && nextReload.compareAndSet(due, now + reloadNanos)) {
+            reloadAllowlist();
+        }
+        return allowlist;
+    }
+
+    /**
+     * Recompile only when the saved value changed since it was last applied.
+     */
+    private void reloadAllowlist() {
+        try {
+            Object saved = settings().get(SETTINGS_KEY);
+            if (saved == null ? loadedSetting == null : saved.equals(loadedSetting)) {
+                return;
+            }
+            if (saved == null) {
+                allowlist = defaults;
+            } else {
+                JSONArray ranges = new JSONObject(saved.toString()).getJSONArray("ranges");
+                String[] entries = new String[ranges.length()];
+                for (int i = 0; i < entries.length; i++) {
+                    entries[i] = ranges.getString(i);
+                }
+                allowlist = CidrTrie.compile(Arrays.asList(entries));
+            }
+            loadedSetting = saved;
+        } catch (Exception e) {
+            log.warn("Unable to load webhook IP allowlist, keeping current ranges: {}", e.getMessage());
+        }
+    }
+
+    private static CidrTrie compileConfigured(String value) {
+        try {
+            return CidrTrie.compile(Arrays.asList(value.split(",")));
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid webhook.ip.allowlist ({}), denying all webhook clients until it is fixed",
+                e.getMessage());
+            return CidrTrie.EMPTY;
+        }
+    }
+
+    private static Set<String> parseSources(String value) {
+        Set<String> sources = new HashSet<>();
+        for (String source : value.split(",")) {
+            if (!source.trim().isEmpty()) {
+                sources.add(source.trim().toLowerCase(Locale.ROOT));
+            }
+        }
+        return Collections.unmodifiableSet(sources);
+    }
+
+    private PluginSettings settings() {
+        return pluginSettingsFactory.createGlobalSettings();
+    }
+}
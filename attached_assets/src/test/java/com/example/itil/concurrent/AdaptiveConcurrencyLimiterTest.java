@@ -0,0 +1,196 @@
+package com.example.itil.concurrent;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+    private static final long MEDIAN_NANOS = TimeUnit.MILLISECONDS.toNanos(80);
+
+    @Test
+    public void limitHoldsWhenLatencyDoesNotDependOnLoad() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 8, 1, 64, 1.5, 60000);
+        Random random = new Random(42);
+        Deque<Long> running = new ArrayDeque<>();
+        int shed = 0;
+
+        // Six callers, each starting its next call as soon as the previous one returns
+        for (int call = 0; call < 50000; call++) {
+            if (running.size() == 6) {
+                limiter.release(running.poll());
+            }
+            if (limiter.tryAcquire()) {
+                running.add(logNormal(random, 0.2));
+            } else {
+                shed++;
+            }
+        }
+
+        assertEquals(0, shed);
+        assertTrue("limit fell to " + limiter.getLimit(), limiter.getLimit() >= 8);
+    }
+
+    @Test
+    public void failuresDoNotMoveTheLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 8, 1, 64, 1.5, 60000);
+        Random random = new Random(7);
+        for (int i = 0; i < 200; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(logNormal(random, 0.2));
+        }
+        int before = limiter.getLimit();
+
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.releaseWithoutSample();
+        }
+
+        assertEquals(before, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void limitBacksOffWhenLatencyClimbs() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 8, 1, 64, 1.5, 60000);
+        Random random = new Random(11);
+        for (int i = 0; i < 200; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(logNormal(random, 0.2));
+        }
+
+        for (int i = 0; i < 200; i++) {
+            if (limiter.tryAcquire()) {
+                limiter.release(3 * logNormal(random, 0.2));
+            }
+        }
+
+        assertTrue("limit stayed at " + limiter.getLimit(), limiter.getLimit() < 8);
+    }
+
+    @Test
+    public void releaseWakesWaiters() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 2, 1, 64, 1.5, 60000);
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+
+        ExecutorService callers = Executors.newFixedThreadPool(4);
+        CountDownLatch admitted = new CountDownLatch(4);
+        try {
+            for (int i = 0; i < 4; i++) {
+                callers.execute(() -> {
+                    try {
+                        // Far longer than the test waits, so only a wake-up gets them in
+                        if (limiter.acquire(60000)) {
+                            admitted.countDown();
+                            limiter.releaseWithoutSample();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+            awaitWaiting(limiter, 4);
+            assertEquals(4, admitted.getCount());
+
+            limiter.releaseWithoutSample();
+            limiter.releaseWithoutSample();
+
+            assertTrue("waiters were not woken", admitted.await(5, TimeUnit.SECONDS));
+        } finally {
+            callers.shutdownNow();
+        }
+        assertEquals(0, limiter.getInFlight());
+        assertEquals(4L, limiter.getMetrics().get("waited"));
+        assertEquals(0L, limiter.getMetrics().get("timedOut"));
+    }
+
+    @Test
+    public void waitersTimeOutWhileSaturated() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 2, 1, 64, 1.5, 60000);
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+
+        ExecutorService callers = Executors.newFixedThreadPool(3);
+        try {
+            List<Future<Long>> waits = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                waits.add(callers.submit(() -> {
+                    long start = System.nanoTime();
+                    assertFalse(limiter.acquire(100));
+                    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                }));
+            }
+            for (Future<Long> wait : waits) {
+                long waitedMs = wait.get(5, TimeUnit.SECONDS);
+                assertTrue("gave up after " + waitedMs + " ms", waitedMs >= 100 && waitedMs < 2000);
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+        assertEquals(2, limiter.getInFlight());
+        assertEquals(3L, limiter.getMetrics().get("timedOut"));
+        assertEquals(0, limiter.getMetrics().get("waiting"));
+    }
+
+    @Test
+    public void concurrentCallersNeverExceedTheLimit() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 4, 1, 64, 1.5, 60000);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        AtomicInteger timedOut = new AtomicInteger();
+
+        ExecutorService callers = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<?>> done = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                done.add(callers.submit(() -> {
+                    for (int call = 0; call < 2000; call++) {
+                        if (!limiter.acquire(1000)) {
+                            timedOut.incrementAndGet();
+                            continue;
+                        }
+                        peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                        running.decrementAndGet();
+                        limiter.releaseWithoutSample();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> caller : done) {
+                caller.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+        assertTrue("peak of " + peak.get() + " callers", peak.get() <= 4);
+        assertEquals(0, timedOut.get());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    private static void awaitWaiting(AdaptiveConcurrencyLimiter limiter, int waiting) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!Integer.valueOf(waiting).equals(limiter.getMetrics().get("waiting"))) {
+            assertTrue("callers never started waiting", System.nanoTime() < deadline);
+            Thread.sleep(1);
+        }
+    }
+
+    private static long logNormal(Random random, double sigma) {
+        return (long) (MEDIAN_NANOS * Math.exp(sigma * random.nextGaussian()));
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.itil.security;
+
+import com.atlassian.sal.api.pluginsettings.PluginSettings;
+import com.atlassian.sal.api.pluginsettings.PluginSettingsFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link WebhookAuthenticationService#authenticateWebhook} for a signed alert
+ * body, on one thread and on every core sharing one service. Divide the all-cores score
+ * by the core count for the per-core rate; it should stay close to the single-thread one.
+ *
+ * Run with {@code mvn -Pbenchmarks test-compile exec:exec -Djmh.include=WebhookAuthentication}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WebhookAuthenticationBenchmark {
+
+    private static final String SOURCE = "prometheus";
+    private static final String TOKEN = "bench-token-0123456789abcdef";
+    private static final String SECRET = "current-secret";
+    private static final String PREVIOUS_SECRET = "previous-secret";
+
+    @Param({"1024", "8192"})
+    public int bodyBytes;
+
+    /**
+     * Whether the sender still signs with the secret being rotated out, which costs a
+     * second MAC.
+     */
+    @Param({"false", "true"})
+    public boolean previousSecret;
+
+    private WebhookAuthenticationService service;
+    private String authHeader;
+    private String signature;
+    private byte[] body;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        service = new WebhookAuthenticationService(new InMemoryPluginSettingsFactory());
+        service.updateCredentials(SOURCE, TOKEN, Arrays.asList(SECRET, PREVIOUS_SECRET));
+
+        StringBuilder json = new StringBuilder("{\"alerts\":[");
+        while (json.length() < bodyBytes - 2) {
+            json.append("{\"status\":\"firing\",\"labels\":{\"alertname\":\"HighCpu\",\"instance\":\"web-1\"}},");
+        }
+        json.setLength(bodyBytes - 2);
+        body = json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+
+        authHeader = "Bearer " + TOKEN;
+        signature = "sha256=" + hmacHex(previousSecret ? PREVIOUS_SECRET : SECRET, body);
+        if (!service.authenticateWebhook(authHeader, signature, body, body.length, SOURCE)) {
+            throw new IllegalStateException("benchmark request does not authenticate");
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean singleThread() {
+        return service.authenticateWebhook(authHeader, signature, body, body.length, SOURCE);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean allCores() {
+        return service.authenticateWebhook(authHeader, signature, body, body.length, SOURCE);
+    }
+
+    private static String hmacHex(String secret, byte[] data) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        StringBuilder hex = new StringBuilder();
+        for (byte b : mac.doFinal(data)) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    private static final class InMemoryPluginSettingsFactory implements PluginSettingsFactory {
+        private final PluginSettings global = new PluginSettings() {
+            private final Map<String, Object> values = new ConcurrentHashMap<>();
+
+            @Override
+            public Object get(String key) {
+                return values.get(key);
+            }
+
+            @Override
+            public Object put(String key, Object value) {
+                return values.put(key, value);
+            }
+
+            @Override
+            public Object remove(String key) {
+                return values.remove(key);
+            }
+        };
+
+        @Override
+        public PluginSettings createSettingsForKey(String key) {
+            return global;
+        }
+
+        @Override
+        public PluginSettings createGlobalSettings() {
+            return global;
+        }
+    }
+}
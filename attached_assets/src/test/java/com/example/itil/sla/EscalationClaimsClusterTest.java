@@ -0,0 +1,166 @@
+package com.example.itil.sla;
+
+import com.example.itil.cluster.ClusterShards;
+import com.example.itil.cluster.InMemoryClusterMembership;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Nodes sharing {@link InMemoryEscalationClaims} escalate the same Incidents the way
+ * {@link SlaEscalationScheduler} does: claim the level, reassign, record it applied and
+ * only then comment.
+ */
+public class EscalationClaimsClusterTest {
+
+    private static final int LEVELS = 3;
+    private static final long TAKEOVER_MS = 20;
+
+    private final InMemoryClusterMembership.Cluster cluster = new InMemoryClusterMembership.Cluster();
+    private final InMemoryEscalationClaims claims = new InMemoryEscalationClaims();
+    private final Map<String, AtomicInteger> comments = new ConcurrentHashMap<>();
+
+    @Test
+    public void stalledClaimantDoesNotCommentAfterTakeover() {
+        Node second = new Node("node-2");
+
+        // node-1 wins level 1 and hangs past the takeover time
+        EscalationClaims.Claim stalled = claims.claim(1L, 1, 0, TAKEOVER_MS);
+        assertTrue(stalled.isWon());
+        assertTrue(claims.claim(1L, 1, TAKEOVER_MS - 1, TAKEOVER_MS).isPending());
+
+        assertTrue(second.escalate(1L, 1, TAKEOVER_MS));
+        assertFalse(claims.applied(1L, stalled, TAKEOVER_MS + 1));
+
+        assertTrue(claims.claim(1L, 1, TAKEOVER_MS + 2, TAKEOVER_MS).isReached());
+        assertEquals(1, comments.get(1L + "@" + 1).get());
+        assertEquals(1, claims.getLevel(1L));
+    }
+
+    @Test
+    public void eachLevelIsCommentedOnceWhileNodesJoinAndLeave() throws Exception {
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 1; i <= 4; i++) {
+            nodes.add(new Node("node-" + i));
+        }
+        int issues = 200;
+        AtomicBoolean done = new AtomicBoolean();
+
+        // node-1 stays up so every level gets applied; the others keep dropping out and back in
+        Thread churn = new Thread(() -> {
+            Random random = new Random(3);
+            while (!done.get()) {
+                Node node = nodes.get(1 + random.nextInt(nodes.size() - 1));
+                if (random.nextBoolean()) {
+                    node.leave();
+                } else {
+                    node.rejoin();
+                }
+                sleep(2);
+            }
+        });
+        churn.start();
+
+        for (int level = 1; level <= LEVELS; level++) {
+            CountDownLatch finished = new CountDownLatch(nodes.size());
+            int due = level;
+            for (Node node : nodes) {
+                new Thread(() -> {
+                    try {
+                        node.runUntilApplied(issues, due);
+                    } finally {
+                        finished.countDown();
+                    }
+                }).start();
+            }
+            assertTrue("level " + level + " not applied in time", finished.await(30, TimeUnit.SECONDS));
+        }
+        done.set(true);
+        churn.join();
+
+        for (long issueId = 1; issueId <= issues; issueId++) {
+            assertEquals(LEVELS, claims.getLevel(issueId));
+            for (int level = 1; level <= LEVELS; level++) {
+                AtomicInteger count = comments.get(issueId + "@" + level);
+                assertEquals("comments on " + issueId + " for level " + level, 1, count == null ? 0 : count.get());
+            }
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private final class Node {
+        private final String id;
+        private final ClusterShards shards;
+        private final Random random;
+
+        Node(String id) {
+            this.id = id;
+            this.shards = new ClusterShards("test", cluster.join(id), 64);
+            this.random = new Random(id.hashCode());
+        }
+
+        void leave() {
+            cluster.leave(id);
+        }
+
+        void rejoin() {
+            cluster.join(id);
+        }
+
+        void runUntilApplied(int issues, int level) {
+            boolean pending = true;
+            while (pending) {
+                shards.refresh();
+                pending = false;
+                for (long issueId = 1; issueId <= issues; issueId++) {
+                    if (claims.getLevel(issueId) >= level) {
+                        continue;
+                    }
+                    pending = true;
+                    if (shards.isLocal(issueId)) {
+                        escalate(issueId, level, System.currentTimeMillis());
+                    }
+                }
+                Thread.yield();
+            }
+        }
+
+        /**
+         * The claim, apply and comment steps of {@link SlaEscalationScheduler}; now and
+         * then the node stalls between claiming and applying, long enough to be taken over.
+         */
+        boolean escalate(Long issueId, int level, long now) {
+            EscalationClaims.Claim claim = claims.claim(issueId, level, now, TAKEOVER_MS);
+            if (!claim.isWon()) {
+                return false;
+            }
+            if (random.nextInt(50) == 0) {
+                sleep(TAKEOVER_MS + 5);
+            }
+            if (!claims.applied(issueId, claim, System.currentTimeMillis())) {
+                return false;
+            }
+            comments.computeIfAbsent(issueId + "@" + level, key -> new AtomicInteger()).incrementAndGet();
+            return true;
+        }
+    }
+}
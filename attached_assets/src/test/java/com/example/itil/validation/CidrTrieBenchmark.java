@@ -0,0 +1,91 @@
+package com.example.itil.validation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CidrTrie#contains} on an allowlist of mixed IPv4 and IPv6 ranges, looking up a
+ * mix of plain IPv4, IPv4-mapped IPv6 and IPv6 addresses of which about half match.
+ *
+ * Run with {@code mvn -Pbenchmarks test-compile exec:exec -Djmh.include=CidrTrie}; the
+ * score should stay flat as {@code ranges} grows.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CidrTrieBenchmark {
+
+    private static final int ADDRESSES = 4096;
+
+    @Param({"10", "10000"})
+    public int ranges;
+
+    private CidrTrie trie;
+    private String[] addresses;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        List<String> entries = new ArrayList<>(ranges);
+        List<String> members = new ArrayList<>(ranges);
+        for (int i = 0; i < ranges; i++) {
+            if (random.nextBoolean()) {
+                int network = random.nextInt() & 0xffffff00;
+                entries.add(ipv4(network) + "/" + (16 + random.nextInt(17)));
+                members.add(ipv4(network | random.nextInt(256)));
+            } else {
+                int group = random.nextInt(0x10000);
+                entries.add("2001:db8:" + Integer.toHexString(group) + "::/" + (48 + random.nextInt(17)));
+                members.add("2001:db8:" + Integer.toHexString(group) + "::" + Integer.toHexString(random.nextInt(0x10000)));
+            }
+        }
+        trie = CidrTrie.compile(entries);
+
+        addresses = new String[ADDRESSES];
+        for (int i = 0; i < ADDRESSES; i++) {
+            String member = members.get(random.nextInt(members.size()));
+            switch (i % 4) {
+                case 0:
+                    addresses[i] = member;
+                    break;
+                case 1:
+                    // Mapped form of a member, or a member again for IPv6
+                    addresses[i] = member.indexOf(':') < 0 ? "::ffff:" + member : member;
+                    break;
+                case 2:
+                    addresses[i] = ipv4(random.nextInt());
+                    break;
+                default:
+                    addresses[i] = "2001:db9:" + Integer.toHexString(random.nextInt(0x10000)) + "::1";
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean contains() {
+        return trie.contains(addresses[next++ & (ADDRESSES - 1)]);
+    }
+
+    private static String ipv4(int address) {
+        return (address >>> 24) + "." + (address >>> 16 & 0xff) + "." + (address >>> 8 & 0xff) + "." + (address & 0xff);
+    }
+}